@@ -11,8 +11,10 @@ import static java.util.Arrays.asList;
 
 import com.google.common.collect.Lists;
 
+import iguana.utils.input.CSRGraphInput;
 import iguana.utils.input.GraphInput;
 import iguana.utils.input.Neo4jBenchmarkInput;
+import iguana.utils.input.RelationshipLabels;
 import org.eclipse.collections.api.list.MutableList;
 import org.eclipse.collections.impl.list.Interval;
 import org.eclipse.rdf4j.query.algebra.In;
@@ -24,6 +26,7 @@ import org.iguana.parser.ParseOptions;
 import org.iguana.parsetree.ParseTreeNode;
 
 import org.iguana.sppf.NonterminalNode;
+import org.iguana.util.Configuration;
 import org.iguana.util.Tuple;
 import org.neo4j.configuration.GraphDatabaseSettings;
 import org.neo4j.configuration.connectors.BoltConnector;
@@ -42,7 +45,6 @@ import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -62,6 +64,11 @@ public class Neo4jBenchmark {
     private static final String st = "st";
     private static final String da = "ad";
 
+    // The configuration of config.xml with GSS nodes indexed by vertex, as the vertex count is known
+    private static final Configuration config = Configuration.builder(Configuration.load())
+            .setGSSLookupImpl(Configuration.LookupImpl.ARRAY)
+            .build();
+
     //    args0 rel type (st/bt/nt)
     //    args1 nodeNumber
     //    args2 number of warm up iteration
@@ -70,16 +77,20 @@ public class Neo4jBenchmark {
     //    args5 path to grammar
     //    args6 dataset name = name of file with results
     //    args7 grammar name (g1/g2/geo)
+    //    args8.. optional "snapshot" to query an in-memory copy of the graph instead of Neo4j,
+    //            and "count" to only count the reachable pairs per start vertex instead of collecting them
     public static void main(String[] args) throws IOException {
 
         loadGraph(args[6], Integer.parseInt(args[1]), args[4], args[0]);
         //benchmark(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), args[5], args[6], args[7], args[4]);
-        benchmarkReachabilities(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), args[5], args[6], args[7], args[4]);
+        List<String> options = asList(args).subList(Math.min(args.length, 8), args.length);
+        benchmarkReachabilities(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), args[5], args[6], args[7], args[4],
+                options.contains("snapshot"), options.contains("count"));
         removeData();
         managementService.shutdown();
     }
 
-    public static BiFunction<Relationship, Direction, String> getFunction(String relationshipName) {
+    public static RelationshipLabels getFunction(String relationshipName) {
         if (relationshipNamesMap.containsKey(relationshipName)) {
             return singleFunction(relationshipNamesMap.get(relationshipName));
         } else if (relationshipName.equals(st)) {
@@ -91,65 +102,26 @@ public class Neo4jBenchmark {
         }
     }
 
-    public static BiFunction<Relationship, Direction, String> singleFunction(String relationshipName) {
-        return (rel, direction) -> {
-            if (rel.isType(RelationshipType.withName(relationshipName))) {
-                if (direction.equals(Direction.OUTGOING)) {
-                    return "a";
-                } else if (direction.equals(Direction.INCOMING)) {
-                    return "b";
-                } else {
-                    throw new RuntimeException("Unexpected direction");
-                }
-            }
-            return null;
-        };
+    public static RelationshipLabels singleFunction(String relationshipName) {
+        return new RelationshipLabels()
+                .add(relationshipName, Direction.OUTGOING, "a")
+                .add(relationshipName, Direction.INCOMING, "b");
     }
 
-    public static BiFunction<Relationship, Direction, String> subclassAndTypeFunction() {
-        return (rel, direction) -> {
-            if (rel.isType(RelationshipType.withName("subClassOf"))) {
-                if (direction.equals(Direction.OUTGOING)) {
-                    return "a";
-                } else if (direction.equals(Direction.INCOMING)) {
-                    return "b";
-                } else {
-                    throw new RuntimeException("Unexpected direction");
-                }
-            } else if (rel.isType(RelationshipType.withName("type"))) {
-                if (direction.equals(Direction.OUTGOING)) {
-                    return "c";
-                } else if (direction.equals(Direction.INCOMING)) {
-                    return "d";
-                } else {
-                    throw new RuntimeException("Unexpected direction");
-                }
-            }
-            return null;
-        };
+    public static RelationshipLabels subclassAndTypeFunction() {
+        return new RelationshipLabels()
+                .add("subClassOf", Direction.OUTGOING, "a")
+                .add("subClassOf", Direction.INCOMING, "b")
+                .add("type", Direction.OUTGOING, "c")
+                .add("type", Direction.INCOMING, "d");
     }
 
-    public static BiFunction<Relationship, Direction, String> initFunction() {
-        return (rel, direction) -> {
-            if (rel.isType(RelationshipType.withName("d"))) {
-                if (direction.equals(Direction.OUTGOING)) {
-                    return "a";
-                } else if (direction.equals(Direction.INCOMING)) {
-                    return "b";
-                } else {
-                    throw new RuntimeException("Unexpected direction");
-                }
-            } else if (rel.isType(RelationshipType.withName("a"))) {
-                if (direction.equals(Direction.OUTGOING)) {
-                    return "c";
-                } else if (direction.equals(Direction.INCOMING)) {
-                    return "d";
-                } else {
-                    throw new RuntimeException("Unexpected direction");
-                }
-            }
-            return null;
-        };
+    public static RelationshipLabels initFunction() {
+        return new RelationshipLabels()
+                .add("d", Direction.OUTGOING, "a")
+                .add("d", Direction.INCOMING, "b")
+                .add("a", Direction.OUTGOING, "c")
+                .add("a", Direction.INCOMING, "d");
     }
 
 
@@ -277,8 +249,8 @@ public class Neo4jBenchmark {
         System.out.println("edges done");
     }
 
-    public static void benchmarkReachabilities(String relType, int nodeNumber, int warmUp, int maxIter, String pathToGrammar, String dataset, String grammarName, String pathToDataset) throws IOException {
-        BiFunction<Relationship, Direction, String> f = getFunction(relType);
+    public static void benchmarkReachabilities(String relType, int nodeNumber, int warmUp, int maxIter, String pathToGrammar, String dataset, String grammarName, String pathToDataset, boolean snapshot, boolean count) throws IOException {
+        RelationshipLabels f = getFunction(relType);
 
         Map<String, List<Integer>> vertexToTime = new HashMap<>();
         Grammar grammar;
@@ -287,6 +259,8 @@ public class Neo4jBenchmark {
         } catch (FileNotFoundException e) {
             throw new RuntimeException("No grammar.json file is present");
         }
+        IguanaParser parser = new IguanaParser(grammar, config);
+        List<String> labels = parser.getGrammarGraph().getTerminalLabels();
         Runtime r = Runtime.getRuntime();
         PrintWriter outStatsTime = new PrintWriter("results/" + dataset + "_" + relType + "_time_reachabilities.csv");
         outStatsTime.append("chunk_size, time");
@@ -296,18 +270,27 @@ public class Neo4jBenchmark {
         Integer chunkSize = nodeNumber;
         List<Integer> vertices = Interval.zeroTo(nodeNumber - 1);
         List<List<Integer>> verticesPartitioned = Lists.partition(vertices, chunkSize);
+        CSRGraphInput graphSnapshot = !snapshot ? null
+                : labels == null
+                ? Neo4jBenchmarkInput.snapshot(graphDb, f, Stream.empty(), nodeNumber)
+                : Neo4jBenchmarkInput.snapshot(graphDb, f, labels, Stream.empty(), nodeNumber);
         long t1 = System.nanoTime();
         r.gc();
         long m1 = r.totalMemory() - r.freeMemory();
         List<Integer> sumResult = new ArrayList<>();
         verticesPartitioned.forEach(chunk -> {
             for (int iter = 0; iter < maxIter; ++iter) {
-                IguanaParser parser = new IguanaParser(grammar);
                 //System.out.println("iter 0" + " chunkSize " + sz);
-                GraphInput input = new Neo4jBenchmarkInput(graphDb, f, chunk.stream(), nodeNumber);
+                GraphInput input = snapshot
+                        ? graphSnapshot.withStartVertices(chunk.stream())
+                        : labels == null
+                        ? new Neo4jBenchmarkInput(graphDb, f, chunk.stream(), nodeNumber)
+                        : new Neo4jBenchmarkInput(graphDb, f, labels, chunk.stream(), nodeNumber);
                 long t1_local = System.nanoTime();
-                Stream<Pair> parseResults = parser.getReachabilities(input,
-                        new ParseOptions.Builder().setAmbiguous(false).build());
+                ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+                long parseResults = count
+                        ? parser.countReachabilities(input, options).getTotal()
+                        : parser.getReachabilitySet(input, options).size();
                 //sumResult.add(parseResults.getSecond());
                 long m2 = r.totalMemory() - r.freeMemory();
                 long curM = (m2 - m1);
@@ -317,13 +300,14 @@ public class Neo4jBenchmark {
                 //System.out.println("My id " + myId + "; full time is " + curT[0] + "; step time is " + stepTime);
                 System.out.println("Used memory is " + curM);
                 r.gc();
-                ((Neo4jBenchmarkInput) input).close();
+                if (input instanceof Neo4jBenchmarkInput) {
+                    ((Neo4jBenchmarkInput) input).close();
+                }
                 /*if (parseResults != null) {
                     vertexToTime.putIfAbsent(sz.toString(), new ArrayList<>());
                     vertexToTime.get(sz.toString()).add((int) curT[0]);
                     }*/
-                if (parseResults != null)
-                    System.out.println(parseResults.count());
+                System.out.println(parseResults);
 //                    if (parseResults != null) {
 //                        return parseResults.count();
 //                    } else {
@@ -345,7 +329,7 @@ public class Neo4jBenchmark {
     }
 
     public static void benchmark(String relType, int nodeNumber, int warmUp, int maxIter, String pathToGrammar, String dataset, String grammarName, String pathToDataset) throws IOException {
-        BiFunction<Relationship, Direction, String> f = getFunction(relType);
+        RelationshipLabels f = getFunction(relType);
         Grammar grammar;
         try {
             grammar = Grammar.load(pathToGrammar, "json");
@@ -353,7 +337,8 @@ public class Neo4jBenchmark {
             throw new RuntimeException("No grammar.json file is present");
         }
 
-        IguanaParser parser = new IguanaParser(grammar);
+        IguanaParser parser = new IguanaParser(grammar, config);
+        List<String> labels = parser.getGrammarGraph().getTerminalLabels();
 
         List<Integer> vertices = new ArrayList<>();
         try (Stream<String> inputNodes = Files.lines(Paths.get("/" + pathToDataset + dataset + "_nodes.csv"))) {
@@ -387,7 +372,9 @@ public class Neo4jBenchmark {
                 }
                 int finalIter = iter;
                 verticesPartitioned.parallelStream().forEach(chunk -> {
-                    GraphInput input = new Neo4jBenchmarkInput(graphDb, f, chunk.stream(), nodeNumber);
+                    GraphInput input = labels == null
+                            ? new Neo4jBenchmarkInput(graphDb, f, chunk.stream(), nodeNumber)
+                            : new Neo4jBenchmarkInput(graphDb, f, labels, chunk.stream(), nodeNumber);
                     System.out.println("iteration: " + finalIter + " first vertex: " + chunk.get(0));
                     long t1_local = System.nanoTime();
 //                        Map<Pair, ParseTreeNode> parseResults = parser.getParserTree(input,
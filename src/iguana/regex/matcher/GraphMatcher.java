@@ -5,6 +5,7 @@ import iguana.utils.input.Input;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 public class GraphMatcher implements Matcher {
@@ -14,6 +15,10 @@ public class GraphMatcher implements Matcher {
         this.label = label;
     }
 
+    public String getLabel() {
+        return label;
+    }
+
     @Override
     public List<Integer> match(Input input, int vertexIndex) {
         if (input instanceof GraphInput) {
@@ -23,11 +28,18 @@ public class GraphMatcher implements Matcher {
         return new ArrayList<>();
     }
 
+    @Override
+    public void forEachMatch(Input input, int vertexIndex, IntConsumer consumer) {
+        if (input instanceof GraphInput) {
+            ((GraphInput) input).forEachDestVertex(vertexIndex, label, consumer);
+        }
+    }
+
     @Override
     public boolean match(Input input, int startIndex, int endIndex) {
         if (input instanceof GraphInput) {
             GraphInput graphInput = (GraphInput) input;
-            return graphInput.getDestVertex(startIndex, label).contains(endIndex);
+            return graphInput.hasDestVertex(startIndex, label, endIndex);
         }
         return false;
     }
@@ -30,6 +30,7 @@ package iguana.regex.matcher;
 import iguana.utils.input.Input;
 
 import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * @author Ali Afroozeh
@@ -40,6 +41,16 @@ public interface Matcher {
 
     List<Integer> match(Input input, int i);
 
+    /**
+     * Passes the end index of each match starting at i to the consumer. Matchers used on the
+     * hot path should override this method to avoid allocating the list of end indices.
+     */
+    default void forEachMatch(Input input, int i, IntConsumer consumer) {
+        for (Integer end : match(input, i)) {
+            consumer.accept(end);
+        }
+    }
+
 //	default boolean match(Input input) {
 //		return match(input, 0) == input.length() - 1;
 //	}
@@ -0,0 +1,160 @@
+package iguana.utils.collections;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * A thread-safe IntHashMap, used for the tables that are shared by the worker threads of a
+ * concurrent parse. The keys are striped over a fixed number of segments by their low bits, and
+ * every segment is a primitive IntHashMap, e.g., an open addressing or a paged array map, that is
+ * guarded by its own lock. A segment stores the key k as k >> STRIPE_BITS, so consecutive input
+ * indices go to different segments and the keys of a paged array segment stay dense.
+ *
+ * All operations, including computeIfAbsent and compute, are atomic. The iterators walk a
+ * snapshot of the map.
+ */
+public class ConcurrentIntHashMap<T> implements IntHashMap<T> {
+
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int STRIPE_MASK = STRIPES - 1;
+
+    private final int initialCapacity;
+
+    private final IntHashMap<T>[] segments;
+
+    /**
+     * @param initialCapacity the expected range of the keys
+     * @param segmentFactory creates the map of a segment from the expected range of its keys
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentIntHashMap(int initialCapacity, IntFunction<IntHashMap<T>> segmentFactory) {
+        this.initialCapacity = initialCapacity;
+        this.segments = (IntHashMap<T>[]) new IntHashMap<?>[STRIPES];
+        int segmentCapacity = Math.max(1, (initialCapacity + STRIPE_MASK) >>> STRIPE_BITS);
+        for (int i = 0; i < STRIPES; i++) {
+            segments[i] = segmentFactory.apply(segmentCapacity);
+        }
+    }
+
+    private IntHashMap<T> segment(int key) {
+        return segments[key & STRIPE_MASK];
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public T computeIfAbsent(int key, IntFunction<T> f) {
+        IntHashMap<T> segment = segment(key);
+        synchronized (segment) {
+            return segment.computeIfAbsent(key >> STRIPE_BITS, k -> f.apply(key));
+        }
+    }
+
+    @Override
+    public T compute(int key, IntKeyMapper<T> mapper) {
+        IntHashMap<T> segment = segment(key);
+        synchronized (segment) {
+            return segment.compute(key >> STRIPE_BITS, (k, v) -> mapper.apply(key, v));
+        }
+    }
+
+    @Override
+    public T put(int key, T value) {
+        IntHashMap<T> segment = segment(key);
+        synchronized (segment) {
+            return segment.put(key >> STRIPE_BITS, value);
+        }
+    }
+
+    @Override
+    public T putIfAbsent(int key, T value) {
+        IntHashMap<T> segment = segment(key);
+        synchronized (segment) {
+            return segment.putIfAbsent(key >> STRIPE_BITS, value);
+        }
+    }
+
+    @Override
+    public T remove(int key) {
+        IntHashMap<T> segment = segment(key);
+        synchronized (segment) {
+            return segment.remove(key >> STRIPE_BITS);
+        }
+    }
+
+    @Override
+    public T get(int key) {
+        IntHashMap<T> segment = segment(key);
+        synchronized (segment) {
+            return segment.get(key >> STRIPE_BITS);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (IntHashMap<T> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (IntHashMap<T> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public Iterable<T> values() {
+        return () -> {
+            Iterator<Entry<T>> it = iterator();
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return it.next().val;
+                }
+            };
+        };
+    }
+
+    @Override
+    public Iterator<Entry<T>> iterator() {
+        List<Entry<T>> entries = new ArrayList<>();
+        for (int i = 0; i < STRIPES; i++) {
+            IntHashMap<T> segment = segments[i];
+            synchronized (segment) {
+                for (Entry<T> entry : segment) {
+                    entries.add(new Entry<>(entry.key << STRIPE_BITS | i, entry.val));
+                }
+            }
+        }
+        return entries.iterator();
+    }
+}
@@ -20,6 +20,17 @@ public interface IntHashMap<T> extends Iterable<Entry<T>> {
 	T compute(int key, IntKeyMapper<T> mapper);
 	
 	T put(int key, T value);
+
+	/**
+	 * @return the value already associated with the key, or null if the given value is added
+	 */
+	default T putIfAbsent(int key, T value) {
+		T current = get(key);
+		if (current == null) {
+			put(key, value);
+		}
+		return current;
+	}
 	
 	T remove(int key);
 
@@ -0,0 +1,109 @@
+package iguana.utils.collections;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * An IntHashMap backed by a java.util.HashMap, for Configuration.HashMapImpl.JAVA.
+ */
+public class JavaIntHashMap<T> implements IntHashMap<T> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private final int initialCapacity;
+
+    private final HashMap<Integer, T> map;
+
+    public JavaIntHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public JavaIntHashMap(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+        this.map = new HashMap<>(initialCapacity);
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public T computeIfAbsent(int key, IntFunction<T> f) {
+        return map.computeIfAbsent(key, k -> f.apply(k));
+    }
+
+    @Override
+    public T compute(int key, IntKeyMapper<T> mapper) {
+        final boolean[] present = {false};
+        T value = map.compute(key, (k, v) -> {
+            present[0] = v != null;
+            return mapper.apply(k, v);
+        });
+        return present[0] ? null : value;
+    }
+
+    @Override
+    public T put(int key, T value) {
+        return map.put(key, value);
+    }
+
+    @Override
+    public T putIfAbsent(int key, T value) {
+        return map.putIfAbsent(key, value);
+    }
+
+    @Override
+    public T remove(int key) {
+        return map.remove(key);
+    }
+
+    @Override
+    public T get(int key) {
+        return map.get(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Iterable<T> values() {
+        return map.values();
+    }
+
+    @Override
+    public Iterator<Entry<T>> iterator() {
+        Iterator<Map.Entry<Integer, T>> it = map.entrySet().iterator();
+        return new Iterator<Entry<T>>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Entry<T> next() {
+                Map.Entry<Integer, T> next = it.next();
+                return new Entry<>(next.getKey(), next.getValue());
+            }
+        };
+    }
+}
@@ -83,6 +83,29 @@ public class OpenAddressingHashMap<K, T> implements Map<K, T> {
         } while (true);
     }
 
+    @Override
+    public T putIfAbsent(K key, T value) {
+        int j = 0;
+        int index = hash(key, j);
+
+        do {
+            if (keys[index] == null) {
+                keys[index] = key;
+                values[index] = value;
+                size++;
+                if (size >= threshold) {
+                    rehash();
+                }
+                return null;
+            } else if (keys[index].equals(key)) {
+                return values[index];
+            }
+
+            index = hash(key, ++j);
+
+        } while (true);
+    }
+
     @Override
     public T remove(Object key) {
         return null;
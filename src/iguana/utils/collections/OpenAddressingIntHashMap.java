@@ -139,6 +139,29 @@ public class OpenAddressingIntHashMap<T> implements IntHashMap<T> {
         } while (true);
     }
 
+    @Override
+    public T putIfAbsent(int key, T value) {
+        int j = 0;
+        int index = hash(key, j);
+
+        do {
+            if (keys[index] == -1) {
+                keys[index] = key;
+                values[index] = value;
+                size++;
+                if (size >= threshold) {
+                    rehash();
+                }
+                return null;
+            } else if (keys[index] == key) {
+                return values[index];
+            }
+
+            index = hash(key, ++j);
+
+        } while (true);
+    }
+
     @Override
     public T remove(int key) {
         int j = 0;
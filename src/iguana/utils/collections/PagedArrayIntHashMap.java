@@ -0,0 +1,202 @@
+package iguana.utils.collections;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * An IntHashMap for dense non-negative keys, such as input indices, that stores the values in an
+ * array indexed by key instead of hashing. The array is split into pages that are allocated when
+ * a key in their range is added, so a map with few keys in a large range stays small.
+ */
+public class PagedArrayIntHashMap<T> implements IntHashMap<T> {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int initialCapacity;
+
+    private T[][] pages;
+
+    private int size;
+
+    public PagedArrayIntHashMap() {
+        this(PAGE_SIZE);
+    }
+
+    /**
+     * @param initialCapacity the expected range of the keys, e.g., the number of vertices
+     */
+    @SuppressWarnings("unchecked")
+    public PagedArrayIntHashMap(int initialCapacity) {
+        this.initialCapacity = Math.max(1, initialCapacity);
+        this.pages = (T[][]) new Object[(this.initialCapacity + PAGE_MASK) >>> PAGE_BITS][];
+    }
+
+    private T[] getPage(int key) {
+        int page = key >>> PAGE_BITS;
+        return page < pages.length ? pages[page] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] getOrCreatePage(int key) {
+        if (key < 0) throw new IllegalArgumentException("Negative key: " + key);
+        int page = key >>> PAGE_BITS;
+        if (page >= pages.length) {
+            pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length * 2));
+        }
+        T[] values = pages[page];
+        if (values == null) {
+            values = (T[]) new Object[PAGE_SIZE];
+            pages[page] = values;
+        }
+        return values;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public T get(int key) {
+        if (key < 0) return null;
+        T[] values = getPage(key);
+        return values == null ? null : values[key & PAGE_MASK];
+    }
+
+    @Override
+    public T computeIfAbsent(int key, IntFunction<T> f) {
+        T[] values = getOrCreatePage(key);
+        T value = values[key & PAGE_MASK];
+        if (value == null) {
+            value = f.apply(key);
+            values[key & PAGE_MASK] = value;
+            size++;
+        }
+        return value;
+    }
+
+    @Override
+    public T compute(int key, IntKeyMapper<T> mapper) {
+        T[] values = getOrCreatePage(key);
+        T value = values[key & PAGE_MASK];
+        if (value == null) {
+            value = mapper.apply(key, null);
+            values[key & PAGE_MASK] = value;
+            size++;
+            return value;
+        }
+        values[key & PAGE_MASK] = mapper.apply(key, value);
+        return null;
+    }
+
+    @Override
+    public T put(int key, T value) {
+        T[] values = getOrCreatePage(key);
+        T current = values[key & PAGE_MASK];
+        values[key & PAGE_MASK] = value;
+        if (current == null) size++;
+        return current;
+    }
+
+    @Override
+    public T putIfAbsent(int key, T value) {
+        T[] values = getOrCreatePage(key);
+        T current = values[key & PAGE_MASK];
+        if (current == null) {
+            values[key & PAGE_MASK] = value;
+            size++;
+        }
+        return current;
+    }
+
+    @Override
+    public T remove(int key) {
+        if (key < 0) return null;
+        T[] values = getPage(key);
+        if (values == null) return null;
+        T current = values[key & PAGE_MASK];
+        if (current != null) {
+            values[key & PAGE_MASK] = null;
+            size--;
+        }
+        return current;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(pages, null);
+        size = 0;
+    }
+
+    @Override
+    public Iterable<T> values() {
+        return () -> new Iterator<T>() {
+            private final Iterator<Entry<T>> it = iterator();
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return it.next().val;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Entry<T>> iterator() {
+        return new Iterator<Entry<T>>() {
+            int next = advance(0);
+
+            private int advance(int from) {
+                int page = from >>> PAGE_BITS;
+                int i = from & PAGE_MASK;
+                while (page < pages.length) {
+                    T[] values = pages[page];
+                    if (values != null) {
+                        for (; i < PAGE_SIZE; i++) {
+                            if (values[i] != null) return (page << PAGE_BITS) | i;
+                        }
+                    }
+                    page++;
+                    i = 0;
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public Entry<T> next() {
+                if (next == -1) throw new NoSuchElementException();
+                int key = next;
+                next = advance(key + 1);
+                return new Entry<>(key, get(key));
+            }
+        };
+    }
+}
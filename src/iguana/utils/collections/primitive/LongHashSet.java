@@ -0,0 +1,160 @@
+package iguana.utils.collections.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * An open-addressing hash set of longs with linear probing. Long.MIN_VALUE marks empty slots
+ * and is kept in a separate flag.
+ *
+ * The table doubles when it is three quarters full, so a key takes between 10.7 and 21.3 bytes,
+ * and up to 32 bytes while the old and new tables are both alive during a rehash. The table has
+ * at most 2^30 slots, so a set holds at most 805,306,367 keys.
+ */
+public class LongHashSet {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // The largest power of two that is a valid array length
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    private boolean containsEmpty;
+
+    public LongHashSet() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = 4;
+        while (capacity * LOAD_FACTOR <= expectedSize && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        init(capacity);
+    }
+
+    private void init(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * @return true if the key was not in the set
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmpty) return false;
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) return false;
+            index = (index + 1) & mask;
+        }
+        if (size + 1 >= threshold && keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("A LongHashSet cannot hold more than " + (threshold - 1) + " keys");
+        }
+        keys[index] = key;
+        if (++size >= threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) return containsEmpty;
+
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(LongConsumer consumer) {
+        if (containsEmpty) consumer.accept(EMPTY);
+        for (long key : keys) {
+            if (key != EMPTY) consumer.accept(key);
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsEmpty) result[i++] = EMPTY;
+        for (long key : keys) {
+            if (key != EMPTY) result[i++] = key;
+        }
+        return result;
+    }
+
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            int i = containsEmpty ? -1 : nextIndex(0);
+
+            @Override
+            public boolean hasNext() {
+                return i < keys.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) throw new NoSuchElementException();
+                long key = i == -1 ? EMPTY : keys[i];
+                i = nextIndex(i + 1);
+                return key;
+            }
+
+            private int nextIndex(int from) {
+                while (from < keys.length && keys[from] == EMPTY) from++;
+                return from;
+            }
+        };
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        init(oldKeys.length << 1);
+        for (long key : oldKeys) {
+            if (key == EMPTY) continue;
+            int index = hash(key) & mask;
+            while (keys[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+        }
+    }
+
+    private static int hash(long key) {
+        // The finalizer of MurmurHash3's 64-bit variant
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,306 @@
+package iguana.utils.input;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Common implementation of graph inputs stored in compressed sparse row form, with interned
+ * integer label ids. Subclasses only define where the offsets and targets arrays live:
+ * the targets of the edges leaving vertex v with label l are target(l, start(l, v)) ...
+ * target(l, end(l, v) - 1).
+ */
+public abstract class AbstractCSRGraphInput extends GraphInput {
+
+    protected final int vertexCount;
+
+    protected final String[] labels;
+    protected final Map<String, Integer> labelIds;
+
+    private final List<Integer> startVertices;
+    private final boolean[] finalVertices;
+    private final List<Integer> finalVerticesList;
+
+    // The label sets of the vertices, shared with the views of this graph and computed on first use
+    private final AtomicReference<long[]> outgoingLabels;
+
+    /**
+     * @param startVertices if null, all vertices are start vertices
+     * @param finalVertices if null, all vertices are final vertices
+     */
+    protected AbstractCSRGraphInput(int vertexCount, String[] labels, Map<String, Integer> labelIds,
+                                    List<Integer> startVertices, List<Integer> finalVertices) {
+        this.vertexCount = vertexCount;
+        this.labels = labels;
+        this.labelIds = labelIds;
+        this.startVertices = startVertices;
+        if (finalVertices == null) {
+            this.finalVertices = null;
+            this.finalVerticesList = new IndexList(vertexCount);
+        } else {
+            this.finalVertices = new boolean[vertexCount];
+            for (int v : finalVertices) {
+                if (v < 0 || v >= vertexCount)
+                    throw new IllegalArgumentException("Final vertex " + v + " is not in the range [0, " + vertexCount + ")");
+                this.finalVertices[v] = true;
+            }
+            this.finalVerticesList = Collections.unmodifiableList(finalVertices);
+        }
+        this.outgoingLabels = new AtomicReference<>();
+    }
+
+    /**
+     * Creates a view of the given graph that shares its edges and final vertices but has
+     * different start vertices.
+     */
+    protected AbstractCSRGraphInput(AbstractCSRGraphInput other, List<Integer> startVertices) {
+        this.vertexCount = other.vertexCount;
+        this.labels = other.labels;
+        this.labelIds = other.labelIds;
+        this.startVertices = startVertices;
+        this.finalVertices = other.finalVertices;
+        this.finalVerticesList = other.finalVerticesList;
+        this.outgoingLabels = other.outgoingLabels;
+    }
+
+    protected abstract int start(int labelId, int v);
+
+    protected abstract int end(int labelId, int v);
+
+    protected abstract int target(int labelId, int i);
+
+    @Override
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getLabelCount() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the interned id of the given label, or -1 if no edge in the graph has this label.
+     */
+    public int getLabelId(String label) {
+        Integer id = labelIds.get(label);
+        return id == null ? -1 : id;
+    }
+
+    public String getLabel(int labelId) {
+        return labels[labelId];
+    }
+
+    /**
+     * The number of longs in a label set: one bit per label id, and bit getLabelCount() for EOF.
+     */
+    public int getLabelSetLength() {
+        return (labels.length >>> 6) + 1;
+    }
+
+    /**
+     * Returns true if an edge with one of the labels of the given label set leaves v, or if the
+     * label set contains EOF and v is final.
+     */
+    public boolean hasOutgoingLabel(int v, long[] labelSet) {
+        long[] outgoingLabels = getOutgoingLabels();
+        int length = labelSet.length;
+        if (length == 1) {
+            return (outgoingLabels[v] & labelSet[0]) != 0;
+        }
+        int offset = v * length;
+        for (int i = 0; i < length; i++) {
+            if ((outgoingLabels[offset + i] & labelSet[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    private long[] getOutgoingLabels() {
+        long[] result = outgoingLabels.get();
+        if (result == null) {
+            int length = getLabelSetLength();
+            result = new long[vertexCount * length];
+            for (int v = 0; v < vertexCount; v++) {
+                int offset = v * length;
+                for (int l = 0; l < labels.length; l++) {
+                    if (getOutDegree(v, l) > 0) {
+                        result[offset + (l >>> 6)] |= 1L << l;
+                    }
+                }
+                if (isFinal(v)) {
+                    result[offset + (labels.length >>> 6)] |= 1L << labels.length;
+                }
+            }
+            // Threads that compute it at the same time compute the same sets
+            outgoingLabels.compareAndSet(null, result);
+        }
+        return result;
+    }
+
+    public int getOutDegree(int v, int labelId) {
+        return end(labelId, v) - start(labelId, v);
+    }
+
+    /**
+     * Returns the i-th target of the edges leaving v with the given label.
+     */
+    public int getTarget(int v, int labelId, int i) {
+        return target(labelId, start(labelId, v) + i);
+    }
+
+    public boolean hasEdge(int v, int labelId, int u) {
+        for (int i = start(labelId, v), end = end(labelId, v); i < end; i++) {
+            if (target(labelId, i) == u) return true;
+        }
+        return false;
+    }
+
+    public void forEachDestVertex(int v, int labelId, IntConsumer consumer) {
+        for (int i = start(labelId, v), end = end(labelId, v); i < end; i++) {
+            consumer.accept(target(labelId, i));
+        }
+    }
+
+    @Override
+    public List<Integer> getDestVertex(int v, String t) {
+        int labelId = getLabelId(t);
+        if (labelId == -1) {
+            return Collections.emptyList();
+        }
+        return new SliceList(labelId, start(labelId, v), end(labelId, v));
+    }
+
+    @Override
+    public void forEachDestVertex(int v, String t, IntConsumer consumer) {
+        int labelId = getLabelId(t);
+        if (labelId != -1) {
+            forEachDestVertex(v, labelId, consumer);
+        }
+    }
+
+    @Override
+    public boolean hasDestVertex(int v, String t, int u) {
+        int labelId = getLabelId(t);
+        return labelId != -1 && hasEdge(v, labelId, u);
+    }
+
+    @Override
+    public Stream<Integer> nextSymbols(int v) {
+        Stream<Integer> nextSymbols = IntStream.range(0, labels.length)
+                .filter(l -> getOutDegree(v, l) > 0)
+                .mapToObj(l -> (int) labels[l].charAt(0));
+        if (isFinal(v)) {
+            nextSymbols = Stream.concat(Stream.of(EOF), nextSymbols);
+        }
+        return nextSymbols;
+    }
+
+    @Override
+    public void forEachNextSymbol(int v, IntConsumer consumer) {
+        if (isFinal(v)) {
+            consumer.accept(EOF);
+        }
+        for (int l = 0; l < labels.length; l++) {
+            if (getOutDegree(v, l) > 0) {
+                consumer.accept(labels[l].charAt(0));
+            }
+        }
+    }
+
+    @Override
+    public boolean anyNextSymbol(int v, IntPredicate predicate) {
+        if (isFinal(v) && predicate.test(EOF)) {
+            return true;
+        }
+        for (int l = 0; l < labels.length; l++) {
+            if (getOutDegree(v, l) > 0 && predicate.test(labels[l].charAt(0))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isFinal(int v) {
+        return finalVertices == null || finalVertices[v];
+    }
+
+    @Override
+    public Stream<Integer> getStartVertices() {
+        return startVertices == null ? IntStream.range(0, vertexCount).boxed() : startVertices.stream();
+    }
+
+    @Override
+    public List<Integer> getFinalVertices() {
+        return finalVerticesList;
+    }
+
+    boolean isEveryVertexStart() {
+        return startVertices == null;
+    }
+
+    boolean isEveryVertexFinal() {
+        return finalVertices == null;
+    }
+
+    /**
+     * A read-only view over the targets of one vertex.
+     */
+    private class SliceList extends AbstractList<Integer> {
+        private final int labelId;
+        private final int start;
+        private final int end;
+
+        SliceList(int labelId, int start, int end) {
+            this.labelId = labelId;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return target(labelId, start + index);
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer)) return false;
+            int u = (Integer) o;
+            for (int i = start; i < end; i++) {
+                if (target(labelId, i) == u) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The list 0, 1, ..., size - 1 without materializing it.
+     */
+    private static class IndexList extends AbstractList<Integer> {
+        private final int size;
+
+        IndexList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
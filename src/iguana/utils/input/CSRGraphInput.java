@@ -0,0 +1,243 @@
+package iguana.utils.input;
+
+import iguana.utils.collections.primitive.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A graph input backed by compressed sparse row arrays. Edge labels are interned to
+ * integer ids, and the edges are sorted by source vertex and then by label, so that the
+ * edges leaving a vertex form one group per label. The groups of vertex v are
+ * vertexGroups[v] ... vertexGroups[v + 1] - 1, and the targets of group g, whose label is
+ * groupLabels[g], are targets[groupOffsets[g]] ... targets[groupOffsets[g + 1] - 1].
+ * The size of the arrays therefore depends on the number of vertices and edges, but not on
+ * the number of labels.
+ */
+public class CSRGraphInput extends AbstractCSRGraphInput {
+
+    private final int[] vertexGroups;
+    private final int[] groupLabels;
+    private final int[] groupOffsets;
+    private final int[] targets;
+
+    private CSRGraphInput(Builder builder) {
+        super(builder.getVertexCount(), builder.labels.toArray(new String[0]), builder.labelIds,
+              builder.startVertices, builder.finalVertices);
+
+        int labelCount = labels.length;
+        int edgeCount = builder.edgeLabels.size();
+
+        // Radix sort of the edges by (source, label): by label, and then stably by source
+        int[] next = new int[Math.max(labelCount, vertexCount) + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            next[builder.edgeLabels.get(i) + 1]++;
+        }
+        for (int l = 0; l < labelCount; l++) {
+            next[l + 1] += next[l];
+        }
+        int[] byLabel = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            byLabel[next[builder.edgeLabels.get(i)]++] = i;
+        }
+
+        Arrays.fill(next, 0);
+        for (int i = 0; i < edgeCount; i++) {
+            next[builder.edgeSources.get(i) + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            next[v + 1] += next[v];
+        }
+        int[] edges = new int[edgeCount];
+        for (int i : byLabel) {
+            edges[next[builder.edgeSources.get(i)]++] = i;
+        }
+
+        int groupCount = 0;
+        for (int k = 0; k < edgeCount; k++) {
+            if (k == 0 || !sameGroup(builder, edges[k - 1], edges[k])) groupCount++;
+        }
+
+        this.vertexGroups = new int[vertexCount + 1];
+        this.groupLabels = new int[groupCount];
+        this.groupOffsets = new int[groupCount + 1];
+        this.targets = new int[edgeCount];
+
+        int g = -1;
+        for (int k = 0; k < edgeCount; k++) {
+            int i = edges[k];
+            if (k == 0 || !sameGroup(builder, edges[k - 1], i)) {
+                g++;
+                groupLabels[g] = builder.edgeLabels.get(i);
+                groupOffsets[g] = k;
+                vertexGroups[builder.edgeSources.get(i) + 1]++;
+            }
+            targets[k] = builder.edgeTargets.get(i);
+        }
+        groupOffsets[groupCount] = edgeCount;
+        for (int v = 0; v < vertexCount; v++) {
+            vertexGroups[v + 1] += vertexGroups[v];
+        }
+    }
+
+    private CSRGraphInput(CSRGraphInput other, List<Integer> startVertices) {
+        super(other, startVertices);
+        this.vertexGroups = other.vertexGroups;
+        this.groupLabels = other.groupLabels;
+        this.groupOffsets = other.groupOffsets;
+        this.targets = other.targets;
+    }
+
+    private static boolean sameGroup(Builder builder, int i, int j) {
+        return builder.edgeSources.get(i) == builder.edgeSources.get(j) && builder.edgeLabels.get(i) == builder.edgeLabels.get(j);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static CSRGraphInput from(List<List<Edge>> adjacencyList, Stream<Integer> startVertices, List<Integer> finalVertices) {
+        Builder builder = builder().setVertexCount(adjacencyList.size());
+        for (int v = 0; v < adjacencyList.size(); v++) {
+            for (Edge edge : adjacencyList.get(v)) {
+                builder.addEdge(v, edge.getTag(), edge.getDestVertex());
+            }
+        }
+        return builder.setStartVertices(startVertices).setFinalVertices(finalVertices).build();
+    }
+
+    /**
+     * Returns a graph with the same edges and final vertices, but with the given start vertices.
+     * The edge arrays are shared, so this is cheap, e.g., for querying a graph in chunks of start vertices.
+     */
+    public CSRGraphInput withStartVertices(Stream<Integer> startVertices) {
+        return new CSRGraphInput(this, startVertices.collect(Collectors.toList()));
+    }
+
+    @Override
+    protected int start(int labelId, int v) {
+        int g = group(labelId, v);
+        return g < 0 ? 0 : groupOffsets[g];
+    }
+
+    @Override
+    protected int end(int labelId, int v) {
+        int g = group(labelId, v);
+        return g < 0 ? 0 : groupOffsets[g + 1];
+    }
+
+    @Override
+    protected int target(int labelId, int i) {
+        return targets[i];
+    }
+
+    // The arrays, which MappedGraphInput writes as they are
+
+    int[] getVertexGroups() {
+        return vertexGroups;
+    }
+
+    int[] getGroupLabels() {
+        return groupLabels;
+    }
+
+    int[] getGroupOffsets() {
+        return groupOffsets;
+    }
+
+    int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the group of the edges leaving v with the given label, or a negative number if
+     * there are none. The groups of a vertex are sorted by label.
+     */
+    private int group(int labelId, int v) {
+        return Arrays.binarySearch(groupLabels, vertexGroups[v], vertexGroups[v + 1], labelId);
+    }
+
+    public static class Builder {
+        private final List<String> labels = new ArrayList<>();
+        private final Map<String, Integer> labelIds = new HashMap<>();
+
+        private final IntList edgeSources = new IntList(1024);
+        private final IntList edgeLabels = new IntList(1024);
+        private final IntList edgeTargets = new IntList(1024);
+
+        private int vertexCount = 0;
+        private int maxVertex = -1;
+
+        private List<Integer> startVertices;
+        private List<Integer> finalVertices;
+
+        /**
+         * Returns the interned id of the label, creating one if the label has not been seen before.
+         */
+        public int internLabel(String label) {
+            Integer id = labelIds.get(label);
+            if (id == null) {
+                id = labels.size();
+                labels.add(label);
+                labelIds.put(label, id);
+            }
+            return id;
+        }
+
+        public Builder addEdge(int from, String label, int to) {
+            return addEdge(from, internLabel(label), to);
+        }
+
+        public Builder addEdge(int from, int labelId, int to) {
+            if (from < 0 || to < 0)
+                throw new IllegalArgumentException("Vertex ids should be non-negative");
+            if (labelId < 0 || labelId >= labels.size())
+                throw new IllegalArgumentException("Unknown label id: " + labelId);
+
+            edgeSources.add(from);
+            edgeLabels.add(labelId);
+            edgeTargets.add(to);
+            maxVertex = Math.max(maxVertex, Math.max(from, to));
+            return this;
+        }
+
+        /**
+         * Sets the number of vertices; vertex ids are in the range [0, vertexCount). If not set, or
+         * set to a smaller value, the vertex count is derived from the largest vertex id of the edges.
+         */
+        public Builder setVertexCount(int vertexCount) {
+            this.vertexCount = vertexCount;
+            return this;
+        }
+
+        /**
+         * If not set, all vertices are start vertices.
+         */
+        public Builder setStartVertices(Stream<Integer> startVertices) {
+            this.startVertices = new ArrayList<>();
+            startVertices.forEach(this.startVertices::add);
+            return this;
+        }
+
+        /**
+         * If not set, all vertices are final vertices.
+         */
+        public Builder setFinalVertices(List<Integer> finalVertices) {
+            this.finalVertices = finalVertices;
+            return this;
+        }
+
+        int getVertexCount() {
+            return Math.max(vertexCount, maxVertex + 1);
+        }
+
+        public CSRGraphInput build() {
+            return new CSRGraphInput(this);
+        }
+    }
+}
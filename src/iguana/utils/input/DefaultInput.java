@@ -3,6 +3,8 @@ package iguana.utils.input;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Stream;
 
 public class DefaultInput extends AbstractInput {
@@ -16,8 +18,24 @@ public class DefaultInput extends AbstractInput {
 
     @Override
     public Stream<Integer> nextSymbols(int index) {
-        if (index == s.length()) return Stream.of(EOF);
-        return Stream.of((int) s.charAt(index));
+        return Stream.of(charAt(index));
+    }
+
+    @Override
+    public void forEachNextSymbol(int index, IntConsumer consumer) {
+        consumer.accept(charAt(index));
+    }
+
+    @Override
+    public boolean anyNextSymbol(int index, IntPredicate predicate) {
+        return predicate.test(charAt(index));
+    }
+
+    // The character at the index, or EOF at the last index, length() - 1, which is the only
+    // end-of-input check of the symbol lookups
+    private int charAt(int index) {
+        if (index == s.length()) return EOF;
+        return s.charAt(index);
     }
 
     @Override
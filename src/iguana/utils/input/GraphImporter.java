@@ -0,0 +1,295 @@
+package iguana.utils.input;
+
+import iguana.utils.collections.primitive.IntList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Imports edge-list files into a {@link CSRGraphInput} or a {@link MappedGraphInput} file.
+ * Two formats are supported:
+ * <ul>
+ *   <li>CSV files with a "from,to" header, where every edge has the same label. The label is
+ *   either given explicitly or taken from the file name, e.g. "core_subClassOf.csv".</li>
+ *   <li>Triple files with one "u v label" edge per line, separated by whitespace.</li>
+ * </ul>
+ * Vertices are integers in [0, Integer.MAX_VALUE). Files are split into chunks that are parsed in
+ * parallel; errors are reported with the line number in the file.
+ */
+public class GraphImporter {
+
+    public static final String INVERSE_SUFFIX = "_r";
+
+    private static final int CHUNK_SIZE = 1 << 23;
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+
+    // The largest vertex id, so that the number of vertices is an int
+    private static final int MAX_VERTEX = Integer.MAX_VALUE - 1;
+
+    private final List<Path> files = new ArrayList<>();
+    // null for triple files
+    private final List<String> fileLabels = new ArrayList<>();
+
+    private boolean inverseLabels = false;
+    private int vertexCount = 0;
+
+    /**
+     * Adds a "from,to" CSV file whose label is the part of the file name after the last
+     * underscore, as written by graph_loader.py.
+     */
+    public GraphImporter addCSV(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot != -1) name = name.substring(0, dot);
+        return addCSV(file, name.substring(name.lastIndexOf('_') + 1));
+    }
+
+    public GraphImporter addCSV(Path file, String label) {
+        files.add(file);
+        fileLabels.add(label);
+        return this;
+    }
+
+    public GraphImporter addTriples(Path file) {
+        files.add(file);
+        fileLabels.add(null);
+        return this;
+    }
+
+    /**
+     * If set, for every edge u -x-> v the inverse edge v -x_r-> u is also added.
+     */
+    public GraphImporter setInverseLabels(boolean inverseLabels) {
+        this.inverseLabels = inverseLabels;
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of vertices, e.g., to include isolated vertices.
+     */
+    public GraphImporter setVertexCount(int vertexCount) {
+        this.vertexCount = vertexCount;
+        return this;
+    }
+
+    /**
+     * Parses all the added files. Start and final vertices can be set on the returned builder.
+     */
+    public CSRGraphInput.Builder load() throws IOException {
+        CSRGraphInput.Builder builder = CSRGraphInput.builder().setVertexCount(vertexCount);
+        for (int f = 0; f < files.size(); f++) {
+            String label = fileLabels.get(f);
+            for (Chunk chunk : parse(files.get(f), label == null)) {
+                List<String> chunkLabels = label == null ? chunk.labels : List.of(label);
+                int[] labelIds = new int[chunkLabels.size()];
+                int[] inverseLabelIds = new int[chunkLabels.size()];
+                for (int l = 0; l < labelIds.length; l++) {
+                    labelIds[l] = builder.internLabel(chunkLabels.get(l));
+                    if (inverseLabels) {
+                        inverseLabelIds[l] = builder.internLabel(chunkLabels.get(l) + INVERSE_SUFFIX);
+                    }
+                }
+                for (int i = 0; i < chunk.sources.size(); i++) {
+                    int from = chunk.sources.get(i);
+                    int to = chunk.targets.get(i);
+                    int l = chunk.edgeLabels.get(i);
+                    builder.addEdge(from, labelIds[l], to);
+                    if (inverseLabels) {
+                        builder.addEdge(to, inverseLabelIds[l], from);
+                    }
+                }
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Parses all the added files, writes the graph to the given file and opens it as a
+     * memory-mapped graph in which all vertices are start and final vertices.
+     */
+    public MappedGraphInput loadToFile(Path file) throws IOException {
+        MappedGraphInput.write(load().build(), file);
+        return MappedGraphInput.open(file);
+    }
+
+    private static List<Chunk> parse(Path file, boolean triples) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            List<Chunk> chunks = IntStream.range(0, chunkCount).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return parseChunk(channel, (long) i * CHUNK_SIZE, Math.min(size, (long) (i + 1) * CHUNK_SIZE), triples);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+
+            // The line numbers of the errors are only known once the lines of the previous chunks are counted
+            long lines = 0;
+            for (Chunk chunk : chunks) {
+                if (chunk.error != null) {
+                    throw new IOException(file + ":" + (lines + chunk.lineCount) + ": " + chunk.error);
+                }
+                lines += chunk.lineCount;
+            }
+            return chunks;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses the lines starting in [start, end) of the file. The line that starts before this
+     * range, if any, belongs to the previous chunk. Parsing stops at the first malformed line,
+     * which is recorded in the chunk.
+     */
+    private static Chunk parseChunk(FileChannel channel, long start, long end, boolean triples) throws IOException {
+        long mapStart = Math.max(0, start - 1);
+        long mapEnd = Math.min(channel.size(), end + MAX_LINE_LENGTH);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = (int) (mapEnd - mapStart);
+        int chunkEnd = (int) (end - mapStart);
+
+        int pos = (int) (start - mapStart);
+        if (start > 0 && buffer.get(pos - 1) != '\n') {
+            pos = nextLine(buffer, pos, limit);
+        }
+
+        Chunk chunk = new Chunk();
+        // The CSV header
+        if (start == 0 && !triples) {
+            pos = nextLine(buffer, pos, limit);
+            chunk.lineCount++;
+        }
+
+        while (pos < chunkEnd) {
+            int lineEnd = pos;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            chunk.lineCount++;
+            if (lineEnd == limit && mapEnd != channel.size()) {
+                chunk.error = "Line longer than " + MAX_LINE_LENGTH + " bytes";
+                return chunk;
+            }
+            try {
+                parseLine(buffer, pos, lineEnd, triples, chunk);
+            } catch (IOException e) {
+                chunk.error = e.getMessage();
+                return chunk;
+            }
+            pos = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    private static void parseLine(MappedByteBuffer buffer, int pos, int end, boolean triples, Chunk chunk) throws IOException {
+        while (end > pos && isWhitespace(buffer.get(end - 1))) end--;
+        pos = skipWhitespace(buffer, pos, end);
+        if (pos == end) return;
+
+        int from = 0;
+        int to = 0;
+        int i = pos;
+        for (; i < end && isDigit(buffer.get(i)); i++) {
+            from = appendDigit(from, buffer.get(i), buffer, pos, end);
+        }
+        if (i == pos) throw new IOException("Malformed edge: " + line(buffer, pos, end));
+        i = skipSeparator(buffer, i, end, triples);
+
+        int toStart = i;
+        for (; i < end && isDigit(buffer.get(i)); i++) {
+            to = appendDigit(to, buffer.get(i), buffer, pos, end);
+        }
+        if (i == toStart) throw new IOException("Malformed edge: " + line(buffer, pos, end));
+
+        int label = 0;
+        if (triples) {
+            i = skipWhitespace(buffer, i, end);
+            if (i == end) throw new IOException("Missing edge label: " + line(buffer, pos, end));
+            label = chunk.internLabel(line(buffer, i, end));
+        } else if (i != end) {
+            throw new IOException("Malformed edge: " + line(buffer, pos, end));
+        }
+
+        chunk.sources.add(from);
+        chunk.edgeLabels.add(label);
+        chunk.targets.add(to);
+    }
+
+    private static int appendDigit(int vertex, byte digit, MappedByteBuffer buffer, int pos, int end) throws IOException {
+        int d = digit - '0';
+        if (vertex > (MAX_VERTEX - d) / 10)
+            throw new IOException("Vertex id larger than " + MAX_VERTEX + ": " + line(buffer, pos, end));
+        return vertex * 10 + d;
+    }
+
+    private static int skipSeparator(MappedByteBuffer buffer, int pos, int end, boolean triples) {
+        if (!triples && pos < end && buffer.get(pos) == ',') return pos + 1;
+        return skipWhitespace(buffer, pos, end);
+    }
+
+    private static int skipWhitespace(MappedByteBuffer buffer, int pos, int end) {
+        while (pos < end && isWhitespace(buffer.get(pos))) pos++;
+        return pos;
+    }
+
+    private static int nextLine(MappedByteBuffer buffer, int pos, int limit) {
+        while (pos < limit && buffer.get(pos) != '\n') pos++;
+        return pos + 1;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static String line(MappedByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The edges parsed from one chunk. The labels of triple files are interned locally to the
+     * chunk; in CSV files all edges have label 0.
+     */
+    private static class Chunk {
+        final IntList sources = new IntList(1024);
+        final IntList edgeLabels = new IntList(1024);
+        final IntList targets = new IntList(1024);
+
+        final List<String> labels = new ArrayList<>();
+        final Map<String, Integer> labelIds = new HashMap<>();
+
+        // The number of lines parsed, including the malformed line if there is one
+        int lineCount;
+        String error;
+
+        int internLabel(String label) {
+            Integer id = labelIds.get(label);
+            if (id == null) {
+                id = labels.size();
+                labels.add(label);
+                labelIds.put(label, id);
+            }
+            return id;
+        }
+    }
+}
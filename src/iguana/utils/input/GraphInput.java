@@ -2,14 +2,38 @@ package iguana.utils.input;
 
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.function.IntConsumer;
 
 public abstract class GraphInput implements Input {
 
     public abstract List<Integer> getDestVertex(int v, String t);
 
+    /**
+     * Passes the target of each edge leaving v with label t to the consumer. Implementations
+     * should override this method to avoid materializing the list of targets.
+     */
+    public void forEachDestVertex(int v, String t, IntConsumer consumer) {
+        for (Integer u : getDestVertex(v, t)) {
+            consumer.accept(u);
+        }
+    }
+
+    /**
+     * Returns true if there is an edge from v to u with label t.
+     */
+    public boolean hasDestVertex(int v, String t, int u) {
+        return getDestVertex(v, t).contains(u);
+    }
+
     public abstract boolean isFinal(int v);
 
+    /**
+     * Returns the number of vertices, whose ids are in the range [0, count), or 0 if unknown.
+     */
+    public int getVertexCount() {
+        return 0;
+    }
+
     @Override
     public int length() {
         return 0;
@@ -3,6 +3,8 @@ package iguana.utils.input;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,6 +41,25 @@ public class InMemGraphInput extends GraphInput {
                 .map(Edge::getDestVertex).collect(Collectors.toList());
     }
 
+    @Override
+    public void forEachDestVertex(int v, String t, IntConsumer consumer) {
+        for (Edge edge : adjacencyList.get(v)) {
+            if (edge.getTag().equals(t)) {
+                consumer.accept(edge.getDestVertex());
+            }
+        }
+    }
+
+    @Override
+    public boolean hasDestVertex(int v, String t, int u) {
+        for (Edge edge : adjacencyList.get(v)) {
+            if (edge.getDestVertex() == u && edge.getTag().equals(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public Stream<Integer> nextSymbols(int v) {
         Stream<Integer> nextSymbols = adjacencyList.get(v).stream()
@@ -49,4 +70,27 @@ public class InMemGraphInput extends GraphInput {
         return nextSymbols;
     }
 
+    @Override
+    public void forEachNextSymbol(int v, IntConsumer consumer) {
+        if (isFinal(v)) {
+            consumer.accept(EOF);
+        }
+        for (Edge edge : adjacencyList.get(v)) {
+            consumer.accept(edge.getTag().charAt(0));
+        }
+    }
+
+    @Override
+    public boolean anyNextSymbol(int v, IntPredicate predicate) {
+        if (isFinal(v) && predicate.test(EOF)) {
+            return true;
+        }
+        for (Edge edge : adjacencyList.get(v)) {
+            if (predicate.test(edge.getTag().charAt(0))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
@@ -35,6 +35,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Stream;
 
 import static java.lang.Character.isHighSurrogate;
@@ -110,6 +112,21 @@ public interface Input {
 
     Stream<Integer> nextSymbols(int index);
 
+    /**
+     * Passes each of the next symbols at the given index to the consumer. Implementations
+     * should override this method to avoid boxing and setting up a stream pipeline.
+     */
+    default void forEachNextSymbol(int index, IntConsumer consumer) {
+        nextSymbols(index).forEach(consumer::accept);
+    }
+
+    /**
+     * Returns true if any of the next symbols at the given index satisfies the predicate.
+     */
+    default boolean anyNextSymbol(int index, IntPredicate predicate) {
+        return nextSymbols(index).anyMatch(predicate::test);
+    }
+
     default int[] calculateLineLengths(int lineCount) {
         return new int[]{0};
     }
@@ -0,0 +1,242 @@
+package iguana.utils.input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A graph input that reads the compressed sparse row arrays directly from a memory-mapped
+ * file, so that graphs larger than the heap can be queried without loading them first.
+ *
+ * The file is little-endian and holds the arrays of a {@link CSRGraphInput}, whose edges are
+ * sorted by source vertex and then by label, so its size does not depend on the number of labels:
+ * <pre>
+ *   int magic, int version, int vertexCount, int labelCount
+ *   labelCount times: int length, length bytes of UTF-8 label, padded to a multiple of 4
+ *   int groupCount, int edgeCount
+ *   int[vertexCount + 1] vertexGroups, int[groupCount] groupLabels,
+ *   int[groupCount + 1] groupOffsets, int[edgeCount] targets
+ * </pre>
+ * The arrays are mapped separately, so a graph may not have more than {@link #MAX_MAPPED_INTS}
+ * vertices, groups or edges.
+ */
+public class MappedGraphInput extends AbstractCSRGraphInput {
+
+    private static final int MAGIC = 0x43465051;
+    private static final int VERSION = 2;
+
+    /**
+     * The largest number of ints in a mapped array, as a mapping is indexed by bytes.
+     */
+    public static final int MAX_MAPPED_INTS = Integer.MAX_VALUE / 4;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final IntBuffer vertexGroups;
+    private final IntBuffer groupLabels;
+    private final IntBuffer groupOffsets;
+    private final IntBuffer targets;
+
+    private MappedGraphInput(int vertexCount, String[] labels, Map<String, Integer> labelIds,
+                             IntBuffer vertexGroups, IntBuffer groupLabels, IntBuffer groupOffsets, IntBuffer targets,
+                             List<Integer> startVertices, List<Integer> finalVertices) {
+        super(vertexCount, labels, labelIds, startVertices, finalVertices);
+        this.vertexGroups = vertexGroups;
+        this.groupLabels = groupLabels;
+        this.groupOffsets = groupOffsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Opens a graph file in which all vertices are start and final vertices.
+     */
+    public static MappedGraphInput open(Path file) throws IOException {
+        return open(file, null, null);
+    }
+
+    /**
+     * @param startVertices if null, all vertices are start vertices
+     * @param finalVertices if null, all vertices are final vertices
+     */
+    public static MappedGraphInput open(Path file, Stream<Integer> startVertices, List<Integer> finalVertices) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            ByteBuffer header = read(channel, position, 16);
+            position += 16;
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a graph file: " + file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported graph file version: " + version);
+            int vertexCount = header.getInt();
+            int labelCount = header.getInt();
+
+            String[] labels = new String[labelCount];
+            Map<String, Integer> labelIds = new HashMap<>();
+            for (int l = 0; l < labelCount; l++) {
+                int length = read(channel, position, 4).getInt();
+                position += 4;
+                byte[] bytes = new byte[length];
+                read(channel, position, length).get(bytes);
+                position += align(length);
+                labels[l] = new String(bytes, StandardCharsets.UTF_8);
+                labelIds.put(labels[l], l);
+            }
+
+            ByteBuffer counts = read(channel, position, 8);
+            position += 8;
+            int groupCount = counts.getInt();
+            int edgeCount = counts.getInt();
+            IntBuffer vertexGroups = map(channel, position, vertexCount + 1);
+            position += 4L * (vertexCount + 1);
+            IntBuffer groupLabels = map(channel, position, groupCount);
+            position += 4L * groupCount;
+            IntBuffer groupOffsets = map(channel, position, groupCount + 1);
+            position += 4L * (groupCount + 1);
+            IntBuffer targets = map(channel, position, edgeCount);
+
+            List<Integer> start = null;
+            if (startVertices != null) {
+                start = new ArrayList<>();
+                startVertices.forEach(start::add);
+            }
+            return new MappedGraphInput(vertexCount, labels, labelIds, vertexGroups, groupLabels, groupOffsets, targets, start, finalVertices);
+        }
+    }
+
+    /**
+     * Writes the given graph to a file that can later be opened with {@link #open(Path)}.
+     * Start and final vertices are not part of the file.
+     *
+     * @throws IllegalArgumentException if the graph has more than {@link #MAX_MAPPED_INTS}
+     *                                  vertices, groups or edges
+     */
+    public static void write(CSRGraphInput graph, Path file) throws IOException {
+        int[] vertexGroups = graph.getVertexGroups();
+        int[] groupLabels = graph.getGroupLabels();
+        int[] groupOffsets = graph.getGroupOffsets();
+        int[] targets = graph.getTargets();
+        if (vertexGroups.length > MAX_MAPPED_INTS || groupOffsets.length > MAX_MAPPED_INTS || targets.length > MAX_MAPPED_INTS)
+            throw new IllegalArgumentException(String.format("A graph of %d vertices, %d groups and %d edges is too large to be mapped",
+                    graph.getVertexCount(), groupLabels.length, targets.length));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(graph.getVertexCount());
+            buffer.putInt(graph.getLabelCount());
+
+            for (int l = 0; l < graph.getLabelCount(); l++) {
+                byte[] bytes = graph.getLabel(l).getBytes(StandardCharsets.UTF_8);
+                putInt(channel, buffer, bytes.length);
+                for (int i = 0; i < align(bytes.length); i++) {
+                    if (!buffer.hasRemaining()) flush(channel, buffer);
+                    buffer.put(i < bytes.length ? bytes[i] : 0);
+                }
+            }
+
+            putInt(channel, buffer, groupLabels.length);
+            putInt(channel, buffer, targets.length);
+            putInts(channel, buffer, vertexGroups);
+            putInts(channel, buffer, groupLabels);
+            putInts(channel, buffer, groupOffsets);
+            putInts(channel, buffer, targets);
+            flush(channel, buffer);
+        }
+    }
+
+    @Override
+    protected int start(int labelId, int v) {
+        int g = group(labelId, v);
+        return g < 0 ? 0 : groupOffsets.get(g);
+    }
+
+    @Override
+    protected int end(int labelId, int v) {
+        int g = group(labelId, v);
+        return g < 0 ? 0 : groupOffsets.get(g + 1);
+    }
+
+    @Override
+    protected int target(int labelId, int i) {
+        return targets.get(i);
+    }
+
+    /**
+     * Returns the group of the edges leaving v with the given label, or -1 if there are none,
+     * by a binary search of the groups of v, which are sorted by label.
+     */
+    private int group(int labelId, int v) {
+        int low = vertexGroups.get(v);
+        int high = vertexGroups.get(v + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int label = groupLabels.get(mid);
+            if (label < labelId) {
+                low = mid + 1;
+            } else if (label > labelId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static int align(int length) {
+        return (length + 3) & ~3;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of graph file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static IntBuffer map(FileChannel channel, long position, int count) throws IOException {
+        if (position + 4L * count > channel.size())
+            throw new IOException("Unexpected end of graph file");
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) flush(channel, buffer);
+        buffer.putInt(value);
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            if (buffer.remaining() < 4) flush(channel, buffer);
+            int count = Math.min(values.length - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, i, count);
+            buffer.position(buffer.position() + 4 * count);
+            i += count;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -5,10 +5,12 @@ import org.neo4j.graphdb.*;
 import java.io.Closeable;
 import java.util.*;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 
 public class Neo4jBenchmarkInput extends Neo4jGraphInput implements Closeable {
@@ -18,6 +20,13 @@ public class Neo4jBenchmarkInput extends Neo4jGraphInput implements Closeable {
     private final List<Integer> finalVertices;
     Transaction tx;
 
+    // The relationship types to fetch per direction, for any label and per label; null if all
+    // relationships have to be fetched
+    private final RelationshipType[] outgoingTypes;
+    private final RelationshipType[] incomingTypes;
+    private final Map<String, RelationshipType[]> outgoingTypesByLabel;
+    private final Map<String, RelationshipType[]> incomingTypesByLabel;
+
     public Neo4jBenchmarkInput(GraphDatabaseService graphDb, BiFunction<Relationship, Direction, String> toLabel, Stream<Integer> startVertices, Integer verticesNumber) {
         super(graphDb);
         this.graphDb = graphDb;
@@ -25,6 +34,94 @@ public class Neo4jBenchmarkInput extends Neo4jGraphInput implements Closeable {
         this.startVertices = startVertices;
         this.tx = graphDb.beginTx();
         this.finalVertices = IntStream.range(0, verticesNumber).boxed().collect(Collectors.toList());
+        this.outgoingTypes = null;
+        this.incomingTypes = null;
+        this.outgoingTypesByLabel = null;
+        this.incomingTypesByLabel = null;
+    }
+
+    /**
+     * Only fetches the relationships that toLabel maps to one of the given labels, e.g., the
+     * labels of the grammar's terminals, instead of all the relationships of a node.
+     */
+    public Neo4jBenchmarkInput(GraphDatabaseService graphDb, RelationshipLabels toLabel, Collection<String> labels, Stream<Integer> startVertices, Integer verticesNumber) {
+        super(graphDb);
+        this.graphDb = graphDb;
+        this.toLabel = toLabel;
+        this.startVertices = startVertices;
+        this.tx = graphDb.beginTx();
+        this.finalVertices = IntStream.range(0, verticesNumber).boxed().collect(Collectors.toList());
+        this.outgoingTypes = toLabel.getTypes(Direction.OUTGOING, labels);
+        this.incomingTypes = toLabel.getTypes(Direction.INCOMING, labels);
+        this.outgoingTypesByLabel = new HashMap<>();
+        this.incomingTypesByLabel = new HashMap<>();
+        for (String label : labels) {
+            outgoingTypesByLabel.put(label, toLabel.getTypes(Direction.OUTGOING, Collections.singleton(label)));
+            incomingTypesByLabel.put(label, toLabel.getTypes(Direction.INCOMING, Collections.singleton(label)));
+        }
+    }
+
+    /**
+     * Reads all the relationships of the database once and builds an in-memory graph in which
+     * every relationship that toLabel maps to a label becomes an edge, in each direction that
+     * has a label. The returned graph answers all lookups without going through Neo4j.
+     */
+    public static CSRGraphInput snapshot(GraphDatabaseService graphDb, BiFunction<Relationship, Direction, String> toLabel, Stream<Integer> startVertices, Integer verticesNumber) {
+        CSRGraphInput.Builder builder = CSRGraphInput.builder().setVertexCount(verticesNumber);
+        try (Transaction tx = graphDb.beginTx()) {
+            for (Relationship rel : tx.getAllRelationships()) {
+                addEdges(builder, rel, toLabel);
+            }
+        }
+        return builder.setStartVertices(startVertices).build();
+    }
+
+    /**
+     * Like {@link #snapshot(GraphDatabaseService, BiFunction, Stream, Integer)}, but only reads
+     * the relationships whose type toLabel maps to one of the given labels, e.g., the labels of
+     * the grammar's terminals. The relationships of these types are read from their start nodes,
+     * so the relationships of other types are not visited.
+     */
+    public static CSRGraphInput snapshot(GraphDatabaseService graphDb, RelationshipLabels toLabel, Collection<String> labels, Stream<Integer> startVertices, Integer verticesNumber) {
+        // A relationship type is read once even if it becomes an edge in both directions
+        Map<String, RelationshipType> types = new LinkedHashMap<>();
+        for (Direction direction : Arrays.asList(Direction.OUTGOING, Direction.INCOMING)) {
+            for (RelationshipType type : toLabel.getTypes(direction, labels)) {
+                types.putIfAbsent(type.name(), type);
+            }
+        }
+
+        CSRGraphInput.Builder builder = CSRGraphInput.builder().setVertexCount(verticesNumber);
+        if (!types.isEmpty()) {
+            RelationshipType[] typeArray = types.values().toArray(new RelationshipType[0]);
+            try (Transaction tx = graphDb.beginTx()) {
+                for (Node node : tx.getAllNodes()) {
+                    for (Relationship rel : node.getRelationships(Direction.OUTGOING, typeArray)) {
+                        addEdges(builder, rel, toLabel);
+                    }
+                }
+            }
+        }
+        return builder.setStartVertices(startVertices).build();
+    }
+
+    /**
+     * Adds an edge for the relationship in each direction that toLabel maps to a label.
+     */
+    private static void addEdges(CSRGraphInput.Builder builder, Relationship rel, BiFunction<Relationship, Direction, String> toLabel) {
+        int start = (int) rel.getStartNodeId();
+        int end = (int) rel.getEndNodeId();
+        String outgoing = toLabel.apply(rel, Direction.OUTGOING);
+        if (outgoing != null) {
+            builder.addEdge(start, outgoing, end);
+        }
+        // A self-loop is only seen as outgoing when traversing from its node
+        if (start != end) {
+            String incoming = toLabel.apply(rel, Direction.INCOMING);
+            if (incoming != null) {
+                builder.addEdge(end, incoming, start);
+            }
+        }
     }
 
     public long nVertices() {
@@ -35,23 +132,34 @@ public class Neo4jBenchmarkInput extends Neo4jGraphInput implements Closeable {
 
     @Override
     public Stream<Integer> nextSymbols(int index) {
-        Stream<Integer> nextSymbols = StreamSupport.stream(tx.getNodeById(index).getRelationships().spliterator(), false)
-                .map(rel -> {
-                    final Direction direction = rel.getStartNodeId() == index
-                            ? Direction.OUTGOING
-                            : Direction.INCOMING;
-                    String tmp = toLabel.apply(rel, direction);
-                    if (tmp != null) {
-                        return (int) tmp.charAt(0);
-                    }
-                    return null;
-                })
-                .filter(Objects::nonNull);
+        List<Integer> nextSymbols = new ArrayList<>();
+        forEachNextSymbol(index, nextSymbols::add);
+        return nextSymbols.stream();
+    }
 
+    @Override
+    public void forEachNextSymbol(int index, IntConsumer consumer) {
         if (isFinal(index)) {
-            return Stream.concat(Stream.of(EOF), nextSymbols);
+            consumer.accept(EOF);
+        }
+        anyRelationship(index, null, (rel, direction) -> {
+            String label = toLabel.apply(rel, direction);
+            if (label != null) {
+                consumer.accept(label.charAt(0));
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public boolean anyNextSymbol(int index, IntPredicate predicate) {
+        if (isFinal(index) && predicate.test(EOF)) {
+            return true;
         }
-        return nextSymbols;
+        return anyRelationship(index, null, (rel, direction) -> {
+            String label = toLabel.apply(rel, direction);
+            return label != null && predicate.test(label.charAt(0));
+        });
     }
 
     @Override
@@ -71,20 +179,63 @@ public class Neo4jBenchmarkInput extends Neo4jGraphInput implements Closeable {
 
     @Override
     public List<Integer> getDestVertex(int v, String t) {
-        return StreamSupport.stream(tx.getNodeById(v).getRelationships().spliterator(), false)
-                .map(rel -> {
-                    final Direction direction = rel.getStartNodeId() == v
-                            ? Direction.OUTGOING
-                            : Direction.INCOMING;
-
-                    String tmp = toLabel.apply(rel, direction);
-                    if (tmp != null && tmp.equals(t)) {
-                        return direction == Direction.INCOMING
-                                ? (int) rel.getStartNode().getId()
-                                : (int) rel.getEndNode().getId();
-                    }
-                    return null;
-                }).filter(Objects::nonNull).collect(Collectors.toList());
+        List<Integer> destVertices = new ArrayList<>();
+        forEachDestVertex(v, t, destVertices::add);
+        return destVertices;
+    }
+
+    @Override
+    public void forEachDestVertex(int v, String t, IntConsumer consumer) {
+        anyRelationship(v, t, (rel, direction) -> {
+            if (t.equals(toLabel.apply(rel, direction))) {
+                consumer.accept(getOtherNodeId(rel, direction));
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public boolean hasDestVertex(int v, String t, int u) {
+        return anyRelationship(v, t, (rel, direction) ->
+                getOtherNodeId(rel, direction) == u && t.equals(toLabel.apply(rel, direction)));
+    }
+
+    /**
+     * Tests the relationships of v that may be mapped to the label t, or to any label if t is null,
+     * together with their direction as seen from v, until the predicate returns true.
+     */
+    private boolean anyRelationship(int v, String t, BiPredicate<Relationship, Direction> predicate) {
+        Node node = tx.getNodeById(v);
+        if (outgoingTypes == null) {
+            for (Relationship rel : node.getRelationships()) {
+                if (predicate.test(rel, getDirection(rel, v))) return true;
+            }
+            return false;
+        }
+
+        RelationshipType[] outgoing = t == null ? outgoingTypes : outgoingTypesByLabel.getOrDefault(t, outgoingTypes);
+        RelationshipType[] incoming = t == null ? incomingTypes : incomingTypesByLabel.getOrDefault(t, incomingTypes);
+        // getRelationships without types returns the relationships of all types
+        if (outgoing.length > 0) {
+            for (Relationship rel : node.getRelationships(Direction.OUTGOING, outgoing)) {
+                if (predicate.test(rel, Direction.OUTGOING)) return true;
+            }
+        }
+        if (incoming.length > 0) {
+            for (Relationship rel : node.getRelationships(Direction.INCOMING, incoming)) {
+                // Self-loops are already seen as outgoing
+                if (rel.getStartNodeId() != v && predicate.test(rel, Direction.INCOMING)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static Direction getDirection(Relationship rel, int v) {
+        return rel.getStartNodeId() == v ? Direction.OUTGOING : Direction.INCOMING;
+    }
+
+    private static int getOtherNodeId(Relationship rel, Direction direction) {
+        return direction == Direction.INCOMING ? (int) rel.getStartNodeId() : (int) rel.getEndNodeId();
     }
 
     @Override
@@ -0,0 +1,122 @@
+package iguana.utils.input;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A CSR graph reduced to the edges whose labels a grammar can match, and to the vertices incident
+ * to such edges, before it is parsed. The remaining vertices are renumbered densely in their
+ * original order, so that the per-vertex tables of a parse are sized by the reduced graph, and
+ * results on the reduced graph are mapped back with {@link #getOriginalVertex(int)}.
+ *
+ * A vertex without relevant edges can only be in a result if the start symbol derives the empty
+ * path, in which case all vertices should be kept.
+ */
+public class PrunedGraph {
+
+    private final AbstractCSRGraphInput original;
+
+    private final CSRGraphInput graph;
+
+    // The original vertex of each vertex of the reduced graph
+    private final int[] originalVertices;
+
+    // The vertex of each original vertex in the reduced graph, or -1 if it is removed
+    private final int[] prunedVertices;
+
+    private PrunedGraph(AbstractCSRGraphInput original, CSRGraphInput graph, int[] originalVertices, int[] prunedVertices) {
+        this.original = original;
+        this.graph = graph;
+        this.originalVertices = originalVertices;
+        this.prunedVertices = prunedVertices;
+    }
+
+    /**
+     * @param labels the labels to keep
+     * @param keepVertices if true, only the edges are pruned and the vertices keep their ids
+     */
+    public static PrunedGraph prune(AbstractCSRGraphInput input, Collection<String> labels, boolean keepVertices) {
+        int vertexCount = input.getVertexCount();
+        int[] labelIds = IntStream.range(0, input.getLabelCount())
+                .filter(l -> labels.contains(input.getLabel(l)))
+                .toArray();
+
+        boolean[] relevant = new boolean[vertexCount];
+        if (keepVertices) {
+            Arrays.fill(relevant, true);
+        } else {
+            for (int v = 0; v < vertexCount; v++) {
+                for (int l : labelIds) {
+                    if (input.getOutDegree(v, l) > 0) {
+                        relevant[v] = true;
+                        input.forEachDestVertex(v, l, u -> relevant[u] = true);
+                    }
+                }
+            }
+        }
+
+        int[] prunedVertices = new int[vertexCount];
+        int count = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            prunedVertices[v] = relevant[v] ? count++ : -1;
+        }
+        int[] originalVertices = new int[count];
+        for (int v = 0; v < vertexCount; v++) {
+            if (prunedVertices[v] != -1) originalVertices[prunedVertices[v]] = v;
+        }
+
+        CSRGraphInput.Builder builder = CSRGraphInput.builder().setVertexCount(count);
+        for (int l : labelIds) {
+            int labelId = builder.internLabel(input.getLabel(l));
+            for (int v : originalVertices) {
+                int source = prunedVertices[v];
+                input.forEachDestVertex(v, l, u -> builder.addEdge(source, labelId, prunedVertices[u]));
+            }
+        }
+        if (!input.isEveryVertexStart()) {
+            builder.setStartVertices(mapVertices(input.getStartVertices(), prunedVertices));
+        }
+        if (!input.isEveryVertexFinal()) {
+            builder.setFinalVertices(mapVertices(input.getFinalVertices().stream(), prunedVertices).collect(Collectors.toList()));
+        }
+
+        return new PrunedGraph(input, builder.build(), originalVertices, prunedVertices);
+    }
+
+    private static Stream<Integer> mapVertices(Stream<Integer> vertices, int[] prunedVertices) {
+        return vertices.map(v -> prunedVertices[v]).filter(v -> v != -1);
+    }
+
+    /**
+     * The reduced graph, whose start and final vertices are the remaining original ones.
+     */
+    public CSRGraphInput getGraph() {
+        return graph;
+    }
+
+    public int getOriginalVertex(int v) {
+        return originalVertices[v];
+    }
+
+    /**
+     * Returns the vertex of the original vertex v in the reduced graph, or -1 if v is removed.
+     */
+    public int getPrunedVertex(int v) {
+        return prunedVertices[v];
+    }
+
+    /**
+     * The start vertices of the original graph that are removed, and thus have no results.
+     */
+    public List<Integer> getRemovedStartVertices() {
+        return original.getStartVertices().filter(v -> prunedVertices[v] == -1).collect(Collectors.toList());
+    }
+
+    public int getRemovedVertexCount() {
+        return prunedVertices.length - originalVertices.length;
+    }
+}
@@ -0,0 +1,64 @@
+package iguana.utils.input;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Maps Neo4j relationships to edge labels by relationship type and direction. Unlike an arbitrary
+ * function, this mapping can be inverted, so a graph input knows which relationship types it
+ * should ask Neo4j for.
+ */
+public class RelationshipLabels implements BiFunction<Relationship, Direction, String> {
+
+    private static final RelationshipType[] NO_TYPES = new RelationshipType[0];
+
+    private final Map<String, String> outgoing = new HashMap<>();
+    private final Map<String, String> incoming = new HashMap<>();
+
+    /**
+     * Relationships of the given type, traversed in the given direction (OUTGOING or INCOMING),
+     * become edges with the given label.
+     */
+    public RelationshipLabels add(String type, Direction direction, String label) {
+        getMap(direction).put(type, label);
+        return this;
+    }
+
+    @Override
+    public String apply(Relationship rel, Direction direction) {
+        return getMap(direction).get(rel.getType().name());
+    }
+
+    /**
+     * Returns the relationship types that, traversed in the given direction, become edges with
+     * one of the given labels.
+     */
+    public RelationshipType[] getTypes(Direction direction, Collection<String> labels) {
+        List<RelationshipType> types = new ArrayList<>();
+        getMap(direction).forEach((type, label) -> {
+            if (labels.contains(label)) {
+                types.add(RelationshipType.withName(type));
+            }
+        });
+        return types.isEmpty() ? NO_TYPES : types.toArray(NO_TYPES);
+    }
+
+    private Map<String, String> getMap(Direction direction) {
+        switch (direction) {
+            case OUTGOING:
+                return outgoing;
+            case INCOMING:
+                return incoming;
+            default:
+                throw new RuntimeException("Unexpected direction");
+        }
+    }
+}
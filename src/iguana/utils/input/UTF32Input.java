@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Stream;
 
 class UTF32Input extends AbstractInput {
@@ -26,6 +28,16 @@ class UTF32Input extends AbstractInput {
         return Stream.of(characters[index]);
     }
 
+    @Override
+    public void forEachNextSymbol(int index, IntConsumer consumer) {
+        consumer.accept(characters[index]);
+    }
+
+    @Override
+    public boolean anyNextSymbol(int index, IntPredicate predicate) {
+        return predicate.test(characters[index]);
+    }
+
     /**
      * The length is one more than the actual characters in the input as the last input character is considered EOF.
      */
@@ -5,24 +5,25 @@ import java.util.Deque;
 
 public class EnvironmentPool {
 
-    static Deque<Environment>[] environmentPools;
-
-    static {
-        environmentPools = new ArrayDeque[3];
-        for (int i = 0; i < environmentPools.length; i++) {
-            environmentPools[i] = new ArrayDeque<>(1000);
+    // One pool per thread, so that parsers can run concurrently
+    static final ThreadLocal<Deque<Environment>[]> environmentPools = ThreadLocal.withInitial(() -> {
+        Deque<Environment>[] pools = new ArrayDeque[3];
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new ArrayDeque<>(1000);
         }
-    }
+        return pools;
+    });
 
     public static void clean() {
-        for (int i = 0; i < environmentPools.length; i++) {
-            environmentPools[i].clear();
+        Deque<Environment>[] pools = environmentPools.get();
+        for (int i = 0; i < pools.length; i++) {
+            pools[i].clear();
         }
     }
 
     public static Environment get(int size) {
         if (size >= 1 && size <= 3) {
-            Deque<Environment> environmentPool = environmentPools[size - 1];
+            Deque<Environment> environmentPool = environmentPools.get()[size - 1];
             if (!environmentPool.isEmpty()) {
                 return environmentPool.pop();
             }
@@ -33,7 +34,7 @@ public class EnvironmentPool {
     public static void returnToPool(Environment env) {
         int size = env.size();
         if (size >= 1 && size <= 3) {
-            environmentPools[size - 1].push(env);
+            environmentPools.get()[size - 1].push(env);
         }
     }
 }
@@ -8,19 +8,60 @@ import org.iguana.grammar.slot.NonterminalGrammarSlot;
 import org.iguana.grammar.slot.TerminalGrammarSlot;
 import org.iguana.grammar.symbol.Terminal;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.stream.Collectors.toList;
 
 public class GrammarGraph {
 
     public static final TerminalGrammarSlot epsilonSlot = new TerminalGrammarSlot(Terminal.epsilon(), new DFAMatcherFactory(), ConditionsFactory.DEFAULT, ConditionsFactory.DEFAULT);
+    static {
+        // The epsilon slot is shared by all grammar graphs, so it has the reserved terminal slot id 0
+        epsilonSlot.setId(0);
+    }
+
     private final List<GrammarSlot> slots;
     private final NonterminalGrammarSlot startSlot;
 
+    private int nonterminalSlotCount;
+    private int bodySlotCount;
+    private int terminalSlotCount;
+
+    // The body slots indexed by id
+    private final BodyGrammarSlot[] bodySlots;
+
+    private final List<String> labels;
+
     public GrammarGraph(List<GrammarSlot> slots, NonterminalGrammarSlot startSlot) {
+        this(slots, startSlot, null);
+    }
+
+    public GrammarGraph(List<GrammarSlot> slots, NonterminalGrammarSlot startSlot, List<String> labels) {
         this.slots = slots;
         this.startSlot = startSlot;
+        this.labels = labels;
+
+        terminalSlotCount = 1;
+        Set<GrammarSlot> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (GrammarSlot slot : slots) {
+            if (slot == epsilonSlot || !visited.add(slot)) continue;
+
+            if (slot instanceof NonterminalGrammarSlot)
+                slot.setId(nonterminalSlotCount++);
+            else if (slot instanceof BodyGrammarSlot)
+                slot.setId(bodySlotCount++);
+            else if (slot instanceof TerminalGrammarSlot)
+                slot.setId(terminalSlotCount++);
+        }
+
+        bodySlots = new BodyGrammarSlot[bodySlotCount];
+        for (GrammarSlot slot : visited) {
+            if (slot instanceof BodyGrammarSlot)
+                bodySlots[slot.getId()] = (BodyGrammarSlot) slot;
+        }
     }
 
     public List<NonterminalGrammarSlot> getNonterminalGrammarSlots() {
@@ -35,13 +76,43 @@ public class GrammarGraph {
         return slots.stream().filter(slot -> slot instanceof BodyGrammarSlot).map(slot -> (BodyGrammarSlot) slot).collect(toList());
     }
 
+    /**
+     * Returns whether a body slot binds the result of its symbol to a label or variable. Only then
+     * the grammar needs the extents of the results, and not just their right index.
+     */
+    public boolean hasBindings() {
+        for (BodyGrammarSlot slot : getBodyGrammarSlots()) {
+            if (slot.requiresBinding()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the sorted edge labels the terminals of this grammar can match, or null if some
+     * terminal is not a single character and may therefore match any label. The label sets of the
+     * nonterminal slots refer to the labels by their position in this list.
+     */
+    public List<String> getTerminalLabels() {
+        return labels;
+    }
+
     public NonterminalGrammarSlot getStartSlot() {
         return startSlot;
     }
 
-    public void clear() {
-        for (GrammarSlot slot : slots) {
-            slot.reset();
-        }
+    public int getNonterminalSlotCount() {
+        return nonterminalSlotCount;
+    }
+
+    public BodyGrammarSlot getBodySlot(int id) {
+        return bodySlots[id];
+    }
+
+    public int getBodySlotCount() {
+        return bodySlotCount;
+    }
+
+    public int getTerminalSlotCount() {
+        return terminalSlotCount;
     }
 }
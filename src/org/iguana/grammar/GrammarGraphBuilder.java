@@ -27,7 +27,11 @@
 
 package org.iguana.grammar;
 
+import iguana.regex.Char;
 import iguana.regex.CharRange;
+import iguana.regex.EOF;
+import iguana.regex.Epsilon;
+import iguana.regex.RegularExpression;
 import iguana.regex.matcher.DFAMatcherFactory;
 import iguana.regex.matcher.MatcherFactory;
 import iguana.utils.collections.rangemap.RangeMap;
@@ -65,6 +69,12 @@ public class GrammarGraphBuilder implements Serializable {
 
     private FirstFollowSets firstFollow;
 
+    // The sorted edge labels of the terminals, or null if a terminal may match any label
+    private List<String> labels;
+
+    // The first and follow sets over label ids instead of characters
+    private FirstFollowSets labelFirstFollow;
+
     private final Grammar grammar;
 
     private final Configuration config;
@@ -83,7 +93,7 @@ public class GrammarGraphBuilder implements Serializable {
         GrammarGraphBuilder builder = new GrammarGraphBuilder(grammar, config);
         builder.convert();
         ((ArrayList) builder.slots).trimToSize();
-        return new GrammarGraph(builder.slots, builder.getHead(Nonterminal.withName(grammar.getStartSymbol().getName())));
+        return new GrammarGraph(builder.slots, builder.getHead(Nonterminal.withName(grammar.getStartSymbol().getName())), builder.labels);
     }
 
     private void convert() {
@@ -104,6 +114,12 @@ public class GrammarGraphBuilder implements Serializable {
         }
 
         nonterminals.forEach(this::setFirstFollowTests);
+
+        labels = getTerminalLabels();
+        if (labels != null && config.getLookAheadCount() != 0) {
+            labelFirstFollow = new FirstFollowSets(grammar, this::getLabelFirstSet);
+            nonterminals.forEach(this::setLabelTests);
+        }
     }
 
     private GrammarGraphBuilder(Grammar grammar, Configuration config) {
@@ -144,6 +160,7 @@ public class GrammarGraphBuilder implements Serializable {
         NonterminalGrammarSlot nonterminalSlot = getNonterminalSlot(nonterminal);
         nonterminalSlot.setLookAheadTest(getLookAheadTest(nonterminal, nonterminalSlot));
         nonterminalSlot.setFollowTest(getFollowTest(nonterminal));
+        nonterminalSlot.setNullable(firstFollow.isNullable(nonterminal));
     }
 
     private RangeMap<BodyGrammarSlot> getLookAheadTest(Nonterminal nonterminal, NonterminalGrammarSlot nonterminalSlot) {
@@ -164,6 +181,59 @@ public class GrammarGraphBuilder implements Serializable {
         return builder.buildRangeMap();
     }
 
+    /**
+     * Sets the first sets of the alternatives and the follow set of the nonterminal as bitsets
+     * of label ids, with the bit after the last label for EOF. Unlike the character based tests,
+     * these distinguish labels that start with the same character.
+     */
+    private void setLabelTests(Nonterminal nonterminal) {
+        NonterminalGrammarSlot nonterminalSlot = getNonterminalSlot(nonterminal);
+        List<Rule> alternatives = grammar.getAlternatives(nonterminal);
+
+        long[][] firstSlotLabels = new long[alternatives.size()][];
+        for (int i = 0; i < alternatives.size(); i++) {
+            firstSlotLabels[i] = toLabelSet(labelFirstFollow.getPredictionSet(alternatives.get(i), 0));
+        }
+        nonterminalSlot.setLabelTests(firstSlotLabels, toLabelSet(labelFirstFollow.getFollowSet(nonterminal)));
+    }
+
+    private List<String> getTerminalLabels() {
+        Set<String> labels = new TreeSet<>();
+        for (Terminal terminal : terminalsMap.keySet()) {
+            RegularExpression regex = terminal.getRegularExpression();
+            if (regex instanceof Char) {
+                labels.add(regex.toString());
+            } else if (regex != Epsilon.getInstance()) {
+                return null;
+            }
+        }
+        return new ArrayList<>(labels);
+    }
+
+    private Set<CharRange> getLabelFirstSet(Terminal terminal) {
+        RegularExpression regex = terminal.getRegularExpression();
+        if (!(regex instanceof Char)) {
+            return regex.getFirstSet();
+        }
+        int id = Collections.binarySearch(labels, regex.toString());
+        return Collections.singleton(CharRange.in(id, id));
+    }
+
+    private long[] toLabelSet(Set<CharRange> set) {
+        int eof = labels.size();
+        long[] labelSet = new long[(eof >>> 6) + 1];
+        for (CharRange range : set) {
+            if (range.getStart() == EOF.VALUE) {
+                labelSet[eof >>> 6] |= 1L << eof;
+            } else {
+                for (int id = Math.max(0, range.getStart()); id <= range.getEnd() && id < eof; id++) {
+                    labelSet[id >>> 6] |= 1L << id;
+                }
+            }
+        }
+        return labelSet;
+    }
+
     private FollowTest getFollowTest(Nonterminal nonterminal) {
         if (config.getLookAheadCount() == 0)
             return FollowTest.DEFAULT;
@@ -273,10 +343,12 @@ public class GrammarGraphBuilder implements Serializable {
             if (i != rule.size() - 1)
                 throw new RuntimeException("Return symbol can only be used at the end of a grammar rule!");
             else {
-                if (rule.size() == 1)
+                if (rule.size() == 1) {
                     done = new EpsilonGrammarSlot(rule.getPosition(i + 1), head, epsilonSlot, ConditionsFactory.DEFAULT);
-                else
+                    add(done);
+                } else {
                     done = getEndSlot(rule, i + 1, rule.getPosition(i + 1), head, null, null, null);
+                }
             }
 
             ReturnTransition transition = new ReturnTransition(symbol.getExpression(), currentSlot, done);
@@ -446,10 +518,6 @@ public class GrammarGraphBuilder implements Serializable {
         throw new IncorrectNumberOfArgumentsException(nonterminal, arguments);
     }
 
-    public void reset() {
-        slots.forEach(GrammarSlot::reset);
-    }
-
     private Conditions getConditions(Set<Condition> conditions) {
         if (conditions.isEmpty())
             return ConditionsFactory.DEFAULT;
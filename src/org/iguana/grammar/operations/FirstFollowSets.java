@@ -37,6 +37,7 @@ import org.iguana.traversal.ISymbolVisitor;
 import org.iguana.util.Tuple;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * 
@@ -62,13 +63,21 @@ public class FirstFollowSets {
 	private final ISymbolVisitor<Nonterminal> nonterminalVisitor;
 	
 	public FirstFollowSets(Grammar grammar) {
+		this(grammar, terminal -> terminal.getRegularExpression().getFirstSet());
+	}
+
+	/**
+	 * @param terminalFirstSet the first set of a terminal, e.g., a range that stands for its
+	 *                         label instead of the first characters of its regular expression
+	 */
+	public FirstFollowSets(Grammar grammar, Function<Terminal, Set<CharRange>> terminalFirstSet) {
 		this.definitions = grammar.getDefinitions();
 		this.firstSets = new HashMap<>();
 		this.nullableNonterminals = new HashSet<>();
 		this.followSets = new HashMap<>();
 		this.predictionSets = new HashMap<>();
 		
-		this.firstSetVisitor = new FirstSymbolVisitor(firstSets);
+		this.firstSetVisitor = new FirstSymbolVisitor(firstSets, terminalFirstSet);
 		this.nonterminalVisitor = new NonterminalVisitor();
 		this.nullableVisitor = new NullableSymbolVisitor(nullableNonterminals);
 		
@@ -362,9 +371,12 @@ public class FirstFollowSets {
     private static class FirstSymbolVisitor extends AbstractGrammarGraphSymbolVisitor<Set<CharRange>> {
 
     	private final Map<Nonterminal, Set<CharRange>> firstSets;
+
+    	private final Function<Terminal, Set<CharRange>> terminalFirstSet;
     	
-    	public FirstSymbolVisitor(Map<Nonterminal, Set<CharRange>> firstSets) {
+    	public FirstSymbolVisitor(Map<Nonterminal, Set<CharRange>> firstSets, Function<Terminal, Set<CharRange>> terminalFirstSet) {
     		this.firstSets = firstSets;
+    		this.terminalFirstSet = terminalFirstSet;
     	}
     	
 		@Override
@@ -378,7 +390,7 @@ public class FirstFollowSets {
 
         @Override
         public Set<CharRange> visit(Terminal symbol) {
-            return symbol.getRegularExpression().getFirstSet();
+            return terminalFirstSet.apply(symbol);
         }
 
         @Override
@@ -28,7 +28,6 @@
 package org.iguana.grammar.slot;
 
 import iguana.utils.collections.Keys;
-import iguana.utils.collections.OpenAddressingHashMap;
 import iguana.utils.collections.key.Key;
 import iguana.utils.input.Input;
 import org.iguana.datadependent.env.Environment;
@@ -49,7 +48,7 @@ public class BodyGrammarSlot implements GrammarSlot {
 	
 	protected final Position position;
 	
-	private Map<Key, Object> intermediateNodes;
+	private int id = -1;
 	
 	private final Conditions conditions;
 	
@@ -103,15 +102,16 @@ public class BodyGrammarSlot implements GrammarSlot {
 
 		Key key = Keys.from(destinationIndex, rightResult.getIndex(), env);
 
-		if (intermediateNodes == null) {
-		    intermediateNodes = new OpenAddressingHashMap<>();
-        }
+		Map<Key, Object> intermediateNodes = runtime.getParseState().getIntermediateNodes(this);
 
 		Object value = intermediateNodes.get(key);
 		if (value == null) {
 			T newNode = runtime.getResultOps().merge(null, leftResult, rightResult, this);
-			intermediateNodes.put(key, newNode);
-			return newNode;
+			// In a concurrent parse another thread may have added the node in the meantime
+			value = intermediateNodes.putIfAbsent(key, newNode);
+			if (value == null) {
+				return newNode;
+			}
 		}
 
 		runtime.getResultOps().merge((T) value, leftResult, rightResult, this);
@@ -123,8 +123,13 @@ public class BodyGrammarSlot implements GrammarSlot {
 	}
 
 	@Override
-	public void reset() {
-		intermediateNodes = null;
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public void setId(int id) {
+		this.id = id;
 	}
 
 	public String getLabel() {
@@ -41,6 +41,12 @@ package org.iguana.grammar.slot;
  */
 public interface GrammarSlot {
 
-	void reset();
-	
+	/**
+	 * Returns the index of this slot among the slots of the same kind (nonterminal, body or
+	 * terminal) in its grammar graph. The per-parse state of the slot is stored under this index.
+	 */
+	int getId();
+
+	void setId(int id);
+
 }
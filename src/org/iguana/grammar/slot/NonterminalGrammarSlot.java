@@ -29,8 +29,6 @@ package org.iguana.grammar.slot;
 
 import iguana.utils.collections.IntHashMap;
 import iguana.utils.collections.Keys;
-import iguana.utils.collections.OpenAddressingHashMap;
-import iguana.utils.collections.OpenAddressingIntHashMap;
 import iguana.utils.collections.key.Key;
 import iguana.utils.collections.rangemap.RangeMap;
 import iguana.utils.input.Input;
@@ -38,20 +36,16 @@ import org.iguana.datadependent.ast.Expression;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.grammar.slot.lookahead.FollowTest;
 import org.iguana.grammar.symbol.Nonterminal;
-import org.iguana.gss.DefaultGSSNode;
 import org.iguana.gss.GSSEdge;
 import org.iguana.gss.GSSNode;
 import org.iguana.parser.IguanaRuntime;
+import org.iguana.parser.ParseState;
 import org.iguana.result.Result;
 import org.iguana.util.Configuration.EnvironmentImpl;
 import org.iguana.util.ParserLogger;
 
 import java.util.*;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
-
-import static java.util.Collections.emptyList;
 
 
 public class NonterminalGrammarSlot implements GrammarSlot {
@@ -60,23 +54,33 @@ public class NonterminalGrammarSlot implements GrammarSlot {
 
     private final List<BodyGrammarSlot> firstSlots;
 
-    private Map<Key, GSSNode> gssNodes;
-
-    private IntHashMap<GSSNode> intGSSNodes;
+    private int id = -1;
 
     private RangeMap<BodyGrammarSlot> lookAheadTest;
 
     private FollowTest followTest;
 
+    // The label ids that may start each first slot and that may follow the nonterminal, by the
+    // label numbering of the grammar graph, or null if the lookahead is not over labels
+    private long[][] firstSlotLabels;
+
+    private long[] followLabels;
+
+    private boolean nullable;
+
     public NonterminalGrammarSlot(Nonterminal nonterminal) {
         this.nonterminal = nonterminal;
         this.firstSlots = new ArrayList<>();
     }
 
-    public <T extends Result> void addStartGSSNode(GSSNode<T> gssNode, int index) {
-        if (intGSSNodes == null)
-            intGSSNodes = new OpenAddressingIntHashMap<>();
-        intGSSNodes.put(index, gssNode);
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(int id) {
+        this.id = id;
     }
 
     public void addFirstSlot(BodyGrammarSlot slot) {
@@ -87,22 +91,32 @@ public class NonterminalGrammarSlot implements GrammarSlot {
         return firstSlots;
     }
 
-    private List<BodyGrammarSlot> getFirstSlots(int v) {
-        return lookAheadTest.get(v);
-    }
-
-    private List<BodyGrammarSlot> getFirstSlots(List<Integer> v) {
-        List<BodyGrammarSlot> result = new ArrayList<>();
-        v.forEach(t -> result.addAll(lookAheadTest.get(t)));
-        return result;
-    }
+    /**
+     * Returns the first slots whose lookahead test accepts one of the next symbols at index i.
+     * If the parse state has the label sets of this nonterminal for the input, the test is a
+     * bitset intersection with the labels leaving i.
+     */
+    private List<BodyGrammarSlot> getFirstSlots(Input input, int i, ParseState state) {
+        long[][] labelSets = state.getFirstSlotLabels(this);
+        if (labelSets != null) {
+            List<BodyGrammarSlot> result = new ArrayList<>(firstSlots.size());
+            for (int k = 0; k < labelSets.length; k++) {
+                if (state.hasOutgoingLabel(i, labelSets[k])) {
+                    result.add(firstSlots.get(k));
+                }
+            }
+            return result;
+        }
 
-    private Stream<BodyGrammarSlot> getFirstSlots(Stream<Integer> v) {
-        List<BodyGrammarSlot> result = new ArrayList<>();
-        v.forEach(t -> {
-            result.addAll(lookAheadTest.get(t));
+        List<BodyGrammarSlot> result = new ArrayList<>(firstSlots.size());
+        input.forEachNextSymbol(i, t -> {
+            for (BodyGrammarSlot slot : lookAheadTest.get(t)) {
+                if (!result.contains(slot)) {
+                    result.add(slot);
+                }
+            }
         });
-        return result.stream();
+        return result;
     }
 
     public void setLookAheadTest(RangeMap<BodyGrammarSlot> lookAheadTest) {
@@ -117,6 +131,45 @@ public class NonterminalGrammarSlot implements GrammarSlot {
         return followTest.test(v);
     }
 
+    /**
+     * Returns true if one of the next symbols at index i may follow this nonterminal.
+     */
+    boolean testFollow(Input input, int i, ParseState state) {
+        long[] labelSet = state.getFollowLabels(this);
+        if (labelSet != null) {
+            return state.hasOutgoingLabel(i, labelSet);
+        }
+        return input.anyNextSymbol(i, followTest);
+    }
+
+    public void setLabelTests(long[][] firstSlotLabels, long[] followLabels) {
+        this.firstSlotLabels = firstSlotLabels;
+        this.followLabels = followLabels;
+    }
+
+    public long[][] getFirstSlotLabels() {
+        return firstSlotLabels;
+    }
+
+    public long[] getFollowLabels() {
+        return followLabels;
+    }
+
+    FollowTest getFollowTest() {
+        return followTest;
+    }
+
+    public void setNullable(boolean nullable) {
+        this.nullable = nullable;
+    }
+
+    /**
+     * Returns true if this nonterminal derives the empty string, or the empty path.
+     */
+    public boolean isNullable() {
+        return nullable;
+    }
+
     public Nonterminal getNonterminal() {
         return nonterminal;
     }
@@ -133,31 +186,11 @@ public class NonterminalGrammarSlot implements GrammarSlot {
         return nonterminal.getArguments();
     }
 
-    public int countGSSNodes() {
-        if (gssNodes == null) {
-            return 0;
-        }
-        return gssNodes.size();
-    }
-
     @Override
     public String toString() {
         return nonterminal.toString();
     }
 
-    public Iterable<GSSNode> getGSSNodes() {
-        if (gssNodes == null) {
-            return emptyList();
-        }
-        return gssNodes.values();
-    }
-
-    @Override
-    public void reset() {
-        gssNodes = null;
-        intGSSNodes = null;
-    }
-
     public <T extends Result> void create(Input input, BodyGrammarSlot returnSlot, GSSNode<T> u, T result, Expression[] arguments, Environment env, IguanaRuntime<T> runtime) {
         int i = result.isDummy() ? u.getInputIndex() : result.getIndex();
 
@@ -169,31 +202,40 @@ public class NonterminalGrammarSlot implements GrammarSlot {
             key = Keys.from(i, data);
         }
 
-        GSSNode gssNode = null;
+        IntHashMap<GSSNode<T>> intGSSNodes = null;
+        Map<Key, GSSNode<T>> gssNodes = null;
+        GSSNode<T> gssNode;
 
         if (arguments == null) {
-            if (intGSSNodes == null) {
-                intGSSNodes = new OpenAddressingIntHashMap<>();
-            } else {
-                gssNode = intGSSNodes.get(i);
-            }
+            intGSSNodes = runtime.getParseState().getIntGSSNodes(this);
+            gssNode = intGSSNodes.get(i);
         } else {
-            if (gssNodes == null) {
-                gssNodes = new OpenAddressingHashMap<>();
-            } else {
-                gssNode = gssNodes.get(key);
-            }
+            gssNodes = runtime.getParseState().getGSSNodes(this);
+            gssNode = gssNodes.get(key);
         }
 
         if (gssNode == null) {
-            Stream<BodyGrammarSlot> firstSlots = getFirstSlots(input.nextSymbols(i));
-            Stream<BodyGrammarSlot> testFirstSlots = getFirstSlots(input.nextSymbols(i));
-            if (testFirstSlots.findAny().isEmpty()) {
+            List<BodyGrammarSlot> firstSlots = getFirstSlots(input, i, runtime.getParseState());
+            if (firstSlots.isEmpty()) {
                 return;
             }
 
             GSSEdge<T> gssEdge = runtime.createGSSEdge(returnSlot, result, u, env);
-            gssNode = new DefaultGSSNode<>(gssEdge, i);
+            GSSNode<T> newNode = runtime.createGSSNode(gssEdge, i);
+
+            // The node is added before its descriptors are scheduled, so that in a concurrent
+            // parse another thread that creates the same node at the same time adds its edge
+            // to this node instead.
+            if (arguments == null) {
+                gssNode = intGSSNodes.putIfAbsent(i, newNode);
+            } else {
+                gssNode = gssNodes.putIfAbsent(key, newNode);
+            }
+            if (gssNode != null) {
+                gssNode.addGSSEdge(input, returnSlot, i, u, result, env, runtime);
+                return;
+            }
+            gssNode = newNode;
 
 //            ParserLogger.getInstance().gssNodeAdded(gssNode, data);
 //            ParserLogger.getInstance().gssEdgeAdded(gssEdge);
@@ -207,34 +249,18 @@ public class NonterminalGrammarSlot implements GrammarSlot {
                     newEnv = runtime.getEmptyEnvironment().declare(nonterminal.getParameters(), data);
             }
 
-            Environment finalNewEnv = newEnv;
-            GSSNode finalGssNode = gssNode;
-            firstSlots.forEach(slot -> {
-                runtime.setEnvironment(finalNewEnv);
+            for (BodyGrammarSlot slot : firstSlots) {
+                runtime.setEnvironment(newEnv);
 
                 if (slot.getLabel() != null)
                     runtime.getEvaluatorContext().declareVariable(String.format(Expression.LeftExtent.format, slot.getLabel()), i);
 
-                int inputIndex = result.isDummy() ? finalGssNode.getInputIndex() : result.getIndex();
-                if (!slot.getConditions().execute(input, returnSlot, finalGssNode, inputIndex, runtime.getEvaluatorContext(), runtime))
-                    runtime.scheduleDescriptor(slot, finalGssNode, runtime.getResultOps().dummy(), runtime.getEnvironment());
-            });
-            if (arguments == null) {
-                intGSSNodes.put(i, gssNode);
-            } else {
-                gssNodes.put(key, gssNode);
+                int inputIndex = result.isDummy() ? gssNode.getInputIndex() : result.getIndex();
+                if (!slot.getConditions().execute(input, returnSlot, gssNode, inputIndex, runtime.getEvaluatorContext(), runtime))
+                    runtime.scheduleDescriptor(slot, gssNode, runtime.getResultOps().dummy(), runtime.getEnvironment());
             }
         } else {
             gssNode.addGSSEdge(input, returnSlot, i, u, result, env, runtime);
         }
     }
-
-    static <T> Stream<T> wrapperStream(Stream<T> stream) {
-        Iterator<T> iterator = stream.iterator();
-        if (iterator.hasNext()) {
-            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, 0), false);
-        } else {
-            return null;
-        }
-    }
 }
@@ -27,15 +27,17 @@
 
 package org.iguana.grammar.slot;
 
+import iguana.regex.matcher.GraphMatcher;
 import iguana.regex.matcher.Matcher;
 import iguana.regex.matcher.MatcherFactory;
 import iguana.utils.collections.IntHashMap;
-import iguana.utils.collections.OpenAddressingIntHashMap;
+import iguana.utils.input.AbstractCSRGraphInput;
 import iguana.utils.input.Input;
 import org.iguana.grammar.condition.Conditions;
 import org.iguana.grammar.symbol.Terminal;
 import org.iguana.gss.GSSNode;
 import org.iguana.parser.IguanaRuntime;
+import org.iguana.parser.ParseState;
 import org.iguana.result.Result;
 
 import java.util.ArrayList;
@@ -45,7 +47,7 @@ public class TerminalGrammarSlot implements GrammarSlot {
 	
 	private final Terminal terminal;
     private final Matcher matcher;
-	private IntHashMap<Object> terminalNodes;
+	private int id = -1;
     private final Conditions preConditions;
     private final Conditions postConditions;
 
@@ -60,9 +62,8 @@ public class TerminalGrammarSlot implements GrammarSlot {
     }
 
 	public <T extends Result> List<T> getResult(Input input, int i, BodyGrammarSlot slot, GSSNode<T> gssNode, IguanaRuntime<T> runtime) {
-	    if (terminalNodes == null) {
-	        terminalNodes = new OpenAddressingIntHashMap<>();
-        }
+		ParseState parseState = runtime.getParseState();
+		IntHashMap<Object> terminalNodes = parseState.getTerminalNodes(this);
 		Object nodes = terminalNodes.get(i);
 	    if (nodes == failure) {
 	        return null;
@@ -74,29 +75,65 @@ public class TerminalGrammarSlot implements GrammarSlot {
         }
 
 		if (nodes == null) {
-			List<Integer> endIndexes = matcher.match(input, i);
-
-			if (endIndexes.isEmpty()) {
-				nodes = null;
+			int labelId = parseState.getEdgeLabelId(this);
+			List<T> curNodes = labelId == ParseState.NO_EDGE_LABEL ? match(input, i, slot, gssNode, runtime)
+			                                                        : matchEdges(parseState.getGraph(), labelId, input, i, slot, gssNode, runtime);
+			if (curNodes == null) {
 				terminalNodes.put(i, failure);
-			} else {
-				final List<T> curNodes = new ArrayList<>();
-				for (Integer endIndex: endIndexes) {
-					if (postConditions.execute(input, slot, gssNode, i, endIndex, runtime)) {
-						terminalNodes.put(i, failure);
-						return null;
-					}
-					curNodes.add(runtime.getResultOps().base(this, i, endIndex));
-				}
-				nodes = curNodes;
-				terminalNodes.put(i, nodes);
+				return null;
 			}
+			// In a concurrent parse another thread may have matched at i in the meantime
+			Object existing = terminalNodes.putIfAbsent(i, curNodes);
+			nodes = existing == null ? curNodes : existing;
 		}
 		return (List<T>) nodes;
 	}
 
-	public int countTerminalNodes() {
-		return terminalNodes.size();
+	/**
+	 * Returns the results of the matches at i, or null if there are none or a post condition rejects one.
+	 */
+	private <T extends Result> List<T> match(Input input, int i, BodyGrammarSlot slot, GSSNode<T> gssNode, IguanaRuntime<T> runtime) {
+		final List<T> curNodes = new ArrayList<>();
+		final boolean[] rejected = {false};
+		matcher.forEachMatch(input, i, endIndex -> {
+			if (rejected[0]) {
+				return;
+			}
+			if (postConditions.execute(input, slot, gssNode, i, endIndex, runtime)) {
+				rejected[0] = true;
+				return;
+			}
+			curNodes.add(runtime.getResultOps().base(this, i, endIndex));
+		});
+		return rejected[0] || curNodes.isEmpty() ? null : curNodes;
+	}
+
+	/**
+	 * Like {@link #match}, but reads the edges with the label of this terminal that leave vertex i
+	 * directly from the CSR graph.
+	 */
+	private <T extends Result> List<T> matchEdges(AbstractCSRGraphInput graph, int labelId, Input input, int i, BodyGrammarSlot slot, GSSNode<T> gssNode, IguanaRuntime<T> runtime) {
+		int degree = labelId == -1 ? 0 : graph.getOutDegree(i, labelId);
+		if (degree == 0) {
+			return null;
+		}
+		List<T> curNodes = new ArrayList<>(degree);
+		for (int k = 0; k < degree; k++) {
+			int endIndex = graph.getTarget(i, labelId, k);
+			if (postConditions.execute(input, slot, gssNode, i, endIndex, runtime)) {
+				return null;
+			}
+			curNodes.add(runtime.getResultOps().base(this, i, endIndex));
+		}
+		return curNodes;
+	}
+
+	/**
+	 * Returns the edge label this terminal matches, or null if it is not matched against the
+	 * labels of graph edges.
+	 */
+	public String getEdgeLabel() {
+		return matcher instanceof GraphMatcher ? ((GraphMatcher) matcher).getLabel() : null;
 	}
 
     public Terminal getTerminal() {
@@ -108,9 +145,14 @@ public class TerminalGrammarSlot implements GrammarSlot {
 		return terminal.toString();
 	}
 
-    @Override
-	public void reset() {
-		terminalNodes = null;
+	@Override
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public void setId(int id) {
+		this.id = id;
 	}
 
 }
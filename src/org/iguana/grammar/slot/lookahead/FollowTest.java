@@ -1,7 +1,9 @@
 package org.iguana.grammar.slot.lookahead;
 
+import java.util.function.IntPredicate;
+
 @FunctionalInterface
-public interface FollowTest {
+public interface FollowTest extends IntPredicate {
 	boolean test(int v);
 	
 	FollowTest DEFAULT = i -> true;
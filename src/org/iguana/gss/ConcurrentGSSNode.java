@@ -0,0 +1,84 @@
+package org.iguana.gss;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.env.Environment;
+import org.iguana.grammar.slot.BodyGrammarSlot;
+import org.iguana.grammar.slot.EndGrammarSlot;
+import org.iguana.grammar.slot.NonterminalGrammarSlot;
+import org.iguana.parser.IguanaRuntime;
+import org.iguana.result.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A GSS node that can be shared by the worker threads of a concurrent parse. Edges and popped
+ * elements are added while holding the node's lock, together with a snapshot of the popped
+ * elements or edges added before. The snapshot is processed after releasing the lock, so every
+ * pair of an edge and a popped element is processed exactly once, by the thread that added the
+ * later of the two.
+ */
+public class ConcurrentGSSNode<T extends Result> extends DefaultGSSNode<T> {
+
+	public ConcurrentGSSNode(GSSEdge<T> firstGSSEdge, int inputIndex) {
+		super(firstGSSEdge, inputIndex);
+	}
+
+	public ConcurrentGSSNode(NonterminalGrammarSlot slot, int inputIndex) {
+		super(slot, inputIndex);
+	}
+
+	@Override
+	public void addGSSEdge(Input input, BodyGrammarSlot returnSlot, int i, GSSNode<T> destination, T w, Environment env, IguanaRuntime<T> runtime) {
+		GSSEdge<T> edge;
+		List<T> poppedElements = new ArrayList<>();
+		synchronized (this) {
+			edge = addGSSEdge(returnSlot, destination, w, env, runtime);
+			getPoppedElements().forEach(poppedElements::add);
+		}
+
+		for (T poppedElement : poppedElements) {
+			processPoppedElement(poppedElement, edge, returnSlot, destination, input, env, runtime);
+		}
+	}
+
+	@Override
+	public boolean pop(Input input, EndGrammarSlot slot, T result, Object value, IguanaRuntime<T> runtime) {
+		T node;
+		List<GSSEdge<T>> edges = new ArrayList<>();
+		List<BodyGrammarSlot> returnSlots = new ArrayList<>();
+		boolean reachable;
+		synchronized (this) {
+			node = addPoppedElements(slot, result, value, runtime.getResultOps());
+			if (node == null) {
+				return false;
+			}
+			reachable = isStart() && isFirstResult(node);
+
+			if (firstGSSEdge instanceof CyclicDummyGSSEdges<?>) {
+				for (BodyGrammarSlot returnSlot : ((CyclicDummyGSSEdges<T>) firstGSSEdge).getReturnSlots()) {
+					edges.add(firstGSSEdge);
+					returnSlots.add(returnSlot);
+				}
+			} else if (firstGSSEdge != null) {
+				edges.add(firstGSSEdge);
+				returnSlots.add(firstGSSEdge.getReturnSlot());
+			}
+
+			if (restGSSEdges != null) {
+				for (GSSEdge<T> edge : restGSSEdges) {
+					edges.add(edge);
+					returnSlots.add(edge.getReturnSlot());
+				}
+			}
+		}
+
+		if (reachable) {
+			runtime.startGSSNodePopped(this, node);
+		}
+		for (int i = 0; i < edges.size(); i++) {
+			processEdge(input, node, edges.get(i), returnSlots.get(i), runtime);
+		}
+		return true;
+	}
+}
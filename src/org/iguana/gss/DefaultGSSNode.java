@@ -27,11 +27,6 @@
 
 package org.iguana.gss;
 
-import iguana.utils.collections.IntHashMap;
-import iguana.utils.collections.Keys;
-import iguana.utils.collections.OpenAddressingHashMap;
-import iguana.utils.collections.OpenAddressingIntHashMap;
-import iguana.utils.collections.key.Key;
 import iguana.utils.input.Input;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.datadependent.env.EnvironmentPool;
@@ -42,43 +37,59 @@ import org.iguana.result.ResultOps;
 import org.iguana.util.ParserLogger;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * If there is a cyclic GSSEdge, it's always the first one. If there is a cyclic GSS edge, there is always
  * a second GSS edge which is stored in restGSSEdges.
+ *
+ * The popped elements are stored once, in the order they are added, in an array that is allocated
+ * by the first pop. Nodes with a few popped elements find them by a linear scan; larger ones index
+ * the array by an open-addressing table of positions, keyed by the right extent.
  */
 public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 
 	private final int inputIndex;
 	private final NonterminalGrammarSlot slot;
 
-	private GSSEdge<T> firstGSSEdge;
+	protected GSSEdge<T> firstGSSEdge;
+
+	protected List<GSSEdge<T>> restGSSEdges;
 
-	private List<GSSEdge<T>> restGSSEdges;
+	// The number of popped elements that are found by a linear scan
+	private static final int LINEAR_SCAN_LIMIT = 8;
 
-	private T firstPoppedElement;
+	private T[] poppedElements;
 
-	private Map<Key, T> restPoppedElements;
+	private int poppedElementsCount;
 
-	private final IntHashMap<T> poppedElements;
+	// The positions + 1 of the popped elements by their right extent, or 0 for an empty entry
+	private int[] poppedElementsIndex;
+
+	// Whether a popped element has a value, so that several can have the same right extent
+	private boolean hasValues;
 
 	public DefaultGSSNode(GSSEdge<T> firstGSSEdge, int inputIndex) {
 	    this.firstGSSEdge = firstGSSEdge;
 	    this.inputIndex = inputIndex;
-		poppedElements = new OpenAddressingIntHashMap<>();
 		slot = null;
 	}
 
 	public DefaultGSSNode(NonterminalGrammarSlot slot, int inputIndex) {
 		this.slot = slot;
 		this.inputIndex = inputIndex;
-		poppedElements = new OpenAddressingIntHashMap<>();
 	}
 
     @Override
 	public void addGSSEdge(Input input, BodyGrammarSlot returnSlot, int i, GSSNode<T> destination, T w, Environment env, IguanaRuntime<T> runtime) {
+		GSSEdge<T> edge = addGSSEdge(returnSlot, destination, w, env, runtime);
+		iterateOverPoppedElements(edge, returnSlot, destination, input, env, runtime);
+	}
+
+	/**
+	 * Adds an edge to the destination and returns it. All the return slots of a direct cycle share
+	 * the first edge.
+	 */
+	protected GSSEdge<T> addGSSEdge(BodyGrammarSlot returnSlot, GSSNode<T> destination, T w, Environment env, IguanaRuntime<T> runtime) {
 		if (this == destination && w.isDummy()) {
 			if (!(firstGSSEdge instanceof CyclicDummyGSSEdges<?>)) {
 				addGSSEdge(firstGSSEdge);
@@ -86,12 +97,12 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 			}
 			// ParserLogger.getInstance().gssEdgeAdded(firstGSSEdge);
 			((CyclicDummyGSSEdges<T>) firstGSSEdge).addReturnSlot(returnSlot);
-			iterateOverPoppedElements(firstGSSEdge, returnSlot, destination, input, env, runtime);
+			return firstGSSEdge;
 		} else {
 			GSSEdge<T> edge = runtime.createGSSEdge(returnSlot, w, destination, env);
 			// ParserLogger.getInstance().gssEdgeAdded(edge);
 			addGSSEdge(edge);
-			iterateOverPoppedElements(edge, returnSlot, destination, input, env, runtime);
+			return edge;
 		}
 	}
 
@@ -105,13 +116,9 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 	}
 
     private void iterateOverPoppedElements(GSSEdge<T> edge, BodyGrammarSlot returnSlot, GSSNode<T> destination, Input input, Environment env, IguanaRuntime<T> runtime) {
-        if (firstPoppedElement != null)
-            processPoppedElement(firstPoppedElement, edge, returnSlot, destination, input, env, runtime);
-
-        if (restPoppedElements != null) {
-            for (T poppedElement: restPoppedElements.values()) {
-                processPoppedElement(poppedElement, edge, returnSlot, destination, input, env, runtime);
-            }
+        int count = poppedElementsCount;
+        for (int i = 0; i < count; i++) {
+            processPoppedElement(poppedElements[i], edge, returnSlot, destination, input, env, runtime);
         }
     }
 
@@ -122,8 +129,11 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 	public boolean pop(Input input, EndGrammarSlot slot, T result, Object value, IguanaRuntime<T> runtime) {
 		// ParserLogger.getInstance().pop(this, result.getLeftExtent(), result, value);
 		T node = addPoppedElements(slot, result, value, runtime.getResultOps());
-		if (node != null)
+		if (node != null) {
+			if (isStart() && isFirstResult(node))
+				runtime.startGSSNodePopped(this, node);
 			iterateOverEdges(input, node, runtime);
+		}
 
 //		int index = result.getIndex();
 //		if (slot != null) {
@@ -142,56 +152,140 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 		return node != null;
 	}
 
+	/**
+	 * Start GSS nodes are created with their grammar slot, the others get it from their first edge.
+	 */
+	protected boolean isStart() {
+		return slot != null;
+	}
+
+	/**
+	 * Whether the popped element is the first one with its right extent, so that a start GSS node
+	 * reports a reachable vertex once even if popped elements differ in their values.
+	 */
+	protected boolean isFirstResult(T poppedElement) {
+		return !hasValues || findPoppedElement(poppedElement.getIndex(), null, false) == poppedElement;
+	}
+
 	public boolean hasResult(int i) {
-		return poppedElements.containsKey(i);
+		return getResult(i) != null;
 	}
 
+	/**
+	 * Returns the last added popped element with the given right extent, or null if there is none.
+	 * Popped elements only share a right extent if they differ in their values.
+	 */
 	public T getResult(int i) {
-		return poppedElements.get(i);
+		if (!hasValues) {
+			return findPoppedElement(i, null, false);
+		}
+
+		if (poppedElementsIndex == null) {
+			for (int j = poppedElementsCount - 1; j >= 0; j--) {
+				if (poppedElements[j].getIndex() == i) {
+					return poppedElements[j];
+				}
+			}
+			return null;
+		}
+
+		int mask = poppedElementsIndex.length - 1;
+		int j = hash(i) & mask;
+		int last = 0;
+		int position;
+		while ((position = poppedElementsIndex[j]) != 0) {
+			if (position > last && poppedElements[position - 1].getIndex() == i) {
+				last = position;
+			}
+			j = (j + 1) & mask;
+		}
+		return last == 0 ? null : poppedElements[last - 1];
 	}
 
 	/**
 	 * Returns the newly created popped element, or null if the node already exists
 	 */
-	private T addPoppedElements(EndGrammarSlot slot, T child, Object value, ResultOps<T> ops) {
-		// No node added yet
-		if (firstPoppedElement == null) {
-			firstPoppedElement = ops.convert(null, child, slot, value);
-			poppedElements.put(child.getIndex(), firstPoppedElement);
-			return firstPoppedElement;
-		} else {
-			int rightIndex = child.getIndex();
+	protected T addPoppedElements(EndGrammarSlot slot, T child, Object value, ResultOps<T> ops) {
+		T poppedElement = findPoppedElement(child.getIndex(), value, true);
+		if (poppedElement != null) {
+			ops.convert(poppedElement, child, slot, value);
+			return null;
+		}
 
-			// Only one node is added and there is an ambiguity
-			if (rightIndex == firstPoppedElement.getIndex() && Objects.equals(value, firstPoppedElement.getValue())) {
-				ops.convert(firstPoppedElement, child, slot, value);
-				return null;
-			} else {
-				Key key = value == null ? Keys.from(rightIndex) : Keys.from(rightIndex, value);
+		poppedElement = ops.convert(null, child, slot, value);
+		addPoppedElement(poppedElement);
+		if (value != null) {
+			hasValues = true;
+		}
+		return poppedElement;
+	}
 
-				if (restPoppedElements == null) {
-					restPoppedElements = new OpenAddressingHashMap<>();
-					T poppedElement = ops.convert(null, child, slot, value);
-					restPoppedElements.put(key, poppedElement);
-					poppedElements.put(rightIndex, poppedElement);
+	private T findPoppedElement(int index, Object value, boolean matchValue) {
+		if (poppedElementsIndex == null) {
+			for (int i = 0; i < poppedElementsCount; i++) {
+				T poppedElement = poppedElements[i];
+				if (poppedElement.getIndex() == index && (!matchValue || Objects.equals(value, poppedElement.getValue()))) {
 					return poppedElement;
 				}
+			}
+			return null;
+		}
 
-				T poppedElement = restPoppedElements.get(key);
-				if (poppedElement == null) {
-					poppedElement = ops.convert(null, child, slot, value);
-					poppedElements.put(rightIndex, poppedElement);
-					restPoppedElements.put(key, poppedElement);
-					return poppedElement;
-				}
+		int mask = poppedElementsIndex.length - 1;
+		int j = hash(index) & mask;
+		int position;
+		while ((position = poppedElementsIndex[j]) != 0) {
+			T poppedElement = poppedElements[position - 1];
+			if (poppedElement.getIndex() == index && (!matchValue || Objects.equals(value, poppedElement.getValue()))) {
+				return poppedElement;
+			}
+			j = (j + 1) & mask;
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addPoppedElement(T poppedElement) {
+		if (poppedElements == null) {
+			poppedElements = (T[]) new Result[2];
+		} else if (poppedElementsCount == poppedElements.length) {
+			poppedElements = Arrays.copyOf(poppedElements, poppedElementsCount * 2);
+		}
+		poppedElements[poppedElementsCount++] = poppedElement;
 
-				ops.convert(poppedElement, child, slot, value);
-				return null;
+		if (poppedElementsIndex != null) {
+			if (poppedElementsCount * 2 > poppedElementsIndex.length) {
+				buildIndex(poppedElementsIndex.length * 2);
+			} else {
+				addToIndex(poppedElementsCount - 1);
 			}
+		} else if (poppedElementsCount > LINEAR_SCAN_LIMIT) {
+			buildIndex(Integer.highestOneBit(poppedElementsCount) * 4);
+		}
+	}
+
+	private void buildIndex(int capacity) {
+		poppedElementsIndex = new int[capacity];
+		for (int i = 0; i < poppedElementsCount; i++) {
+			addToIndex(i);
+		}
+	}
+
+	private void addToIndex(int position) {
+		int mask = poppedElementsIndex.length - 1;
+		int j = hash(poppedElements[position].getIndex()) & mask;
+		while (poppedElementsIndex[j] != 0) {
+			j = (j + 1) & mask;
 		}
+		poppedElementsIndex[j] = position + 1;
 	}
 
-	private void processPoppedElement(T poppedElement, GSSEdge<T> edge, BodyGrammarSlot returnSlot,
+	private static int hash(int index) {
+		int h = index * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	protected void processPoppedElement(T poppedElement, GSSEdge<T> edge, BodyGrammarSlot returnSlot,
 									  GSSNode<T> destination, Input input, Environment env, IguanaRuntime<T> runtime) {
 		//boolean anyMatchTestFollow = input.nextSymbols(poppedElement.getIndex())
 		//		.anyMatch(returnSlot::testFollow);
@@ -220,7 +314,7 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 		}
 	}
 
-	private void processEdge(Input input, T node, GSSEdge<T> edge, BodyGrammarSlot returnSlot, IguanaRuntime<T> runtime) {
+	protected void processEdge(Input input, T node, GSSEdge<T> edge, BodyGrammarSlot returnSlot, IguanaRuntime<T> runtime) {
 		//boolean anyMatchTestFollow = input.nextSymbols(node.getIndex())
 		//		.anyMatch(returnSlot::testFollow);
 		//if (!anyMatchTestFollow) return;
@@ -291,9 +385,23 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 	}
 
 	public int countPoppedElements() {
+		return poppedElementsCount;
+	}
+
+	/**
+	 * Returns the number of distinct right extents of the popped elements, which is smaller than
+	 * countPoppedElements() if popped elements differ only in their values.
+	 */
+	public int countResults() {
+		if (!hasValues) {
+			return poppedElementsCount;
+		}
 		int count = 0;
-		if (firstPoppedElement != null) count++;
-		if (restPoppedElements != null) count += restPoppedElements.size();
+		for (int i = 0; i < poppedElementsCount; i++) {
+			if (isFirstResult(poppedElements[i])) {
+				count++;
+			}
+		}
 		return count;
 	}
 
@@ -317,12 +425,10 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 	}
 
 	public Iterable<T> getPoppedElements() {
-		Stream.Builder<T> poppedElements = Stream.builder();
-		if (firstPoppedElement != null) poppedElements.add(firstPoppedElement);
-		if (restPoppedElements != null)
-			restPoppedElements.values().forEach(poppedElements::add);
-
-		return poppedElements.build()::iterator;
+		if (poppedElementsCount == 0) {
+			return Collections.emptyList();
+		}
+		return Arrays.asList(poppedElements).subList(0, poppedElementsCount);
 	}
 
 	public String toString() {
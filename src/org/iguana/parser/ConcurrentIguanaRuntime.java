@@ -0,0 +1,246 @@
+package org.iguana.parser;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.env.Environment;
+import org.iguana.grammar.GrammarGraph;
+import org.iguana.grammar.slot.BodyGrammarSlot;
+import org.iguana.grammar.slot.NonterminalGrammarSlot;
+import org.iguana.gss.ConcurrentGSSNode;
+import org.iguana.gss.GSSEdge;
+import org.iguana.gss.GSSNode;
+import org.iguana.result.Result;
+import org.iguana.result.ResultOps;
+import org.iguana.util.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a single parse on several threads that share one GSS and one set of result tables.
+ * Every descriptor is a task of a fork/join pool: a worker pushes the descriptors it creates
+ * onto its own deque and processes them in LIFO order, as the sequential runtime does, while
+ * idle workers steal the oldest descriptors of the others. The parse ends when the pool is
+ * quiescent.
+ *
+ * Unlike partitioning the start vertices, the workers share the GSS nodes and the results of
+ * the nonterminals, so each of them is computed once. Every worker has its own result ops,
+ * created by the given supplier, whose results must be interchangeable between the workers.
+ * The input must be safe for concurrent reads.
+ */
+public class ConcurrentIguanaRuntime<T extends Result> {
+
+    private final Configuration config;
+
+    private final Supplier<? extends ResultOps<T>> resultOps;
+
+    private final ForkJoinPool pool;
+
+    private ParseState parseState;
+
+    /**
+     * Creates a runtime that runs all its parses on a pool of its own.
+     */
+    public ConcurrentIguanaRuntime(Configuration config, Supplier<? extends ResultOps<T>> resultOps, int parallelism) {
+        this(config, resultOps, new ForkJoinPool(parallelism));
+    }
+
+    /**
+     * Creates a runtime that runs its parses on the given pool. A parse ends when the pool is
+     * quiescent, so parses that share a pool at the same time wait for each other.
+     */
+    public ConcurrentIguanaRuntime(Configuration config, Supplier<? extends ResultOps<T>> resultOps, ForkJoinPool pool) {
+        this.config = config;
+        this.resultOps = resultOps;
+        this.pool = pool;
+    }
+
+    public PairSet no_sppf_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global) {
+        return no_sppf_run(input, grammarGraph, map, global, input.getStartVertices().collect(Collectors.toList()));
+    }
+
+    public PairSet no_sppf_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices) {
+        List<ConcurrentGSSNode<T>> startGSSNodes = parse(input, grammarGraph, map, global, startVertices, null);
+
+        PairSet results = new PairSet();
+        for (ConcurrentGSSNode<T> startGSSNode : startGSSNodes) {
+            for (T poppedElement : startGSSNode.getPoppedElements()) {
+                results.add(startGSSNode.getInputIndex(), poppedElement.getIndex());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reports every reachable pair to the listener as soon as it is found. The listener is
+     * called from the worker threads and must be thread-safe.
+     */
+    public void no_sppf_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices, ReachabilityListener listener) {
+        parse(input, grammarGraph, map, global, startVertices, listener);
+    }
+
+    public Map<Pair, T> run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global) {
+        return run(input, grammarGraph, map, global, input.getStartVertices().collect(Collectors.toList()));
+    }
+
+    /**
+     * @return null if there are no reachable pairs, as {@link IguanaRuntime#run}
+     */
+    public Map<Pair, T> run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices) {
+        List<ConcurrentGSSNode<T>> startGSSNodes = parse(input, grammarGraph, map, global, startVertices, null);
+
+        Map<Pair, T> results = new HashMap<>();
+        for (ConcurrentGSSNode<T> startGSSNode : startGSSNodes) {
+            input.getFinalVertices().forEach(v -> {
+                T result = startGSSNode.getResult(v);
+                if (result != null) {
+                    results.put(new Pair(startGSSNode.getInputIndex(), v), result);
+                }
+            });
+        }
+        return results.isEmpty() ? null : results;
+    }
+
+    /**
+     * The GSS and result tables of the last parse, which are kept after the parse.
+     */
+    public ParseState getParseState() {
+        return parseState;
+    }
+
+    private List<ConcurrentGSSNode<T>> parse(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices, ReachabilityListener listener) {
+        parseState = new ParseState(grammarGraph, config, input, true);
+        NonterminalGrammarSlot startSymbol = grammarGraph.getStartSlot();
+
+        List<ConcurrentGSSNode<T>> startGSSNodes = new ArrayList<>();
+        for (Integer node : startVertices) {
+            ConcurrentGSSNode<T> startGSSNode = new ConcurrentGSSNode<>(startSymbol, node);
+            startGSSNodes.add(startGSSNode);
+            parseState.<T>getIntGSSNodes(startSymbol).put(node, startGSSNode);
+        }
+
+        SharedParse<T> parse = new SharedParse<>(input, parseState, pool, listener, config, resultOps, map, global);
+        // The root task returns once no worker has descriptors left
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                Worker<T> worker = parse.workers.get();
+                for (BodyGrammarSlot slot : startSymbol.getFirstSlots()) {
+                    for (ConcurrentGSSNode<T> startGSSNode : startGSSNodes) {
+                        worker.scheduleDescriptor(slot, startGSSNode, worker.getResultOps().dummy(), worker.getEmptyEnvironment());
+                    }
+                }
+                helpQuiesce();
+            }
+        });
+
+        Throwable error = parse.error.get();
+        if (error != null) {
+            throw error instanceof RuntimeException ? (RuntimeException) error : new RuntimeException(error);
+        }
+        return startGSSNodes;
+    }
+
+    /**
+     * The state shared by the workers of a parse. The descriptors are forked and never joined,
+     * so the first exception thrown by a descriptor is kept here and rethrown after the parse.
+     */
+    private static class SharedParse<T extends Result> {
+        final Input input;
+        final ForkJoinPool pool;
+        final ReachabilityListener listener;
+        final ThreadLocal<Worker<T>> workers;
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        // Set when the listener is done; the remaining descriptors are then skipped
+        volatile boolean stopped;
+
+        SharedParse(Input input, ParseState parseState, ForkJoinPool pool, ReachabilityListener listener, Configuration config, Supplier<? extends ResultOps<T>> resultOps, Map<String, Object> map, boolean global) {
+            this.input = input;
+            this.pool = pool;
+            this.listener = listener;
+            this.workers = ThreadLocal.withInitial(() -> {
+                Worker<T> worker = new Worker<>(config, resultOps.get(), this);
+                worker.join(input, parseState);
+                if (global)
+                    map.forEach(worker.getEvaluatorContext()::declareGlobalVariable);
+                return worker;
+            });
+        }
+    }
+
+    /**
+     * The runtime of a worker thread. It has its own evaluator context, but creates shared GSS
+     * nodes and forks the descriptors it schedules, so it has no descriptor scheduler.
+     */
+    private static class Worker<T extends Result> extends IguanaRuntime<T> {
+
+        private final SharedParse<T> parse;
+
+        Worker(Configuration config, ResultOps<T> resultOps, SharedParse<T> parse) {
+            super(config, resultOps, null);
+            this.parse = parse;
+        }
+
+        @Override
+        public GSSNode<T> createGSSNode(GSSEdge<T> firstGSSEdge, int inputIndex) {
+            return new ConcurrentGSSNode<>(firstGSSEdge, inputIndex);
+        }
+
+        @Override
+        public void startGSSNodePopped(GSSNode<T> startGSSNode, T poppedElement) {
+            if (parse.listener != null) {
+                parse.listener.reachable(startGSSNode.getInputIndex(), poppedElement.getIndex());
+                if (parse.listener.isDone()) {
+                    parse.stopped = true;
+                }
+            }
+        }
+
+        @Override
+        public void scheduleDescriptor(BodyGrammarSlot grammarSlot, GSSNode<T> gssNode, T result, Environment env) {
+            DescriptorTask<T> task = new DescriptorTask<>(grammarSlot, gssNode, result, env, parse);
+            // fork() would submit to the common pool if called outside the workers
+            if (ForkJoinTask.getPool() == parse.pool) {
+                task.fork();
+            } else {
+                parse.pool.execute(task);
+            }
+        }
+    }
+
+    private static class DescriptorTask<T extends Result> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BodyGrammarSlot slot;
+        private final GSSNode<T> gssNode;
+        private final T result;
+        private final Environment env;
+        private final SharedParse<T> parse;
+
+        DescriptorTask(BodyGrammarSlot slot, GSSNode<T> gssNode, T result, Environment env, SharedParse<T> parse) {
+            this.slot = slot;
+            this.gssNode = gssNode;
+            this.result = result;
+            this.env = env;
+            this.parse = parse;
+        }
+
+        @Override
+        protected void compute() {
+            if (parse.stopped || parse.error.get() != null) return;
+            try {
+                slot.execute(parse.input, gssNode, result, env, parse.workers.get());
+            } catch (Throwable e) {
+                parse.error.compareAndSet(null, e);
+            }
+        }
+    }
+}
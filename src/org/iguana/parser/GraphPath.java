@@ -0,0 +1,92 @@
+package org.iguana.parser;
+
+import java.util.Arrays;
+
+/**
+ * A path in a graph input: the vertices v0, ..., vn and the labels of the edges vi -> vi+1.
+ * A path without edges consists of a single vertex.
+ */
+public class GraphPath {
+
+    private final int[] vertices;
+
+    private final String[] labels;
+
+    private GraphPath(int[] vertices, String[] labels) {
+        this.vertices = vertices;
+        this.labels = labels;
+    }
+
+    public static GraphPath empty(int vertex) {
+        return new GraphPath(new int[]{vertex}, new String[0]);
+    }
+
+    public static GraphPath edge(int source, String label, int target) {
+        return new GraphPath(new int[]{source, target}, new String[]{label});
+    }
+
+    /**
+     * Returns this path followed by the other path, which should start at the target of this path.
+     */
+    public GraphPath concat(GraphPath other) {
+        if (other.getSource() != getTarget()) {
+            throw new IllegalArgumentException("The path " + other + " does not start at the target of " + this);
+        }
+        if (other.length() == 0) return this;
+        if (length() == 0) return other;
+
+        int[] vertices = Arrays.copyOf(this.vertices, this.vertices.length + other.labels.length);
+        System.arraycopy(other.vertices, 1, vertices, this.vertices.length, other.labels.length);
+        String[] labels = Arrays.copyOf(this.labels, this.labels.length + other.labels.length);
+        System.arraycopy(other.labels, 0, labels, this.labels.length, other.labels.length);
+        return new GraphPath(vertices, labels);
+    }
+
+    public int getSource() {
+        return vertices[0];
+    }
+
+    public int getTarget() {
+        return vertices[vertices.length - 1];
+    }
+
+    /**
+     * The number of edges.
+     */
+    public int length() {
+        return labels.length;
+    }
+
+    public int getVertex(int i) {
+        return vertices[i];
+    }
+
+    /**
+     * Returns the label of the edge from vertex i to vertex i + 1.
+     */
+    public String getLabel(int i) {
+        return labels[i];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof GraphPath)) return false;
+        GraphPath other = (GraphPath) obj;
+        return Arrays.equals(vertices, other.vertices) && Arrays.equals(labels, other.labels);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(vertices) + Arrays.hashCode(labels);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(vertices[0]);
+        for (int i = 0; i < labels.length; i++) {
+            sb.append(" -").append(labels[i]).append("-> ").append(vertices[i + 1]);
+        }
+        return sb.toString();
+    }
+}
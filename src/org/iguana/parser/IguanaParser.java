@@ -27,27 +27,66 @@
 
 package org.iguana.parser;
 
+import iguana.utils.input.AbstractCSRGraphInput;
 import iguana.utils.input.GraphInput;
 import iguana.utils.input.Input;
+import iguana.utils.input.PrunedGraph;
 import org.iguana.grammar.Grammar;
 import org.iguana.grammar.GrammarGraph;
 import org.iguana.grammar.GrammarGraphBuilder;
+import org.iguana.parser.descriptor.DescriptorSchedulerStatistics;
+import org.iguana.parser.matrix.MatrixReachability;
 import org.iguana.parsetree.DefaultParseTreeBuilder;
 import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.result.CompactResult;
+import org.iguana.result.CompactResultOps;
+import org.iguana.result.CompactSPPFView;
 import org.iguana.result.ParserResultOps;
+import org.iguana.result.RecognizerResultOps;
+import org.iguana.sppf.NonPackedNode;
 import org.iguana.sppf.NonterminalNode;
 import org.iguana.traversal.AmbiguousSPPFToParseTreeVisitor;
 import org.iguana.traversal.DefaultSPPFToParseTreeVisitor;
+import org.iguana.traversal.SPPFPathCounter;
+import org.iguana.traversal.SPPFPathEnumerator;
+import org.iguana.traversal.SPPFShortestPaths;
 import org.iguana.util.Configuration;
+import org.iguana.util.Configuration.ReachabilityBackend;
 import org.iguana.util.Tuple;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class IguanaParser {
 
+    // The number of partitions of the start vertices per thread in parallel runs, for load balancing
+    private static final int PARTITIONS_PER_THREAD = 4;
+
     private final GrammarGraph grammarGraph;
-    private final IguanaRuntime runtime;
+
+    private final Configuration config;
+
+    // The grammar graph is immutable during parsing, so each thread only needs its own runtime
+    private final ThreadLocal<IguanaRuntime<NonPackedNode>> runtime;
+
+    // Computes the reachabilities without building an SPPF, unless the grammar binds results
+    private final ThreadLocal<? extends IguanaRuntime<?>> reachabilityRuntime;
+
+    // Computes the reachabilities instead of a GLL parse if the matrix backend is configured
+    private final MatrixReachability matrixReachability;
+
+    // The pool of the parallel parses, created on first use and replaced if the parallelism
+    // changes. Its threads are daemon threads that end when the pool is idle.
+    private ForkJoinPool pool;
 
     public IguanaParser(Grammar grammar) {
         this(grammar, Configuration.load());
@@ -55,7 +94,14 @@ public class IguanaParser {
 
     public IguanaParser(Grammar grammar, Configuration config) {
         this.grammarGraph = GrammarGraphBuilder.from(grammar, config);
-        this.runtime = new IguanaRuntime<>(config, new ParserResultOps());
+        this.config = config;
+        this.runtime = ThreadLocal.withInitial(() -> new IguanaRuntime<>(config, new ParserResultOps()));
+        if (grammarGraph.hasBindings()) {
+            this.reachabilityRuntime = runtime;
+        } else {
+            this.reachabilityRuntime = ThreadLocal.withInitial(() -> new IguanaRuntime<>(config, new RecognizerResultOps()));
+        }
+        this.matrixReachability = config.getReachabilityBackend() == ReachabilityBackend.MATRIX ? new MatrixReachability(grammar) : null;
     }
 
     public Map<Pair, NonterminalNode> getSPPF(Input input) {
@@ -63,11 +109,287 @@ public class IguanaParser {
     }
 
     public Map<Pair, NonterminalNode> getSPPF(Input input, ParseOptions options) {
-        return (Map<Pair, NonterminalNode>) runtime.run(input, grammarGraph, options.getMap(), options.isGlobal());
+        Map<Pair, NonPackedNode> roots = runtime.get().run(input, grammarGraph, options.getMap(), options.isGlobal());
+        if (roots == null) {
+            return null;
+        }
+        // The results of the start symbol are nonterminal nodes
+        Map<Pair, NonterminalNode> result = new HashMap<>();
+        roots.forEach((pair, root) -> result.put(pair, (NonterminalNode) root));
+        return result;
+    }
+
+    /**
+     * Parses the input into a {@link CompactResultOps} forest, which stores the SPPF in primitive
+     * arrays, and returns a read-only view of it whose roots are as in
+     * {@link #getSPPF(Input, ParseOptions)}.
+     *
+     * @return null if there are no results
+     */
+    public CompactSPPFView getCompactSPPF(Input input, ParseOptions options) {
+        CompactResultOps forest = new CompactResultOps(grammarGraph);
+        Map<Pair, CompactResult> roots = new IguanaRuntime<>(config, forest).run(input, grammarGraph, options.getMap(), options.isGlobal());
+        return roots == null ? null : forest.getView(roots);
     }
 
     public Stream<Pair> getPairs(Input input, ParseOptions options) {
-        return runtime.no_sppf_run(input, grammarGraph, options.getMap(), options.isGlobal());
+        return toStream(getReachabilitySet(input, options));
+    }
+
+    /**
+     * Computes the reachabilities as a compact set of pairs, which may be empty. With the matrix
+     * backend, the input should be a CSR graph.
+     */
+    public PairSet getReachabilitySet(Input input, ParseOptions options) {
+        return runPruned(input, options, graph -> matrixReachability != null ?
+                matrixReachability.getReachabilitySet(toCSRGraph(graph), 1) :
+                reachabilityRuntime.get().no_sppf_run(graph, grammarGraph, options.getMap(), options.isGlobal()),
+                IguanaParser::toOriginalPairs);
+    }
+
+    /**
+     * Counts the reachable targets of each start vertex without materializing the pairs, for
+     * queries that only need the number of pairs or the out-degrees of the relation.
+     */
+    public ReachabilityCounts countReachabilities(Input input, ParseOptions options) {
+        return runPruned(input, options, graph -> matrixReachability != null ?
+                matrixReachability.countReachabilities(toCSRGraph(graph), 1) :
+                reachabilityRuntime.get().count_run(graph, grammarGraph, options.getMap(), options.isGlobal()),
+                IguanaParser::toOriginalCounts);
+    }
+
+    /**
+     * Reports every reachable pair to the listener as soon as it is found, without collecting
+     * the pairs. The parse waits while the listener runs.
+     */
+    public void getReachabilities(Input input, ParseOptions options, ReachabilityListener listener) {
+        runListener(input, options, input.getStartVertices().collect(Collectors.toList()), listener);
+    }
+
+    /**
+     * Returns which of the given pairs are reachable. Only the sources of the pairs are parsed
+     * from, and the parse stops as soon as all the pairs are found.
+     */
+    public Set<Pair> getReachablePairs(Input input, ParseOptions options, Collection<Pair> pairs) {
+        ReachabilityQuery query = new ReachabilityQuery(pairs);
+        runListener(input, options, query.getSources(), query);
+        return query.getFound();
+    }
+
+    /**
+     * Returns which of the given targets are reachable from the source. The parse stops as soon
+     * as all the targets are found.
+     */
+    public Set<Integer> getReachableTargets(Input input, ParseOptions options, int source, Collection<Integer> targets) {
+        ReachabilityQuery query = ReachabilityQuery.of(source, targets);
+        runListener(input, options, query.getSources(), query);
+        return query.getFound().stream().map(pair -> pair.endVertex).collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns whether the target is reachable from the source. The parse stops as soon as the
+     * target is found.
+     */
+    public boolean isReachable(Input input, ParseOptions options, int source, int target) {
+        return !getReachablePairs(input, options, Collections.singletonList(new Pair(source, target))).isEmpty();
+    }
+
+    /**
+     * Returns a publisher of the reachable pairs with back-pressure. Each subscription runs its
+     * own parse on a new thread, which is suspended while the subscriber has no outstanding demand.
+     */
+    public Flow.Publisher<Pair> publishReachabilities(Input input, ParseOptions options) {
+        return publishReachabilities(input, options, task -> {
+            Thread thread = new Thread(task, "iguana-reachabilities");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Returns a publisher of the reachable pairs with back-pressure, whose parses run on the
+     * given executor. A parse blocks its thread while the subscriber has no outstanding demand.
+     */
+    public Flow.Publisher<Pair> publishReachabilities(Input input, ParseOptions options, Executor executor) {
+        return new ReachabilityPublisher(listener -> getReachabilities(input, options, listener), executor);
+    }
+
+    /**
+     * Computes the reachabilities using the given number of threads. The start vertices of the
+     * input are partitioned, each partition is parsed by a separate runtime, and the results are
+     * merged. The input should support concurrent reads.
+     *
+     * @return null if there are no reachable pairs, as {@link #getReachabilities(Input, ParseOptions)}
+     */
+    public Stream<Pair> getReachabilities(Input input, ParseOptions options, int parallelism) {
+        return toStream(getReachabilitySet(input, options, parallelism));
+    }
+
+    /**
+     * Computes the reachabilities as a compact set of pairs using the given number of threads,
+     * as {@link #getReachabilities(Input, ParseOptions, int)}.
+     */
+    public PairSet getReachabilitySet(Input input, ParseOptions options, int parallelism) {
+        if (matrixReachability != null) {
+            return runPruned(input, options, graph -> matrixReachability.getReachabilitySet(toCSRGraph(graph), parallelism),
+                    IguanaParser::toOriginalPairs);
+        }
+        return runPruned(input, options, graph -> runPartitioned(graph, parallelism,
+                partition -> reachabilityRuntime.get().no_sppf_run(graph, grammarGraph, options.getMap(), options.isGlobal(), partition),
+                PairSet::addAll, PairSet::new), IguanaParser::toOriginalPairs);
+    }
+
+    /**
+     * Counts the reachable targets of each start vertex using the given number of threads, as
+     * {@link #getReachabilitySet(Input, ParseOptions, int)}.
+     */
+    public ReachabilityCounts countReachabilities(Input input, ParseOptions options, int parallelism) {
+        if (matrixReachability != null) {
+            return runPruned(input, options, graph -> matrixReachability.countReachabilities(toCSRGraph(graph), parallelism),
+                    IguanaParser::toOriginalCounts);
+        }
+        return runPruned(input, options, graph -> runPartitioned(graph, parallelism,
+                partition -> reachabilityRuntime.get().count_run(graph, grammarGraph, options.getMap(), options.isGlobal(), partition),
+                ReachabilityCounts::merge, ReachabilityCounts::new), IguanaParser::toOriginalCounts);
+    }
+
+    /**
+     * Reduces a CSR graph to the edges with the labels of the grammar and the vertices incident
+     * to them. All vertices are kept if the start symbol derives the empty path.
+     *
+     * @return null if the input is not a CSR graph, or if the grammar has terminals that are not
+     * edge labels
+     */
+    public PrunedGraph prune(Input input) {
+        List<String> labels = grammarGraph.getTerminalLabels();
+        if (!(input instanceof AbstractCSRGraphInput) || labels == null) {
+            return null;
+        }
+        return PrunedGraph.prune((AbstractCSRGraphInput) input, labels, grammarGraph.getStartSlot().isNullable());
+    }
+
+    /**
+     * Runs the query on the pruned graph if the options ask for it and the input can be pruned,
+     * and maps its result back to the original vertices.
+     */
+    private <R> R runPruned(Input input, ParseOptions options, Function<Input, R> run, BiFunction<PrunedGraph, R, R> toOriginal) {
+        PrunedGraph pruned = options.pruneGraph() ? prune(input) : null;
+        if (pruned == null) {
+            return run.apply(input);
+        }
+        return toOriginal.apply(pruned, run.apply(pruned.getGraph()));
+    }
+
+    /**
+     * Parses from the given start vertices and reports the reachable pairs to the listener. If the
+     * options ask for it and the input can be pruned, the pruned graph is parsed from the start
+     * vertices that remain, and the pairs are reported with their original vertices.
+     */
+    private void runListener(Input input, ParseOptions options, List<Integer> startVertices, ReachabilityListener listener) {
+        PrunedGraph pruned = options.pruneGraph() ? prune(input) : null;
+        if (pruned == null) {
+            reachabilityRuntime.get().no_sppf_run(input, grammarGraph, options.getMap(), options.isGlobal(), startVertices, listener);
+            return;
+        }
+
+        List<Integer> prunedStartVertices = new ArrayList<>();
+        for (int v : startVertices) {
+            int prunedVertex = pruned.getPrunedVertex(v);
+            if (prunedVertex != -1) prunedStartVertices.add(prunedVertex);
+        }
+        reachabilityRuntime.get().no_sppf_run(pruned.getGraph(), grammarGraph, options.getMap(), options.isGlobal(), prunedStartVertices,
+                new ReachabilityListener() {
+                    @Override
+                    public void reachable(int source, int target) {
+                        listener.reachable(pruned.getOriginalVertex(source), pruned.getOriginalVertex(target));
+                    }
+
+                    @Override
+                    public boolean isDone() {
+                        return listener.isDone();
+                    }
+                });
+    }
+
+    private static AbstractCSRGraphInput toCSRGraph(Input input) {
+        if (!(input instanceof AbstractCSRGraphInput)) {
+            throw new IllegalArgumentException("The matrix backend requires a CSR graph input");
+        }
+        return (AbstractCSRGraphInput) input;
+    }
+
+    private static PairSet toOriginalPairs(PrunedGraph pruned, PairSet pairs) {
+        return pairs.mapVertices(pruned::getOriginalVertex);
+    }
+
+    private static ReachabilityCounts toOriginalCounts(PrunedGraph pruned, ReachabilityCounts counts) {
+        ReachabilityCounts result = counts.mapSources(pruned::getOriginalVertex);
+        for (int v : pruned.getRemovedStartVertices()) {
+            result.add(v, 0);
+        }
+        return result;
+    }
+
+    private <R> R runPartitioned(Input input, int parallelism, Function<List<Integer>, R> run, BinaryOperator<R> merge, Supplier<R> empty) {
+        List<Integer> startVertices = input.getStartVertices().collect(Collectors.toList());
+        int partitionCount = Math.max(1, Math.min(startVertices.size(), parallelism * PARTITIONS_PER_THREAD));
+        List<List<Integer>> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < startVertices.size(); i++) {
+            partitions.get(i % partitionCount).add(startVertices.get(i));
+        }
+
+        try {
+            return getPool(parallelism).submit(() -> partitions.parallelStream()
+                    .map(run)
+                    .reduce(merge)
+                    .orElseGet(empty)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private synchronized ForkJoinPool getPool(int parallelism) {
+        if (pool == null || pool.getParallelism() != parallelism) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Computes the reachabilities of a single parse that is run by the given number of threads,
+     * which share the GSS and steal descriptors from each other. In contrast to
+     * {@link #getReachabilities(Input, ParseOptions, int)}, nonterminals that are reachable from
+     * several start vertices are only parsed once. The input should support concurrent reads.
+     *
+     * @return null if there are no reachable pairs, as {@link #getReachabilities(Input, ParseOptions)}
+     */
+    public Stream<Pair> getSharedReachabilities(Input input, ParseOptions options, int parallelism) {
+        return toStream(getSharedReachabilitySet(input, options, parallelism));
+    }
+
+    public PairSet getSharedReachabilitySet(Input input, ParseOptions options, int parallelism) {
+        if (matrixReachability != null) {
+            return getReachabilitySet(input, options, parallelism);
+        }
+        return runPruned(input, options, graph -> newConcurrentRuntime(parallelism)
+                .no_sppf_run(graph, grammarGraph, options.getMap(), options.isGlobal()), IguanaParser::toOriginalPairs);
+    }
+
+    private ConcurrentIguanaRuntime<?> newConcurrentRuntime(int parallelism) {
+        if (grammarGraph.hasBindings()) {
+            return new ConcurrentIguanaRuntime<>(config, ParserResultOps::new, getPool(parallelism));
+        }
+        return new ConcurrentIguanaRuntime<>(config, RecognizerResultOps::new, getPool(parallelism));
+    }
+
+    private static Stream<Pair> toStream(PairSet pairs) {
+        return pairs.isEmpty() ? null : pairs.stream();
     }
 
     public ParseTreeNode getParserTree(Input input) {
@@ -93,7 +415,7 @@ public class IguanaParser {
         NonterminalNode root = new ArrayList<>(roots.entrySet()).get(0).getValue();
 
         if (options.ambiguous()) {
-            AmbiguousSPPFToParseTreeVisitor<ParseTreeNode> visitor = new AmbiguousSPPFToParseTreeVisitor<>(new DefaultParseTreeBuilder(input), options.ignoreLayout(), (ParserResultOps) runtime.getResultOps());
+            AmbiguousSPPFToParseTreeVisitor<ParseTreeNode> visitor = new AmbiguousSPPFToParseTreeVisitor<>(new DefaultParseTreeBuilder(input), options.ignoreLayout());
             return (ParseTreeNode) root.accept(visitor).getValues().get(0);
         }
 
@@ -112,7 +434,7 @@ public class IguanaParser {
 
         if (options.ambiguous()) {
             Map<Pair, ParseTreeNode> results = new HashMap<>();
-            AmbiguousSPPFToParseTreeVisitor<ParseTreeNode> visitor = new AmbiguousSPPFToParseTreeVisitor<>(new DefaultParseTreeBuilder(input), options.ignoreLayout(), (ParserResultOps) runtime.getResultOps());
+            AmbiguousSPPFToParseTreeVisitor<ParseTreeNode> visitor = new AmbiguousSPPFToParseTreeVisitor<>(new DefaultParseTreeBuilder(input), options.ignoreLayout());
             roots.forEach((key, value) -> results.put(key,
                     (ParseTreeNode) value.accept(visitor).getValues().get(0)));
             return results;
@@ -122,16 +444,130 @@ public class IguanaParser {
         return Collections.singletonMap(null, (ParseTreeNode) converter.convertNonterminalNode(firstRoot));
     }
 
+    /**
+     * Returns the distinct paths from the source to the target vertex whose labels the grammar
+     * derives, computed lazily from the SPPF of a parse from the source, so that the first paths
+     * are found without enumerating all derivations. The target should be a final vertex.
+     *
+     * @param maxLength the maximum number of edges of a path
+     * @param limit the maximum number of paths
+     * @see SPPFPathEnumerator
+     */
+    public Stream<GraphPath> getPaths(GraphInput input, ParseOptions options, int source, int target, int maxLength, int limit) {
+        return getPaths(input, options, source, target, maxLength, limit, SPPFPathEnumerator.DEFAULT_CYCLE_BOUND);
+    }
+
+    /**
+     * As {@link #getPaths(GraphInput, ParseOptions, int, int, int, int)}, where a derivation may
+     * pass through an SPPF node it is already deriving at most cycleBound times.
+     */
+    public Stream<GraphPath> getPaths(GraphInput input, ParseOptions options, int source, int target, int maxLength, int limit, int cycleBound) {
+        NonPackedNode root = getSPPFRoot(input, options, source, target);
+        if (root == null) {
+            return Stream.empty();
+        }
+        return new SPPFPathEnumerator(maxLength, cycleBound).stream(root).limit(limit);
+    }
+
+    /**
+     * Returns a shortest path of each reachable pair, computed from the minimum derivation
+     * lengths of the nodes of a single SPPF, or an empty map if there are no pairs.
+     *
+     * @see SPPFShortestPaths
+     */
+    public Map<Pair, GraphPath> getShortestPaths(GraphInput input, ParseOptions options) {
+        Map<Pair, NonterminalNode> roots = getSPPF(input, options);
+        if (roots == null) {
+            return Collections.emptyMap();
+        }
+        SPPFShortestPaths shortestPaths = new SPPFShortestPaths();
+        Map<Pair, GraphPath> paths = new HashMap<>();
+        roots.forEach((pair, root) -> paths.put(pair, shortestPaths.getShortestPath(root)));
+        return paths;
+    }
+
+    /**
+     * Returns at most k distinct paths from the source to the target vertex, from the shortest
+     * one, from a parse from the source only. The target should be a final vertex.
+     */
+    public List<GraphPath> getShortestPaths(GraphInput input, ParseOptions options, int source, int target, int k) {
+        return getShortestPaths(input, options, source, target, k, SPPFPathEnumerator.DEFAULT_CYCLE_BOUND);
+    }
+
+    /**
+     * As {@link #getShortestPaths(GraphInput, ParseOptions, int, int, int)}, where a derivation
+     * may pass through an SPPF node it is already deriving at most cycleBound times.
+     */
+    public List<GraphPath> getShortestPaths(GraphInput input, ParseOptions options, int source, int target, int k, int cycleBound) {
+        NonPackedNode root = getSPPFRoot(input, options, source, target);
+        if (root == null) {
+            return Collections.emptyList();
+        }
+        return new SPPFShortestPaths(cycleBound).getShortestPaths(root, k);
+    }
+
+    /**
+     * Returns, for each reachable pair, the number of derivations of the paths of at most
+     * maxLength edges, counted over a single SPPF without enumerating them. This is the number of
+     * distinct paths if the grammar is unambiguous. Counts saturate at Long.MAX_VALUE, which is
+     * also the count of a pair with infinitely many derivations.
+     *
+     * @see SPPFPathCounter
+     */
+    public Map<Pair, Long> countPaths(GraphInput input, ParseOptions options, int maxLength) {
+        return countPaths(input, options, maxLength, Long.MAX_VALUE);
+    }
+
+    /**
+     * As {@link #countPaths(GraphInput, ParseOptions, int)}, where the counts saturate at maxCount.
+     */
+    public Map<Pair, Long> countPaths(GraphInput input, ParseOptions options, int maxLength, long maxCount) {
+        Map<Pair, NonterminalNode> roots = getSPPF(input, options);
+        if (roots == null) {
+            return Collections.emptyMap();
+        }
+        SPPFPathCounter counter = new SPPFPathCounter(maxLength, maxCount);
+        Map<Pair, Long> counts = new HashMap<>();
+        roots.forEach((pair, root) -> counts.put(pair, counter.count(root)));
+        return counts;
+    }
+
+    /**
+     * Returns the SPPF node of the start symbol from the source to the target vertex, from a parse
+     * of the start symbol from the source only, or null if the target is not reachable.
+     */
+    private NonPackedNode getSPPFRoot(GraphInput input, ParseOptions options, int source, int target) {
+        Map<Pair, NonPackedNode> roots = runtime.get().run(input, grammarGraph, options.getMap(), options.isGlobal(),
+                Collections.singletonList(source));
+        return roots == null ? null : roots.get(new Pair(source, target));
+    }
+
     public GrammarGraph getGrammarGraph() {
         return grammarGraph;
     }
 
+    /**
+     * Returns the parse error of the last SPPF parse on the calling thread, as each thread parses
+     * with its own runtime. Parses on other threads do not change it.
+     */
     public ParseError getParseError() {
-        return runtime.getParseError();
+        return runtime.get().getParseError();
     }
 
+    /**
+     * Returns the statistics of the last SPPF parse on the calling thread, as
+     * {@link #getParseError()}.
+     */
     public ParseStatistics getStatistics() {
-        return (ParseStatistics) runtime.getStatistics();
+        return (ParseStatistics) runtime.get().getStatistics();
+    }
+
+    /**
+     * Returns the counters of the descriptor scheduler in the last reachability query on this
+     * thread, to compare the scheduling policies of the configuration.
+     */
+    public DescriptorSchedulerStatistics getSchedulerStatistics() {
+        return reachabilityRuntime.get().getSchedulerStatistics();
     }
 
 }
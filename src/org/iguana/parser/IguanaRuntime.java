@@ -12,7 +12,8 @@ import org.iguana.grammar.slot.GrammarSlot;
 import org.iguana.grammar.slot.NonterminalGrammarSlot;
 import org.iguana.grammar.slot.TerminalGrammarSlot;
 import org.iguana.gss.*;
-import org.iguana.parser.descriptor.Descriptor;
+import org.iguana.parser.descriptor.DescriptorScheduler;
+import org.iguana.parser.descriptor.DescriptorSchedulerStatistics;
 import org.iguana.result.ParserResultOps;
 import org.iguana.result.Result;
 import org.iguana.result.ResultOps;
@@ -23,7 +24,6 @@ import org.iguana.util.Tuple;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class IguanaRuntime<T extends Result> {
 
@@ -37,9 +37,9 @@ public class IguanaRuntime<T extends Result> {
      */
     private int errorIndex;
 
-    private final Deque<Descriptor<T>> descriptorPool;
+    private final DescriptorScheduler<T> descriptors;
 
-    private final Deque<Descriptor<T>> descriptorsStack;
+    private DescriptorSchedulerStatistics schedulerStatistics;
 
     private final IEvaluatorContext ctx;
 
@@ -53,81 +53,107 @@ public class IguanaRuntime<T extends Result> {
 
     private Input input;
 
+    private ParseState parseState;
+
+    private ReachabilityListener listener;
+
+    // Set when the listener is done, to stop the current parse before reaching a fixpoint
+    private boolean stopped;
+
     public IguanaRuntime(Configuration config, ResultOps<T> resultOps) {
+        this(config, resultOps, DescriptorScheduler.create(config.getDescriptorSchedulerType()));
+    }
+
+    /**
+     * @param descriptors the scheduler of the descriptors, or null for a runtime that overrides
+     *                    {@link #scheduleDescriptor} and never parses on its own
+     */
+    IguanaRuntime(Configuration config, ResultOps<T> resultOps, DescriptorScheduler<T> descriptors) {
         this.config = config;
         this.resultOps = resultOps;
-        this.descriptorsStack = new ArrayDeque<>(512);
-        this.descriptorPool = new ArrayDeque<>(512);
+        this.descriptors = descriptors;
         this.ctx = GLLEvaluator.getEvaluatorContext(config);
     }
 
     // SPPF found in `T result = startGSSNode.getResult(v);`
-    public Stream<Pair> no_sppf_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global) {
-        this.input = input;
+    public PairSet no_sppf_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global) {
+        return no_sppf_run(input, grammarGraph, map, global, input.getStartVertices().collect(Collectors.toList()));
+    }
 
-        IEvaluatorContext ctx = getEvaluatorContext();
+    public PairSet no_sppf_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices) {
+        List<DefaultGSSNode<T>> startGSSNodes = parse(input, grammarGraph, map, global, startVertices);
 
-        if (global)
-            map.forEach(ctx::declareGlobalVariable);
+        PairSet results = new PairSet();
+        for (DefaultGSSNode<T> startGSSNode : startGSSNodes) {
+            for (T poppedElement : startGSSNode.getPoppedElements()) {
+                results.add(startGSSNode.getInputIndex(), poppedElement.getIndex());
+            }
+        }
+        return results;
+    }
 
-        NonterminalGrammarSlot startSymbol = grammarGraph.getStartSlot();
+    public ReachabilityCounts count_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global) {
+        return count_run(input, grammarGraph, map, global, input.getStartVertices().collect(Collectors.toList()));
+    }
 
-        Environment env = ctx.getEmptyEnvironment();
+    /**
+     * Counts the targets reachable from each start vertex by the sizes of the popped-element
+     * tables of the start GSS nodes, without creating the pairs.
+     */
+    public ReachabilityCounts count_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices) {
+        List<DefaultGSSNode<T>> startGSSNodes = parse(input, grammarGraph, map, global, startVertices);
 
-        List<DefaultGSSNode<T>> startGSSNodes = new ArrayList<>();
-        for (Integer node : input.getStartVertices().collect(Collectors.toList())) {
-            startGSSNodes.add(new DefaultGSSNode<T>(startSymbol, node));
+        ReachabilityCounts counts = new ReachabilityCounts();
+        for (DefaultGSSNode<T> startGSSNode : startGSSNodes) {
+            counts.add(startGSSNode.getInputIndex(), startGSSNode.countResults());
         }
+        return counts;
+    }
 
-        startGSSNodes.forEach(node -> startSymbol.addStartGSSNode(node, node.getInputIndex()));
-
-        List<BodyGrammarSlot> t = startSymbol.getFirstSlots();
-        for (BodyGrammarSlot slot : t) {
-            for (DefaultGSSNode<T> startGSSNode: startGSSNodes) {
-                scheduleDescriptor(slot, startGSSNode, getResultOps().dummy(), env);
-            }
+    /**
+     * Reports every reachable pair to the listener as soon as it is found, instead of collecting
+     * the pairs after the parse. The parse waits while the listener runs.
+     */
+    public void no_sppf_run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices, ReachabilityListener listener) {
+        this.listener = listener;
+        try {
+            parse(input, grammarGraph, map, global, startVertices);
+        } finally {
+            this.listener = null;
         }
+    }
 
-        while (hasDescriptor()) {
-            Descriptor<T> descriptor = nextDescriptor();
-            descriptor.getGrammarSlot().execute(input, descriptor.getGSSNode(), descriptor.getResult(), descriptor.getEnv(), this);
-        }
+    public Map<Pair, T> run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global) {
+        return run(input, grammarGraph, map, global, input.getStartVertices().collect(Collectors.toList()));
+    }
 
-        grammarGraph.clear();
-        descriptorPool.clear();
-        descriptorsStack.clear();
+    public Map<Pair, T> run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices) {
+        List<DefaultGSSNode<T>> startGSSNodes = parse(input, grammarGraph, map, global, startVertices);
 
-        final boolean[] empty = {true};
-        Stream.Builder<Pair> results = Stream.builder();
+        Map<Pair, T> results = new HashMap<>();
         startGSSNodes.forEach(startGSSNode -> {
-            startGSSNode.getPoppedElements().forEach(v -> {
-                results.add(new Pair(startGSSNode.getInputIndex(), v.getIndex()));
-                empty[0] = false;
+            input.getFinalVertices().forEach(v -> {
+                T result = startGSSNode.getResult(v);
+                if (result != null) {
+                    results.put(new Pair(startGSSNode.getInputIndex(), v), result);
+                }
             });
-//        startGSSNodes.forEach(startGSSNode -> {
-//            input.getFinalVertices().forEach(v -> {
-//                if (startGSSNode.hasResult(v)) {
-//                    results.add(new Pair(startGSSNode.getInputIndex(), v));
-//                    empty[0] = false;
-//                }
-//            });
-//                    for (Integer v: input.getFinalVertices()) {
-//                T result = startGSSNode.getResult(v);
-//                if (result != null) {
-//                    results.put(new Pair(startGSSNode.getInputIndex(), v), result);
-//                }
-//            }
         });
-//        hasParseError = results.build().;
-        if (empty[0]) {
+        hasParseError = results.isEmpty();
+        if (hasParseError) {
             return null;
         }
-        //List<Pair> res = results.build().distinct().collect(Collectors.toList());
-        return results.build();
+
+        return results;
     }
 
-    public Map<Pair, Result> run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global) {
+    /**
+     * Runs the descriptor loop from the given start vertices to a fixpoint and returns the start
+     * GSS nodes, whose popped elements are the results.
+     */
+    private List<DefaultGSSNode<T>> parse(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global, List<Integer> startVertices) {
         this.input = input;
+        this.parseState = new ParseState(grammarGraph, config, input);
 
         IEvaluatorContext ctx = getEvaluatorContext();
 
@@ -139,11 +165,11 @@ public class IguanaRuntime<T extends Result> {
         Environment env = ctx.getEmptyEnvironment();
 
         List<DefaultGSSNode<T>> startGSSNodes = new ArrayList<>();
-        for (Integer node : input.getStartVertices().collect(Collectors.toList())) {
+        for (Integer node : startVertices) {
             startGSSNodes.add(new DefaultGSSNode<T>(startSymbol, node));
         }
 
-        startGSSNodes.forEach(node -> startSymbol.addStartGSSNode(node, node.getInputIndex()));
+        startGSSNodes.forEach(node -> parseState.<T>getIntGSSNodes(startSymbol).put(node.getInputIndex(), node));
 
 //        ParserLogger logger = ParserLogger.getInstance();
 //        logger.reset();
@@ -155,46 +181,34 @@ public class IguanaRuntime<T extends Result> {
             }
         }
 
-        while (hasDescriptor()) {
-            Descriptor<T> descriptor = nextDescriptor();
-            // logger.processDescriptor(descriptor);
-            descriptor.getGrammarSlot().execute(input, descriptor.getGSSNode(), descriptor.getResult(), descriptor.getEnv(), this);
+        try {
+            while (!stopped && hasDescriptor()) {
+                descriptors.next();
+                BodyGrammarSlot slot = grammarGraph.getBodySlot(descriptors.getGrammarSlotId());
+                slot.execute(input, descriptors.getGSSNode(), descriptors.getResult(), descriptors.getEnv(), this);
+            }
+        } finally {
+            parseState = null;
+            stopped = false;
+            schedulerStatistics = descriptors.getStatistics();
+            descriptors.clear();
+            resultOps.endParse();
         }
 
-        grammarGraph.clear();
-        descriptorPool.clear();
-        descriptorsStack.clear();
-
-        Map<Pair, Result> results = new HashMap<>();
+        return startGSSNodes;
+    }
 
-//        for (DefaultGSSNode<T> startGSSNode: startGSSNodes) {
-//            for (Integer v: input.getFinalVertices()) {
-//                T result = startGSSNode.getResult(v);
-//                if (result != null) {
-//                    results.put(new Pair(startGSSNode.getInputIndex(), v), result);
-//                }
-//            }
-//        }
-        startGSSNodes.forEach(startGSSNode -> {
-            input.getFinalVertices().forEach(v -> {
-                T result = startGSSNode.getResult(v);
-                if (result != null) {
-                    results.put(new Pair(startGSSNode.getInputIndex(), v), result);
-                }
-            });
-//                    for (Integer v: input.getFinalVertices()) {
-//                T result = startGSSNode.getResult(v);
-//                if (result != null) {
-//                    results.put(new Pair(startGSSNode.getInputIndex(), v), result);
-//                }
-//            }
-        });
-        hasParseError = results.isEmpty();
-        if (hasParseError) {
-            return null;
+    /**
+     * Called when a start GSS node gets a new popped element, i.e., when a new vertex becomes
+     * reachable from its vertex.
+     */
+    public void startGSSNodePopped(GSSNode<T> startGSSNode, T poppedElement) {
+        if (listener != null) {
+            listener.reachable(startGSSNode.getInputIndex(), poppedElement.getIndex());
+            if (listener.isDone()) {
+                stopped = true;
+            }
         }
-
-        return results;
     }
 
     /**
@@ -213,25 +227,11 @@ public class IguanaRuntime<T extends Result> {
     }
 
     public boolean hasDescriptor() {
-        return !descriptorsStack.isEmpty();
-    }
-
-    public Descriptor<T> nextDescriptor() {
-        Descriptor<T> descriptor = descriptorsStack.pop();
-        descriptorPool.push(descriptor);
-        return descriptor;
+        return descriptors.hasNext();
     }
 
     public void scheduleDescriptor(BodyGrammarSlot grammarSlot, GSSNode<T> gssNode, T result, Environment env) {
-        Descriptor<T> descriptor;
-        if (!descriptorPool.isEmpty()) {
-            descriptor = descriptorPool.pop();
-            descriptor.init(grammarSlot, gssNode, result, env);
-        } else {
-            descriptor = new Descriptor<>(grammarSlot, gssNode, result, env);
-        }
-        descriptorsStack.push(descriptor);
-       // logger.descriptorAdded(descriptor);
+        descriptors.schedule(grammarSlot.getId(), gssNode, result, env);
     }
 
     public IEvaluatorContext getEvaluatorContext() {
@@ -250,6 +250,10 @@ public class IguanaRuntime<T extends Result> {
         return ctx.getEmptyEnvironment();
     }
 
+    public GSSNode<T> createGSSNode(GSSEdge<T> firstGSSEdge, int inputIndex) {
+        return new DefaultGSSNode<>(firstGSSEdge, inputIndex);
+    }
+
     public GSSEdge<T> createGSSEdge(BodyGrammarSlot returnSlot, T result, GSSNode<T> gssNode, Environment env) {
         if (result.isDummy()) {
             if (env.isEmpty()) {
@@ -326,28 +330,53 @@ public class IguanaRuntime<T extends Result> {
 
     }
 
+    /**
+     * Returns the counters of the descriptor scheduler in the last parse.
+     */
+    public DescriptorSchedulerStatistics getSchedulerStatistics() {
+        return schedulerStatistics;
+    }
+
+    /**
+     * Returns the tables of the current parse.
+     */
+    public ParseState getParseState() {
+        return parseState;
+    }
+
+    /**
+     * Joins a parse started elsewhere, as one of the workers of a concurrent parse.
+     */
+    void join(Input input, ParseState parseState) {
+        this.input = input;
+        this.parseState = parseState;
+    }
+
     public Configuration getConfiguration() {
         return config;
     }
 
-    public int getDescriptorPoolSize() {
-        return descriptorPool.size();
+    /**
+     * Returns the number of scheduled descriptors that are not processed yet.
+     */
+    public int getPendingDescriptorCount() {
+        return descriptors.size();
     }
 
     public ResultOps<T> getResultOps() {
         return resultOps;
     }
 
-    private static void printStats(GrammarGraph grammarGraph) {
+    private static void printStats(GrammarGraph grammarGraph, ParseState parseState) {
         for (TerminalGrammarSlot slot : grammarGraph.getTerminalGrammarSlots()) {
-            System.out.println(slot.getTerminal().getName() + " : " + slot.countTerminalNodes());
+            System.out.println(slot.getTerminal().getName() + " : " + parseState.countTerminalNodes(slot));
         }
 
         for (NonterminalGrammarSlot slot : grammarGraph.getNonterminalGrammarSlots()) {
             System.out.print(slot.getNonterminal().getName());
-            System.out.println(" GSS nodes: " + slot.countGSSNodes());
-            double[] poppedElementStats = stats(slot.getGSSNodes(), GSSNode::countPoppedElements);
-            double[] gssEdgesStats = stats(slot.getGSSNodes(), GSSNode::countGSSEdges);
+            System.out.println(" GSS nodes: " + parseState.countGSSNodes(slot));
+            double[] poppedElementStats = stats(parseState.getAllGSSNodes(slot), GSSNode::countPoppedElements);
+            double[] gssEdgesStats = stats(parseState.getAllGSSNodes(slot), GSSNode::countGSSEdges);
             if (poppedElementStats == null)
                 System.out.println("Popped Elements: empty");
             else
@@ -361,11 +390,11 @@ public class IguanaRuntime<T extends Result> {
         }
     }
 
-    private static void printGSSInfo(GrammarGraph grammarGraph) {
+    private static void printGSSInfo(GrammarGraph grammarGraph, ParseState parseState) {
         Comparator<GSSNode<?>> edgeComparator = (node1, node2) -> node2.countGSSEdges() - node1.countGSSEdges();
         List<GSSNode<?>> gssNodes = new ArrayList<>();
         for (NonterminalGrammarSlot slot : grammarGraph.getNonterminalGrammarSlots()) {
-            for (GSSNode<?> gssNode : slot.getGSSNodes()) {
+            for (GSSNode<?> gssNode : parseState.getAllGSSNodes(slot)) {
                 gssNodes.add(gssNode);
             }
         }
@@ -377,7 +406,7 @@ public class IguanaRuntime<T extends Result> {
         }
     }
 
-    private static double[] stats(Iterable<GSSNode> gssNodes, Function<GSSNode, Integer> f) {
+    private static double[] stats(Iterable<GSSNode<?>> gssNodes, Function<GSSNode<?>, Integer> f) {
         if (!gssNodes.iterator().hasNext()) return null;
 
         int min = Integer.MAX_VALUE;
@@ -385,7 +414,7 @@ public class IguanaRuntime<T extends Result> {
         int sum = 0;
         int count = 0;
 
-        for (GSSNode gssNode : gssNodes) {
+        for (GSSNode<?> gssNode : gssNodes) {
             min = Integer.min(min, f.apply(gssNode));
             max = Integer.max(max, f.apply(gssNode));
             sum += f.apply(gssNode);
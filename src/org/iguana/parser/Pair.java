@@ -1,7 +1,5 @@
 package org.iguana.parser;
 
-import java.util.Objects;
-
 public class Pair {
     public int startVertex;
     public int endVertex;
@@ -26,6 +24,6 @@ public class Pair {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startVertex, endVertex);
+        return 31 * startVertex + endVertex;
     }
 }
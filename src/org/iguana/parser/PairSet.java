@@ -0,0 +1,245 @@
+package org.iguana.parser;
+
+import iguana.utils.collections.primitive.LongHashSet;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A set of (source, target) pairs of non-negative vertices, each packed in a long as
+ * source << 32 | target, so that large results take a slot of a {@link LongHashSet}, that is 11
+ * to 21 bytes per pair, instead of a Pair object and its boxed hash. A set holds at most as many
+ * pairs as a LongHashSet, about 805 million. The natural order of the packed longs orders the
+ * pairs by source and then by target.
+ */
+public class PairSet {
+
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(int source, int target);
+    }
+
+    @FunctionalInterface
+    public interface SourceConsumer {
+        void accept(int source, int[] targets);
+    }
+
+    private final LongHashSet pairs;
+
+    // The sorted pairs, computed on demand and invalidated by adding a pair
+    private long[] sorted;
+
+    public PairSet() {
+        this.pairs = new LongHashSet();
+    }
+
+    public PairSet(int expectedSize) {
+        this.pairs = new LongHashSet(expectedSize);
+    }
+
+    public static long pack(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    public static int source(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    public static int target(long pair) {
+        return (int) pair;
+    }
+
+    /**
+     * @return true if the pair was not in the set
+     */
+    public boolean add(int source, int target) {
+        if (pairs.add(pack(source, target))) {
+            sorted = null;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(int source, int target) {
+        return pairs.contains(pack(source, target));
+    }
+
+    public int size() {
+        return pairs.size();
+    }
+
+    public boolean isEmpty() {
+        return pairs.isEmpty();
+    }
+
+    /**
+     * Iterates over the pairs in no particular order.
+     */
+    public void forEach(PairConsumer consumer) {
+        pairs.forEach(pair -> consumer.accept(source(pair), target(pair)));
+    }
+
+    /**
+     * Iterates over the pairs ordered by source and then by target.
+     */
+    public void forEachSorted(PairConsumer consumer) {
+        for (long pair : sorted()) {
+            consumer.accept(source(pair), target(pair));
+        }
+    }
+
+    /**
+     * Iterates over the sources in increasing order, each with its sorted targets.
+     */
+    public void forEachSource(SourceConsumer consumer) {
+        long[] sorted = sorted();
+        int i = 0;
+        while (i < sorted.length) {
+            int source = source(sorted[i]);
+            int end = i;
+            while (end < sorted.length && source(sorted[end]) == source) end++;
+            consumer.accept(source, targets(sorted, i, end));
+            i = end;
+        }
+    }
+
+    /**
+     * Returns the sorted targets reachable from the given source.
+     */
+    public int[] getTargets(int source) {
+        long[] sorted = sorted();
+        int start = lowerBound(sorted, pack(source, 0));
+        int end = source == Integer.MAX_VALUE ? sorted.length : lowerBound(sorted, pack(source + 1, 0));
+        return targets(sorted, start, end);
+    }
+
+    public int countTargets(int source) {
+        long[] sorted = sorted();
+        int end = source == Integer.MAX_VALUE ? sorted.length : lowerBound(sorted, pack(source + 1, 0));
+        return end - lowerBound(sorted, pack(source, 0));
+    }
+
+    /**
+     * Returns the sources in increasing order.
+     */
+    public int[] getSources() {
+        long[] sorted = sorted();
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || source(sorted[i]) != source(sorted[i - 1])) count++;
+        }
+        int[] sources = new int[count];
+        count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || source(sorted[i]) != source(sorted[i - 1])) sources[count++] = source(sorted[i]);
+        }
+        return sources;
+    }
+
+    /**
+     * Adds the pairs of the other set to this set, e.g., to merge the results of partitions.
+     *
+     * @return this set
+     */
+    public PairSet addAll(PairSet other) {
+        int size = size();
+        other.pairs.forEach(pairs::add);
+        if (size() != size) {
+            sorted = null;
+        }
+        return this;
+    }
+
+    public PairSet union(PairSet other) {
+        PairSet result = new PairSet(size() + other.size());
+        pairs.forEach(result.pairs::add);
+        other.pairs.forEach(result.pairs::add);
+        return result;
+    }
+
+    public PairSet intersection(PairSet other) {
+        PairSet smaller = size() <= other.size() ? this : other;
+        PairSet larger = smaller == this ? other : this;
+        PairSet result = new PairSet();
+        smaller.pairs.forEach(pair -> {
+            if (larger.pairs.contains(pair)) result.pairs.add(pair);
+        });
+        return result;
+    }
+
+    public PairSet difference(PairSet other) {
+        PairSet result = new PairSet();
+        pairs.forEach(pair -> {
+            if (!other.pairs.contains(pair)) result.pairs.add(pair);
+        });
+        return result;
+    }
+
+    /**
+     * Returns the pairs with their vertices mapped by the given function, e.g., from the
+     * vertices of a reduced graph to the original ones.
+     */
+    public PairSet mapVertices(IntUnaryOperator vertexMap) {
+        PairSet result = new PairSet(size());
+        pairs.forEach(pair -> result.pairs.add(pack(vertexMap.applyAsInt(source(pair)), vertexMap.applyAsInt(target(pair)))));
+        return result;
+    }
+
+    /**
+     * The packed pairs ordered by source and then by target.
+     */
+    public LongStream sortedStream() {
+        return Arrays.stream(sorted());
+    }
+
+    public Stream<Pair> stream() {
+        return Arrays.stream(pairs.toArray()).mapToObj(pair -> new Pair(source(pair), target(pair)));
+    }
+
+    private long[] sorted() {
+        if (sorted == null) {
+            sorted = pairs.toArray();
+            Arrays.sort(sorted);
+        }
+        return sorted;
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int index = Arrays.binarySearch(sorted, key);
+        if (index >= 0) return index;
+        return -index - 1;
+    }
+
+    private static int[] targets(long[] sorted, int start, int end) {
+        int[] targets = new int[end - start];
+        for (int i = start; i < end; i++) {
+            targets[i - start] = target(sorted[i]);
+        }
+        return targets;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof PairSet)) return false;
+        PairSet other = (PairSet) obj;
+        return size() == other.size() && Arrays.equals(sorted(), other.sorted());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(sorted());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEachSorted((source, target) -> {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append("(").append(source).append(", ").append(target).append(")");
+        });
+        return sb.append("}").toString();
+    }
+}
@@ -10,12 +10,14 @@ public class ParseOptions {
     private final boolean ignoreLayout;
     private final Map<String, Object> map;
     private final boolean global;
+    private final boolean pruneGraph;
 
     private ParseOptions(Builder builder) {
         this.ambiguous = builder.ambiguous;
         this.ignoreLayout = builder.ignoreLayout;
         this.map = builder.map;
         this.global= builder.global;
+        this.pruneGraph = builder.pruneGraph;
     }
 
     public boolean ambiguous() {
@@ -34,11 +36,16 @@ public class ParseOptions {
         return global;
     }
 
+    public boolean pruneGraph() {
+        return pruneGraph;
+    }
+
     public static class Builder {
         boolean ambiguous = false;
         boolean ignoreLayout = true;
         Map<String, Object> map = emptyMap();
         boolean global = true;
+        boolean pruneGraph = false;
 
         public Builder setAmbiguous(boolean ambiguous) {
             this.ambiguous = ambiguous;
@@ -60,6 +67,15 @@ public class ParseOptions {
             return this;
         }
 
+        /**
+         * If set, CSR graphs are reduced to the labels of the grammar and the vertices incident
+         * to them before the reachabilities are computed.
+         */
+        public Builder setPruneGraph(boolean pruneGraph) {
+            this.pruneGraph = pruneGraph;
+            return this;
+        }
+
         public ParseOptions build() {
             return new ParseOptions(this);
         }
@@ -0,0 +1,302 @@
+package org.iguana.parser;
+
+import iguana.utils.collections.ConcurrentIntHashMap;
+import iguana.utils.collections.IntHashMap;
+import iguana.utils.collections.JavaIntHashMap;
+import iguana.utils.collections.OpenAddressingHashMap;
+import iguana.utils.collections.OpenAddressingIntHashMap;
+import iguana.utils.collections.PagedArrayIntHashMap;
+import iguana.utils.collections.key.Key;
+import iguana.utils.input.AbstractCSRGraphInput;
+import iguana.utils.input.GraphInput;
+import iguana.utils.input.Input;
+import org.iguana.grammar.GrammarGraph;
+import org.iguana.grammar.slot.BodyGrammarSlot;
+import org.iguana.grammar.slot.NonterminalGrammarSlot;
+import org.iguana.grammar.slot.TerminalGrammarSlot;
+import org.iguana.gss.GSSNode;
+import org.iguana.result.Result;
+import org.iguana.util.Configuration;
+import org.iguana.util.Configuration.HashMapImpl;
+import org.iguana.util.Configuration.LookupImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The per-parse tables of the grammar slots: the GSS nodes of the nonterminal slots, the
+ * intermediate nodes of the body slots and the terminal nodes of the terminal slots, indexed by
+ * slot id. Keeping these tables out of the grammar graph allows several runtimes to parse with
+ * the same grammar graph concurrently.
+ *
+ * The tables indexed by input index are arrays indexed by input index if the GSS lookup of the
+ * configuration is ARRAY, and hash maps of the configured implementation otherwise.
+ *
+ * If the input is a CSR graph, the edge labels of the terminal slots are translated to the label
+ * ids of the input once per parse, so that terminals read the edges of a vertex directly.
+ *
+ * If the grammar graph numbers the labels of its terminals and the input is a CSR graph, the
+ * label sets of the nonterminal slots are translated to the label ids of the input once per
+ * parse, so that the lookahead tests are bitset intersections with the labels leaving a vertex.
+ *
+ * A concurrent parse state is shared by the worker threads of a single parse: all its tables
+ * are allocated upfront and are thread-safe. The tables indexed by input index are then striped
+ * over several maps of the configured lookup, each guarded by its own lock.
+ */
+public class ParseState {
+
+    /**
+     * The edge label id of a terminal slot that is not matched against the edges of a CSR graph.
+     */
+    public static final int NO_EDGE_LABEL = -2;
+
+    private final Map<Key, GSSNode<?>>[] gssNodes;
+
+    private final IntHashMap<GSSNode<?>>[] intGSSNodes;
+
+    private final Map<Key, Object>[] intermediateNodes;
+
+    private final IntHashMap<Object>[] terminalNodes;
+
+    private final boolean concurrent;
+
+    private final LookupImpl lookupImpl;
+
+    private final HashMapImpl hashMapImpl;
+
+    // The expected range of the input indices, or 0 if unknown
+    private final int inputSize;
+
+    // The input if it is a CSR graph, or null
+    private final AbstractCSRGraphInput graph;
+
+    // The label ids in the input of the edge labels of the terminal slots, by slot id
+    private final int[] edgeLabelIds;
+
+    // The input the label sets refer to, or null if there are no label sets
+    private final AbstractCSRGraphInput labelledInput;
+
+    // The label sets of the nonterminal slots by slot id, in the label ids of the input
+    private final long[][][] firstSlotLabels;
+
+    private final long[][] followLabels;
+
+    public ParseState(GrammarGraph grammarGraph) {
+        this(grammarGraph, false);
+    }
+
+    public ParseState(GrammarGraph grammarGraph, boolean concurrent) {
+        this(grammarGraph, LookupImpl.HASH_MAP, HashMapImpl.INT_OPEN_ADDRESSING, null, concurrent);
+    }
+
+    public ParseState(GrammarGraph grammarGraph, Configuration config, Input input) {
+        this(grammarGraph, config, input, false);
+    }
+
+    public ParseState(GrammarGraph grammarGraph, Configuration config, Input input, boolean concurrent) {
+        this(grammarGraph, config.getGSSLookupImpl(), config.getHashmapImpl(), input, concurrent);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ParseState(GrammarGraph grammarGraph, LookupImpl lookupImpl, HashMapImpl hashMapImpl, Input input, boolean concurrent) {
+        this.concurrent = concurrent;
+        this.lookupImpl = lookupImpl;
+        this.hashMapImpl = hashMapImpl;
+        if (input == null) {
+            this.inputSize = 0;
+        } else {
+            this.inputSize = input instanceof GraphInput ? ((GraphInput) input).getVertexCount() : input.length();
+        }
+        this.gssNodes = (Map<Key, GSSNode<?>>[]) new Map<?, ?>[grammarGraph.getNonterminalSlotCount()];
+        this.intGSSNodes = (IntHashMap<GSSNode<?>>[]) new IntHashMap<?>[grammarGraph.getNonterminalSlotCount()];
+        this.intermediateNodes = (Map<Key, Object>[]) new Map<?, ?>[grammarGraph.getBodySlotCount()];
+        this.terminalNodes = (IntHashMap<Object>[]) new IntHashMap<?>[grammarGraph.getTerminalSlotCount()];
+
+        if (concurrent) {
+            for (int i = 0; i < gssNodes.length; i++) {
+                gssNodes[i] = new ConcurrentHashMap<>();
+                intGSSNodes[i] = new ConcurrentIntHashMap<>(inputSize, this::newIndexMap);
+            }
+            for (int i = 0; i < intermediateNodes.length; i++) {
+                intermediateNodes[i] = new ConcurrentHashMap<>();
+            }
+            for (int i = 0; i < terminalNodes.length; i++) {
+                terminalNodes[i] = new ConcurrentIntHashMap<>(inputSize, this::newIndexMap);
+            }
+        }
+
+        this.edgeLabelIds = new int[grammarGraph.getTerminalSlotCount()];
+        Arrays.fill(edgeLabelIds, NO_EDGE_LABEL);
+        if (input instanceof AbstractCSRGraphInput) {
+            this.graph = (AbstractCSRGraphInput) input;
+            for (TerminalGrammarSlot slot : grammarGraph.getTerminalGrammarSlots()) {
+                if (slot.getEdgeLabel() != null) {
+                    edgeLabelIds[slot.getId()] = graph.getLabelId(slot.getEdgeLabel());
+                }
+            }
+        } else {
+            this.graph = null;
+        }
+
+        if (input instanceof AbstractCSRGraphInput && grammarGraph.getTerminalLabels() != null) {
+            this.labelledInput = (AbstractCSRGraphInput) input;
+            this.firstSlotLabels = new long[grammarGraph.getNonterminalSlotCount()][][];
+            this.followLabels = new long[grammarGraph.getNonterminalSlotCount()][];
+            int[] labelIds = getLabelIds(grammarGraph.getTerminalLabels(), labelledInput);
+            for (NonterminalGrammarSlot slot : grammarGraph.getNonterminalGrammarSlots()) {
+                if (slot.getFollowLabels() == null) continue;
+                long[][] labelSets = new long[slot.getFirstSlotLabels().length][];
+                for (int i = 0; i < labelSets.length; i++) {
+                    labelSets[i] = translate(slot.getFirstSlotLabels()[i], labelIds, labelledInput.getLabelSetLength());
+                }
+                firstSlotLabels[slot.getId()] = labelSets;
+                followLabels[slot.getId()] = translate(slot.getFollowLabels(), labelIds, labelledInput.getLabelSetLength());
+            }
+        } else {
+            this.labelledInput = null;
+            this.firstSlotLabels = null;
+            this.followLabels = null;
+        }
+    }
+
+    /**
+     * Maps the label ids of the grammar graph, and EOF after them, to the label ids of the input,
+     * or to -1 for labels that no edge of the input has.
+     */
+    private static int[] getLabelIds(List<String> labels, AbstractCSRGraphInput input) {
+        int[] labelIds = new int[labels.size() + 1];
+        for (int i = 0; i < labels.size(); i++) {
+            labelIds[i] = input.getLabelId(labels.get(i));
+        }
+        labelIds[labels.size()] = input.getLabelCount();
+        return labelIds;
+    }
+
+    private static long[] translate(long[] labelSet, int[] labelIds, int length) {
+        long[] result = new long[length];
+        for (int i = 0; i < labelIds.length; i++) {
+            if (labelIds[i] != -1 && (labelSet[i >>> 6] & (1L << i)) != 0) {
+                result[labelIds[i] >>> 6] |= 1L << labelIds[i];
+            }
+        }
+        return result;
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * The label sets of the first slots of a nonterminal, or null if the lookahead of the
+     * nonterminal is not over the labels of the input.
+     */
+    public long[][] getFirstSlotLabels(NonterminalGrammarSlot slot) {
+        return firstSlotLabels == null ? null : firstSlotLabels[slot.getId()];
+    }
+
+    /**
+     * The label set of the follow set of a nonterminal, or null if the lookahead of the
+     * nonterminal is not over the labels of the input.
+     */
+    public long[] getFollowLabels(NonterminalGrammarSlot slot) {
+        return followLabels == null ? null : followLabels[slot.getId()];
+    }
+
+    /**
+     * The label id in the CSR graph of the edge label of a terminal slot, -1 if no edge of the
+     * graph has the label, or {@link #NO_EDGE_LABEL} if the terminal is not matched against the
+     * edges of a CSR graph.
+     */
+    public int getEdgeLabelId(TerminalGrammarSlot slot) {
+        return edgeLabelIds[slot.getId()];
+    }
+
+    public AbstractCSRGraphInput getGraph() {
+        return graph;
+    }
+
+    public boolean hasOutgoingLabel(int v, long[] labelSet) {
+        return labelledInput.hasOutgoingLabel(v, labelSet);
+    }
+
+    /**
+     * The GSS nodes of a nonterminal without arguments, by input index. A parse state is used by
+     * the runtimes of a single parse, so all its GSS nodes hold results of the same type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Result> IntHashMap<GSSNode<T>> getIntGSSNodes(NonterminalGrammarSlot slot) {
+        IntHashMap<GSSNode<?>> nodes = intGSSNodes[slot.getId()];
+        if (nodes == null) {
+            nodes = newIndexMap(inputSize);
+            intGSSNodes[slot.getId()] = nodes;
+        }
+        return (IntHashMap<GSSNode<T>>) (IntHashMap<?>) nodes;
+    }
+
+    /**
+     * The GSS nodes of a nonterminal with arguments, by input index and argument values.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Result> Map<Key, GSSNode<T>> getGSSNodes(NonterminalGrammarSlot slot) {
+        Map<Key, GSSNode<?>> nodes = gssNodes[slot.getId()];
+        if (nodes == null) {
+            nodes = newKeyMap();
+            gssNodes[slot.getId()] = nodes;
+        }
+        return (Map<Key, GSSNode<T>>) (Map<Key, ?>) nodes;
+    }
+
+    public List<GSSNode<?>> getAllGSSNodes(NonterminalGrammarSlot slot) {
+        List<GSSNode<?>> nodes = new ArrayList<>();
+        if (gssNodes[slot.getId()] != null) gssNodes[slot.getId()].values().forEach(nodes::add);
+        if (intGSSNodes[slot.getId()] != null) intGSSNodes[slot.getId()].values().forEach(nodes::add);
+        return nodes;
+    }
+
+    public int countGSSNodes(NonterminalGrammarSlot slot) {
+        int count = 0;
+        if (gssNodes[slot.getId()] != null) count += gssNodes[slot.getId()].size();
+        if (intGSSNodes[slot.getId()] != null) count += intGSSNodes[slot.getId()].size();
+        return count;
+    }
+
+    public Map<Key, Object> getIntermediateNodes(BodyGrammarSlot slot) {
+        Map<Key, Object> nodes = intermediateNodes[slot.getId()];
+        if (nodes == null) {
+            nodes = newKeyMap();
+            intermediateNodes[slot.getId()] = nodes;
+        }
+        return nodes;
+    }
+
+    public IntHashMap<Object> getTerminalNodes(TerminalGrammarSlot slot) {
+        IntHashMap<Object> nodes = terminalNodes[slot.getId()];
+        if (nodes == null) {
+            nodes = newIndexMap(inputSize);
+            terminalNodes[slot.getId()] = nodes;
+        }
+        return nodes;
+    }
+
+    public int countTerminalNodes(TerminalGrammarSlot slot) {
+        return terminalNodes[slot.getId()] == null ? 0 : terminalNodes[slot.getId()].size();
+    }
+
+    /**
+     * @param range the expected range of the keys, which only sizes the arrays of the ARRAY lookup
+     */
+    private <T> IntHashMap<T> newIndexMap(int range) {
+        if (lookupImpl == LookupImpl.ARRAY) {
+            return new PagedArrayIntHashMap<>(range);
+        }
+        return hashMapImpl == HashMapImpl.JAVA ? new JavaIntHashMap<>() : new OpenAddressingIntHashMap<>();
+    }
+
+    private <T> Map<Key, T> newKeyMap() {
+        return hashMapImpl == HashMapImpl.JAVA ? new HashMap<>() : new OpenAddressingHashMap<>();
+    }
+}
@@ -0,0 +1,138 @@
+package org.iguana.parser;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The number of reachable targets of each start vertex, aggregated from the start GSS nodes
+ * without materializing the pairs.
+ */
+public class ReachabilityCounts {
+
+    @FunctionalInterface
+    public interface SourceCountConsumer {
+        void accept(int source, int count);
+    }
+
+    // The (source, count) entries packed as in PairSet, sorted on demand
+    private long[] entries;
+
+    private int size;
+
+    private boolean sorted = true;
+
+    private long total;
+
+    public ReachabilityCounts() {
+        this.entries = new long[16];
+    }
+
+    /**
+     * Adds the number of targets of a source that is not in the counts yet.
+     */
+    public void add(int source, int count) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        long entry = PairSet.pack(source, count);
+        if (size > 0 && entries[size - 1] > entry) {
+            sorted = false;
+        }
+        entries[size++] = entry;
+        total += count;
+    }
+
+    /**
+     * The total number of reachable pairs.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * The number of sources, including the ones without reachable targets.
+     */
+    public int getSourceCount() {
+        return size;
+    }
+
+    /**
+     * Returns the number of targets reachable from the source, or 0 if the source is not counted.
+     */
+    public int getCount(int source) {
+        long[] entries = sorted();
+        int index = Arrays.binarySearch(entries, 0, size, PairSet.pack(source, 0));
+        if (index < 0) index = -index - 1;
+        if (index < size && PairSet.source(entries[index]) == source) {
+            return PairSet.target(entries[index]);
+        }
+        return 0;
+    }
+
+    /**
+     * Iterates over the sources in increasing order, each with its number of targets.
+     */
+    public void forEach(SourceCountConsumer consumer) {
+        long[] entries = sorted();
+        for (int i = 0; i < size; i++) {
+            consumer.accept(PairSet.source(entries[i]), PairSet.target(entries[i]));
+        }
+    }
+
+    public int getMaxOutDegree() {
+        int max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, PairSet.target(entries[i]));
+        }
+        return max;
+    }
+
+    /**
+     * Returns the out-degree histogram of the reachability relation: the element at index d is
+     * the number of sources with exactly d reachable targets.
+     */
+    public long[] getOutDegreeHistogram() {
+        long[] histogram = new long[getMaxOutDegree() + 1];
+        for (int i = 0; i < size; i++) {
+            histogram[PairSet.target(entries[i])]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the counts with their sources mapped by the given function, e.g., from the
+     * vertices of a reduced graph to the original ones.
+     */
+    public ReachabilityCounts mapSources(IntUnaryOperator vertexMap) {
+        ReachabilityCounts result = new ReachabilityCounts();
+        forEach((source, count) -> result.add(vertexMap.applyAsInt(source), count));
+        return result;
+    }
+
+    /**
+     * Returns the counts of both, whose sources should be disjoint, as the counts of partitions
+     * of the start vertices.
+     */
+    public ReachabilityCounts merge(ReachabilityCounts other) {
+        ReachabilityCounts result = new ReachabilityCounts();
+        result.entries = Arrays.copyOf(entries, Math.max(16, size + other.size));
+        System.arraycopy(other.entries, 0, result.entries, size, other.size);
+        result.size = size + other.size;
+        result.sorted = false;
+        result.total = total + other.total;
+        return result;
+    }
+
+    private long[] sorted() {
+        if (!sorted) {
+            Arrays.sort(entries, 0, size);
+            sorted = true;
+        }
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return "ReachabilityCounts(sources: " + size + ", total: " + total + ")";
+    }
+}
@@ -0,0 +1,21 @@
+package org.iguana.parser;
+
+/**
+ * Receives the reachable pairs of a parse as soon as they are found. Each pair is reported once,
+ * also if a data-dependent grammar derives it with several values.
+ * The parse does not continue until the listener returns, so a slow listener slows down the
+ * parse instead of letting results pile up in memory.
+ */
+@FunctionalInterface
+public interface ReachabilityListener {
+
+    void reachable(int source, int target);
+
+    /**
+     * Returns true if the listener does not need any more pairs. The parse then stops without
+     * reaching a fixpoint, so pairs that have not been reported yet are unknown.
+     */
+    default boolean isDone() {
+        return false;
+    }
+}
@@ -0,0 +1,136 @@
+package org.iguana.parser;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the reachable pairs of a parse as they are found. Every subscription runs its own
+ * parse on the given executor. The parse is suspended while the subscriber has no outstanding
+ * demand, so results are never buffered, and it is stopped when the subscription is cancelled.
+ */
+public class ReachabilityPublisher implements Flow.Publisher<Pair> {
+
+    private final Consumer<ReachabilityListener> parse;
+
+    private final Executor executor;
+
+    /**
+     * @param parse runs a parse that reports its pairs to the given listener
+     */
+    public ReachabilityPublisher(Consumer<ReachabilityListener> parse, Executor executor) {
+        this.parse = parse;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Pair> subscriber) {
+        Objects.requireNonNull(subscriber);
+        Subscription subscription = new Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        try {
+            executor.execute(subscription::run);
+        } catch (RuntimeException e) {
+            subscriber.onError(e);
+        }
+    }
+
+    private class Subscription implements Flow.Subscription, ReachabilityListener {
+
+        private final Flow.Subscriber<? super Pair> subscriber;
+
+        private long demand;
+
+        private boolean cancelled;
+
+        // The error of an invalid request, signalled instead of completion
+        private Throwable error;
+
+        Subscription(Flow.Subscriber<? super Pair> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Non-positive request: " + n);
+                cancelled = true;
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        @Override
+        public void reachable(int source, int target) {
+            synchronized (this) {
+                while (demand == 0 && !cancelled) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        cancelled = true;
+                    }
+                }
+                if (cancelled) {
+                    throw CancelledException.INSTANCE;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            }
+            subscriber.onNext(new Pair(source, target));
+        }
+
+        void run() {
+            try {
+                if (!isCancelled()) {
+                    parse.accept(this);
+                }
+            } catch (CancelledException e) {
+                // Stopped by the subscriber
+            } catch (Throwable e) {
+                if (!isCancelled()) {
+                    subscriber.onError(e);
+                }
+                return;
+            }
+
+            Throwable error;
+            synchronized (this) {
+                if (cancelled && this.error == null) return;
+                error = this.error;
+            }
+            if (error != null) {
+                subscriber.onError(error);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Unwinds the parse of a cancelled subscription.
+     */
+    private static class CancelledException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        static final CancelledException INSTANCE = new CancelledException();
+
+        private CancelledException() {
+            super(null, null, false, false);
+        }
+    }
+}
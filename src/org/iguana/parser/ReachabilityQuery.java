@@ -0,0 +1,66 @@
+package org.iguana.parser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the answers to a set of (source, target) questions during a parse. The query is done,
+ * and the parse can stop, as soon as all the requested pairs are found. A pair that has not been
+ * found when the parse reaches its fixpoint is not reachable.
+ */
+public class ReachabilityQuery implements ReachabilityListener {
+
+    private final Map<Integer, Set<Integer>> requested = new HashMap<>();
+
+    private final Set<Pair> found = new HashSet<>();
+
+    private int remaining;
+
+    public ReachabilityQuery(Collection<Pair> pairs) {
+        for (Pair pair : pairs) {
+            if (requested.computeIfAbsent(pair.startVertex, k -> new HashSet<>()).add(pair.endVertex)) {
+                remaining++;
+            }
+        }
+    }
+
+    public static ReachabilityQuery of(int source, Collection<Integer> targets) {
+        List<Pair> pairs = new ArrayList<>(targets.size());
+        for (int target : targets) {
+            pairs.add(new Pair(source, target));
+        }
+        return new ReachabilityQuery(pairs);
+    }
+
+    /**
+     * The vertices the parse has to start from.
+     */
+    public List<Integer> getSources() {
+        return new ArrayList<>(requested.keySet());
+    }
+
+    @Override
+    public void reachable(int source, int target) {
+        Set<Integer> targets = requested.get(source);
+        if (targets != null && targets.contains(target) && found.add(new Pair(source, target))) {
+            remaining--;
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return remaining == 0;
+    }
+
+    /**
+     * The requested pairs found so far.
+     */
+    public Set<Pair> getFound() {
+        return found;
+    }
+}
@@ -0,0 +1,194 @@
+package org.iguana.parser.descriptor;
+
+import org.iguana.datadependent.env.Environment;
+import org.iguana.gss.GSSNode;
+import org.iguana.result.Result;
+
+import java.util.Arrays;
+
+/**
+ * Stores the descriptors as entries of parallel arrays instead of Descriptor objects, keeps the
+ * current descriptor and counts. Subclasses decide at which entry a descriptor is stored and
+ * which entry is taken next.
+ */
+public abstract class AbstractDescriptorScheduler<T extends Result> implements DescriptorScheduler<T> {
+
+	protected static final int INITIAL_CAPACITY = 512;
+
+	private int[] slots;
+
+	private GSSNode<T>[] gssNodes;
+
+	private T[] results;
+
+	private Environment[] envs;
+
+	private int currentSlot;
+
+	private GSSNode<T> currentGSSNode;
+
+	private T currentResult;
+
+	private Environment currentEnv;
+
+	private long scheduledCount;
+
+	private int maxPendingCount;
+
+	private long vertexSwitches;
+
+	private long slotSwitches;
+
+	private int lastInputIndex = -1;
+
+	private int lastSlot = -1;
+
+	protected AbstractDescriptorScheduler() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	// The arrays never leave this class, and only hold the GSS nodes and results of this scheduler
+	@SuppressWarnings("unchecked")
+	private void allocate(int capacity) {
+		slots = new int[capacity];
+		gssNodes = (GSSNode<T>[]) new GSSNode<?>[capacity];
+		results = (T[]) new Result[capacity];
+		envs = new Environment[capacity];
+	}
+
+	/**
+	 * Stores the descriptor in a free entry.
+	 */
+	protected abstract void add(int slotId, GSSNode<T> gssNode, T result, Environment env);
+
+	/**
+	 * Loads the next entry into the current descriptor.
+	 */
+	protected abstract void remove();
+
+	protected abstract void removeAll();
+
+	@Override
+	public final void schedule(int slotId, GSSNode<T> gssNode, T result, Environment env) {
+		add(slotId, gssNode, result, env);
+		scheduledCount++;
+		if (size() > maxPendingCount) {
+			maxPendingCount = size();
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return size() > 0;
+	}
+
+	@Override
+	public final void next() {
+		remove();
+		int inputIndex = getInputIndex(currentGSSNode, currentResult);
+		if (inputIndex != lastInputIndex) {
+			vertexSwitches++;
+			lastInputIndex = inputIndex;
+		}
+		if (currentSlot != lastSlot) {
+			slotSwitches++;
+			lastSlot = currentSlot;
+		}
+	}
+
+	@Override
+	public final void clear() {
+		removeAll();
+		if (slots.length > INITIAL_CAPACITY) {
+			allocate(INITIAL_CAPACITY);
+		}
+		currentGSSNode = null;
+		currentResult = null;
+		currentEnv = null;
+		scheduledCount = 0;
+		maxPendingCount = 0;
+		vertexSwitches = 0;
+		slotSwitches = 0;
+		lastInputIndex = -1;
+		lastSlot = -1;
+	}
+
+	@Override
+	public DescriptorSchedulerStatistics getStatistics() {
+		return new DescriptorSchedulerStatistics(scheduledCount, maxPendingCount, vertexSwitches, slotSwitches);
+	}
+
+	/**
+	 * The input index at which the descriptor continues parsing.
+	 */
+	protected static int getInputIndex(GSSNode<?> gssNode, Result result) {
+		return result.isDummy() ? gssNode.getInputIndex() : result.getIndex();
+	}
+
+	protected int capacity() {
+		return slots.length;
+	}
+
+	protected void grow(int capacity) {
+		slots = Arrays.copyOf(slots, capacity);
+		gssNodes = Arrays.copyOf(gssNodes, capacity);
+		results = Arrays.copyOf(results, capacity);
+		envs = Arrays.copyOf(envs, capacity);
+	}
+
+	protected void store(int i, int slotId, GSSNode<T> gssNode, T result, Environment env) {
+		slots[i] = slotId;
+		gssNodes[i] = gssNode;
+		results[i] = result;
+		envs[i] = env;
+	}
+
+	/**
+	 * Moves the entry into the current descriptor and frees it.
+	 */
+	protected void load(int i) {
+		currentSlot = slots[i];
+		currentGSSNode = gssNodes[i];
+		currentResult = results[i];
+		currentEnv = envs[i];
+		gssNodes[i] = null;
+		results[i] = null;
+		envs[i] = null;
+	}
+
+	protected void move(int from, int to) {
+		store(to, slots[from], gssNodes[from], results[from], envs[from]);
+		gssNodes[from] = null;
+		results[from] = null;
+		envs[from] = null;
+	}
+
+	/**
+	 * Frees the entries in the given range.
+	 */
+	protected void release(int from, int to) {
+		Arrays.fill(gssNodes, from, to, null);
+		Arrays.fill(results, from, to, null);
+		Arrays.fill(envs, from, to, null);
+	}
+
+	@Override
+	public int getGrammarSlotId() {
+		return currentSlot;
+	}
+
+	@Override
+	public GSSNode<T> getGSSNode() {
+		return currentGSSNode;
+	}
+
+	@Override
+	public T getResult() {
+		return currentResult;
+	}
+
+	@Override
+	public Environment getEnv() {
+		return currentEnv;
+	}
+}
@@ -0,0 +1,160 @@
+package org.iguana.parser.descriptor;
+
+import org.iguana.datadependent.env.Environment;
+import org.iguana.gss.GSSNode;
+import org.iguana.result.Result;
+
+import java.util.Arrays;
+
+/**
+ * Groups the descriptors into buckets by a non-negative key, such as their input index or grammar
+ * slot, and processes a bucket until it is empty before moving to the next one. Descriptors that
+ * are scheduled for the current bucket are processed in the same batch. Buckets are taken in the
+ * order they became non-empty, and the descriptors of a bucket last-in first-out.
+ *
+ * The buckets are linked lists of entries, whose heads are indexed by key.
+ */
+public abstract class BucketedDescriptorScheduler<T extends Result> extends AbstractDescriptorScheduler<T> {
+
+	private static final int NONE = -1;
+
+	// The first entry of each bucket
+	private int[] heads = newHeads(16);
+
+	// The entry after each entry in its bucket, or in the free list
+	private int[] next = new int[INITIAL_CAPACITY];
+
+	private int freeList = NONE;
+
+	// The number of entries used so far
+	private int allocated;
+
+	// The keys of the non-empty buckets that wait to be processed, as a ring buffer
+	private int[] pendingKeys = new int[16];
+
+	private int pendingHead;
+
+	private int pendingCount;
+
+	private int currentKey = NONE;
+
+	private int size;
+
+	public static <T extends Result> BucketedDescriptorScheduler<T> byVertex() {
+		return new BucketedDescriptorScheduler<T>() {
+			@Override
+			protected int key(int slotId, GSSNode<T> gssNode, T result) {
+				return getInputIndex(gssNode, result);
+			}
+		};
+	}
+
+	public static <T extends Result> BucketedDescriptorScheduler<T> bySlot() {
+		return new BucketedDescriptorScheduler<T>() {
+			@Override
+			protected int key(int slotId, GSSNode<T> gssNode, T result) {
+				return slotId;
+			}
+		};
+	}
+
+	protected abstract int key(int slotId, GSSNode<T> gssNode, T result);
+
+	@Override
+	protected void add(int slotId, GSSNode<T> gssNode, T result, Environment env) {
+		int key = key(slotId, gssNode, result);
+		if (key >= heads.length) {
+			int length = heads.length;
+			heads = Arrays.copyOf(heads, Math.max(key + 1, length * 2));
+			Arrays.fill(heads, length, heads.length, NONE);
+		}
+
+		int entry;
+		if (freeList != NONE) {
+			entry = freeList;
+			freeList = next[entry];
+		} else {
+			if (allocated == capacity()) {
+				grow(allocated * 2);
+			}
+			entry = allocated++;
+		}
+		store(entry, slotId, gssNode, result, env);
+
+		if (heads[key] == NONE && key != currentKey) {
+			addPendingKey(key);
+		}
+		next[entry] = heads[key];
+		heads[key] = entry;
+		size++;
+	}
+
+	@Override
+	protected void remove() {
+		if (currentKey == NONE || heads[currentKey] == NONE) {
+			currentKey = pendingKeys[pendingHead];
+			pendingHead = pendingHead + 1 == pendingKeys.length ? 0 : pendingHead + 1;
+			pendingCount--;
+		}
+		int entry = heads[currentKey];
+		heads[currentKey] = next[entry];
+		load(entry);
+		next[entry] = freeList;
+		freeList = entry;
+		size--;
+	}
+
+	@Override
+	protected void removeAll() {
+		release(0, allocated);
+		if (heads.length > INITIAL_CAPACITY) {
+			heads = newHeads(16);
+		} else {
+			Arrays.fill(heads, NONE);
+		}
+		if (next.length > INITIAL_CAPACITY) {
+			next = new int[INITIAL_CAPACITY];
+		}
+		if (pendingKeys.length > INITIAL_CAPACITY) {
+			pendingKeys = new int[16];
+		}
+		freeList = NONE;
+		allocated = 0;
+		pendingHead = 0;
+		pendingCount = 0;
+		currentKey = NONE;
+		size = 0;
+	}
+
+	@Override
+	protected void grow(int capacity) {
+		super.grow(capacity);
+		next = Arrays.copyOf(next, capacity);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private void addPendingKey(int key) {
+		if (pendingCount == pendingKeys.length) {
+			int[] keys = new int[pendingKeys.length * 2];
+			for (int i = 0; i < pendingCount; i++) {
+				keys[i] = pendingKeys[(pendingHead + i) % pendingKeys.length];
+			}
+			pendingKeys = keys;
+			pendingHead = 0;
+		}
+		int tail = pendingHead + pendingCount;
+		if (tail >= pendingKeys.length) tail -= pendingKeys.length;
+		pendingKeys[tail] = key;
+		pendingCount++;
+	}
+
+	private static int[] newHeads(int length) {
+		int[] heads = new int[length];
+		Arrays.fill(heads, NONE);
+		return heads;
+	}
+}
@@ -0,0 +1,52 @@
+package org.iguana.parser.descriptor;
+
+import org.iguana.datadependent.env.Environment;
+import org.iguana.gss.GSSNode;
+import org.iguana.result.Result;
+
+/**
+ * Processes the descriptors in the order they are scheduled, which explores the graph
+ * breadth-first. The entries form a ring buffer.
+ */
+public class DescriptorQueue<T extends Result> extends AbstractDescriptorScheduler<T> {
+
+	private int head;
+
+	private int size;
+
+	@Override
+	protected void add(int slotId, GSSNode<T> gssNode, T result, Environment env) {
+		int capacity = capacity();
+		if (size == capacity) {
+			grow(capacity * 2);
+			// Unwrap the entries before the head to the end of the old entries
+			for (int i = 0; i < head; i++) {
+				move(i, capacity + i);
+			}
+			capacity *= 2;
+		}
+		int tail = head + size;
+		if (tail >= capacity) tail -= capacity;
+		store(tail, slotId, gssNode, result, env);
+		size++;
+	}
+
+	@Override
+	protected void remove() {
+		load(head);
+		head = head + 1 == capacity() ? 0 : head + 1;
+		size--;
+	}
+
+	@Override
+	protected void removeAll() {
+		release(0, capacity());
+		head = 0;
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+}
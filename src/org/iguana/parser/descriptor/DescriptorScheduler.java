@@ -0,0 +1,58 @@
+package org.iguana.parser.descriptor;
+
+import org.iguana.datadependent.env.Environment;
+import org.iguana.gss.GSSNode;
+import org.iguana.result.Result;
+import org.iguana.util.Configuration.DescriptorSchedulerType;
+
+/**
+ * The worklist of the descriptors of a parse. The scheduler decides in which order the scheduled
+ * descriptors are processed. Taking a descriptor moves it into the current descriptor, whose
+ * parts are valid until the next descriptor is taken.
+ */
+public interface DescriptorScheduler<T extends Result> {
+
+	void schedule(int slotId, GSSNode<T> gssNode, T result, Environment env);
+
+	boolean hasNext();
+
+	/**
+	 * Takes the next descriptor to process and makes it the current one.
+	 */
+	void next();
+
+	int getGrammarSlotId();
+
+	GSSNode<T> getGSSNode();
+
+	T getResult();
+
+	Environment getEnv();
+
+	/**
+	 * Returns the number of scheduled descriptors that are not taken yet.
+	 */
+	int size();
+
+	/**
+	 * Removes all the descriptors and resets the counters.
+	 */
+	void clear();
+
+	DescriptorSchedulerStatistics getStatistics();
+
+	static <T extends Result> DescriptorScheduler<T> create(DescriptorSchedulerType type) {
+		switch (type) {
+			case LIFO:
+				return new DescriptorStack<>();
+			case FIFO:
+				return new DescriptorQueue<>();
+			case VERTEX_BUCKETED:
+				return BucketedDescriptorScheduler.byVertex();
+			case SLOT_BATCHED:
+				return BucketedDescriptorScheduler.bySlot();
+			default:
+				throw new IllegalArgumentException("Unknown descriptor scheduler: " + type);
+		}
+	}
+}
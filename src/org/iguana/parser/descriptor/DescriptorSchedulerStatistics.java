@@ -0,0 +1,51 @@
+package org.iguana.parser.descriptor;
+
+/**
+ * The counters of a descriptor scheduler during a parse. The number of switches counts how often
+ * a taken descriptor has a different input index, or grammar slot, than the one taken before it,
+ * so fewer switches mean that descriptors of the same vertex or slot are processed together.
+ */
+public class DescriptorSchedulerStatistics {
+
+	private final long scheduledCount;
+
+	private final int maxPendingCount;
+
+	private final long vertexSwitches;
+
+	private final long slotSwitches;
+
+	public DescriptorSchedulerStatistics(long scheduledCount, int maxPendingCount, long vertexSwitches, long slotSwitches) {
+		this.scheduledCount = scheduledCount;
+		this.maxPendingCount = maxPendingCount;
+		this.vertexSwitches = vertexSwitches;
+		this.slotSwitches = slotSwitches;
+	}
+
+	public long getScheduledCount() {
+		return scheduledCount;
+	}
+
+	/**
+	 * The largest number of descriptors waiting at the same time.
+	 */
+	public int getMaxPendingCount() {
+		return maxPendingCount;
+	}
+
+	public long getVertexSwitches() {
+		return vertexSwitches;
+	}
+
+	public long getSlotSwitches() {
+		return slotSwitches;
+	}
+
+	@Override
+	public String toString() {
+		return "Descriptors: " + scheduledCount + "\n" +
+			   "Max pending descriptors: " + maxPendingCount + "\n" +
+			   "Vertex switches: " + vertexSwitches + "\n" +
+			   "Slot switches: " + slotSwitches;
+	}
+}
@@ -0,0 +1,37 @@
+package org.iguana.parser.descriptor;
+
+import org.iguana.datadependent.env.Environment;
+import org.iguana.gss.GSSNode;
+import org.iguana.result.Result;
+
+/**
+ * Processes the last scheduled descriptor first, which explores the graph depth-first.
+ */
+public class DescriptorStack<T extends Result> extends AbstractDescriptorScheduler<T> {
+
+	private int size;
+
+	@Override
+	protected void add(int slotId, GSSNode<T> gssNode, T result, Environment env) {
+		if (size == capacity()) {
+			grow(size * 2);
+		}
+		store(size++, slotId, gssNode, result, env);
+	}
+
+	@Override
+	protected void remove() {
+		load(--size);
+	}
+
+	@Override
+	protected void removeAll() {
+		release(0, size);
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+}
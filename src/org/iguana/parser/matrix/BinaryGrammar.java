@@ -0,0 +1,184 @@
+package org.iguana.parser.matrix;
+
+import iguana.regex.Char;
+import iguana.regex.Epsilon;
+import iguana.regex.RegularExpression;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Symbol;
+import org.iguana.grammar.symbol.Terminal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A grammar over edge labels whose rules have one of the forms A ::= epsilon, A ::= a, A ::= B
+ * and A ::= B C, where the nonterminals are numbered densely. Longer rules are split into chains
+ * of binary rules, and terminals in binary rules are replaced by a nonterminal that derives only
+ * that terminal. Unlike the Chomsky normal form, epsilon and unit rules are kept, since they are
+ * cheap to evaluate on relations.
+ */
+class BinaryGrammar {
+
+    final int start;
+
+    final int nonterminalCount;
+
+    // The heads of the rules A ::= epsilon
+    final int[] epsilonRules;
+
+    // The head and label of each rule A ::= a
+    final int[] terminalRuleHeads;
+    final String[] terminalRuleLabels;
+
+    // The head and body of each rule A ::= B
+    final int[] unitRuleHeads;
+    final int[] unitRuleBodies;
+
+    // The head and body of each rule A ::= B C
+    final int[] binaryRuleHeads;
+    final int[] binaryRuleLefts;
+    final int[] binaryRuleRights;
+
+    private BinaryGrammar(Builder builder) {
+        this.start = builder.start;
+        this.nonterminalCount = builder.nonterminalCount;
+        this.epsilonRules = toArray(builder.epsilonRules);
+        this.terminalRuleHeads = toArray(builder.terminalRuleHeads);
+        this.terminalRuleLabels = builder.terminalRuleLabels.toArray(new String[0]);
+        this.unitRuleHeads = toArray(builder.unitRuleHeads);
+        this.unitRuleBodies = toArray(builder.unitRuleBodies);
+        this.binaryRuleHeads = toArray(builder.binaryRuleHeads);
+        this.binaryRuleLefts = toArray(builder.binaryRuleLefts);
+        this.binaryRuleRights = toArray(builder.binaryRuleRights);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the grammar has symbols other than nonterminals without
+     * parameters and terminals of a single label or epsilon, or symbols with conditions
+     */
+    static BinaryGrammar from(Grammar grammar) {
+        Builder builder = new Builder();
+        for (Rule rule : grammar.getRules()) {
+            builder.addRule(rule);
+        }
+        builder.start = builder.getNonterminal(grammar.getStartSymbol().getName());
+        return new BinaryGrammar(builder);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static class Builder {
+        private final Map<String, Integer> nonterminals = new HashMap<>();
+        private final Map<String, Integer> terminalNonterminals = new HashMap<>();
+        private int nonterminalCount;
+        private int start;
+
+        private final List<Integer> epsilonRules = new ArrayList<>();
+        private final List<Integer> terminalRuleHeads = new ArrayList<>();
+        private final List<String> terminalRuleLabels = new ArrayList<>();
+        private final List<Integer> unitRuleHeads = new ArrayList<>();
+        private final List<Integer> unitRuleBodies = new ArrayList<>();
+        private final List<Integer> binaryRuleHeads = new ArrayList<>();
+        private final List<Integer> binaryRuleLefts = new ArrayList<>();
+        private final List<Integer> binaryRuleRights = new ArrayList<>();
+
+        void addRule(Rule rule) {
+            if (hasParameters(rule.getHead())) {
+                throw new IllegalArgumentException("Nonterminals with parameters are not supported: " + rule.getHead());
+            }
+            int head = getNonterminal(rule.getHead().getName());
+
+            // The labels of the terminals, or null for nonterminals
+            List<String> labels = new ArrayList<>();
+            List<Integer> body = new ArrayList<>();
+            if (rule.getBody() != null) {
+                for (Symbol symbol : rule.getBody()) {
+                    if (symbol.hasConditions()) {
+                        throw new IllegalArgumentException("Symbols with conditions are not supported: " + symbol);
+                    }
+                    if (symbol instanceof Nonterminal) {
+                        Nonterminal nonterminal = (Nonterminal) symbol;
+                        if (hasParameters(nonterminal)) {
+                            throw new IllegalArgumentException("Nonterminals with parameters are not supported: " + symbol);
+                        }
+                        labels.add(null);
+                        body.add(getNonterminal(nonterminal.getName()));
+                    } else if (symbol instanceof Terminal) {
+                        RegularExpression regex = ((Terminal) symbol).getRegularExpression();
+                        if (regex == Epsilon.getInstance()) continue;
+                        if (!(regex instanceof Char)) {
+                            throw new IllegalArgumentException("Only single label terminals are supported: " + symbol);
+                        }
+                        labels.add(regex.toString());
+                        body.add(-1);
+                    } else {
+                        throw new IllegalArgumentException("Unsupported symbol: " + symbol);
+                    }
+                }
+            }
+
+            if (body.isEmpty()) {
+                epsilonRules.add(head);
+                return;
+            }
+            if (body.size() == 1) {
+                if (labels.get(0) != null) {
+                    addTerminalRule(head, labels.get(0));
+                } else {
+                    unitRuleHeads.add(head);
+                    unitRuleBodies.add(body.get(0));
+                }
+                return;
+            }
+
+            for (int i = 0; i < body.size(); i++) {
+                if (labels.get(i) != null) {
+                    body.set(i, getTerminalNonterminal(labels.get(i)));
+                }
+            }
+            int current = head;
+            for (int i = 0; i < body.size() - 2; i++) {
+                int rest = nonterminalCount++;
+                addBinaryRule(current, body.get(i), rest);
+                current = rest;
+            }
+            addBinaryRule(current, body.get(body.size() - 2), body.get(body.size() - 1));
+        }
+
+        private static boolean hasParameters(Nonterminal nonterminal) {
+            return (nonterminal.getParameters() != null && nonterminal.getParameters().length > 0)
+                    || (nonterminal.getArguments() != null && nonterminal.getArguments().length > 0);
+        }
+
+        int getNonterminal(String name) {
+            return nonterminals.computeIfAbsent(name, k -> nonterminalCount++);
+        }
+
+        private int getTerminalNonterminal(String label) {
+            Integer nonterminal = terminalNonterminals.get(label);
+            if (nonterminal == null) {
+                nonterminal = nonterminalCount++;
+                terminalNonterminals.put(label, nonterminal);
+                addTerminalRule(nonterminal, label);
+            }
+            return nonterminal;
+        }
+
+        private void addTerminalRule(int head, String label) {
+            terminalRuleHeads.add(head);
+            terminalRuleLabels.add(label);
+        }
+
+        private void addBinaryRule(int head, int left, int right) {
+            binaryRuleHeads.add(head);
+            binaryRuleLefts.add(left);
+            binaryRuleRights.add(right);
+        }
+    }
+}
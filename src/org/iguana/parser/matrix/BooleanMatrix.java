@@ -0,0 +1,191 @@
+package org.iguana.parser.matrix;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A square boolean matrix whose rows are sorted arrays of the columns of their set bits, so that
+ * a row takes space in the number of its bits rather than in the size of the matrix. Rows are
+ * only allocated when a bit is set in them, and clearing the matrix keeps them for reuse.
+ * Distinct rows may be written by different threads concurrently.
+ */
+public class BooleanMatrix {
+
+    private static final int INITIAL_ROW_CAPACITY = 4;
+
+    private final int size;
+
+    // The columns of row i are the first lengths[i] entries of rows[i], in increasing order
+    private final int[][] rows;
+
+    private final int[] lengths;
+
+    public BooleanMatrix(int size) {
+        this.size = size;
+        this.rows = new int[size][];
+        this.lengths = new int[size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int i, int j) {
+        return lengths[i] != 0 && Arrays.binarySearch(rows[i], 0, lengths[i], j) >= 0;
+    }
+
+    /**
+     * @return true if the bit was not set
+     */
+    public boolean set(int i, int j) {
+        int length = lengths[i];
+        int position = length == 0 ? -1 : Arrays.binarySearch(rows[i], 0, length, j);
+        if (position >= 0) return false;
+        position = -position - 1;
+        int[] row = ensureCapacity(i, length + 1);
+        System.arraycopy(row, position, row, position + 1, length - position);
+        row[position] = j;
+        lengths[i] = length + 1;
+        return true;
+    }
+
+    public void setDiagonal() {
+        for (int i = 0; i < size; i++) {
+            set(i, i);
+        }
+    }
+
+    public boolean isRowEmpty(int i) {
+        return lengths[i] == 0;
+    }
+
+    public boolean isEmpty() {
+        for (int length : lengths) {
+            if (length != 0) return false;
+        }
+        return true;
+    }
+
+    public int countRow(int i) {
+        return lengths[i];
+    }
+
+    public long count() {
+        long count = 0;
+        for (int length : lengths) {
+            count += length;
+        }
+        return count;
+    }
+
+    /**
+     * Calls the consumer with the columns of the set bits of row i, in increasing order.
+     */
+    public void forEachInRow(int i, IntConsumer consumer) {
+        int[] row = rows[i];
+        for (int k = 0; k < lengths[i]; k++) {
+            consumer.accept(row[k]);
+        }
+    }
+
+    /**
+     * Unsets all bits, but keeps the rows, so that filling the matrix again reuses them.
+     */
+    void clear() {
+        Arrays.fill(lengths, 0);
+    }
+
+    /**
+     * Sets in row i of this matrix the bits of row i of the other matrix that are not set in
+     * the excluded matrix, and returns true if a bit was set.
+     */
+    boolean orRow(int i, BooleanMatrix other, BooleanMatrix excluded) {
+        return add(i, other.rows[i], other.lengths[i], excluded);
+    }
+
+    /**
+     * Sets in row i of this matrix the bits of row i of a·b that are not set in the excluded
+     * matrix, and returns true if a bit was set. This is the row-by-row product: row i of a·b is
+     * the union of the rows k of b for the columns k set in row i of a.
+     */
+    boolean orProductRow(int i, BooleanMatrix a, BooleanMatrix b, BooleanMatrix excluded) {
+        int aLength = a.lengths[i];
+        if (aLength == 0) return false;
+        int[] aRow = a.rows[i];
+        if (aLength == 1) {
+            return add(i, b.rows[aRow[0]], b.lengths[aRow[0]], excluded);
+        }
+
+        int count = 0;
+        for (int x = 0; x < aLength; x++) {
+            count += b.lengths[aRow[x]];
+        }
+        if (count == 0) return false;
+
+        int[] columns = new int[count];
+        count = 0;
+        for (int x = 0; x < aLength; x++) {
+            int k = aRow[x];
+            if (b.lengths[k] == 0) continue;
+            System.arraycopy(b.rows[k], 0, columns, count, b.lengths[k]);
+            count += b.lengths[k];
+        }
+        Arrays.sort(columns);
+        int distinct = 1;
+        for (int x = 1; x < count; x++) {
+            if (columns[x] != columns[distinct - 1]) {
+                columns[distinct++] = columns[x];
+            }
+        }
+        return add(i, columns, distinct, excluded);
+    }
+
+    /**
+     * Sets in row i the given sorted and distinct columns that are not set in row i of the
+     * excluded matrix, and returns true if a bit was set.
+     */
+    private boolean add(int i, int[] columns, int count, BooleanMatrix excluded) {
+        if (count == 0) return false;
+        int[] exclude = excluded.rows[i];
+        int excludeLength = excluded.lengths[i];
+        int[] row = rows[i];
+        int length = lengths[i];
+
+        int[] added = null;
+        int addedCount = 0;
+        int e = 0;
+        int r = 0;
+        for (int x = 0; x < count; x++) {
+            int column = columns[x];
+            while (e < excludeLength && exclude[e] < column) e++;
+            if (e < excludeLength && exclude[e] == column) continue;
+            while (r < length && row[r] < column) r++;
+            if (r < length && row[r] == column) continue;
+            if (added == null) added = new int[count - x];
+            added[addedCount++] = column;
+        }
+        if (addedCount == 0) return false;
+
+        // Merges the added columns into the row from the back, in place
+        row = ensureCapacity(i, length + addedCount);
+        int w = length + addedCount - 1;
+        r = length - 1;
+        for (int a = addedCount - 1; a >= 0; ) {
+            row[w--] = r >= 0 && row[r] > added[a] ? row[r--] : added[a--];
+        }
+        lengths[i] = length + addedCount;
+        return true;
+    }
+
+    private int[] ensureCapacity(int i, int capacity) {
+        int[] row = rows[i];
+        if (row == null) {
+            row = new int[Math.max(capacity, INITIAL_ROW_CAPACITY)];
+            rows[i] = row;
+        } else if (row.length < capacity) {
+            row = Arrays.copyOf(row, Math.max(capacity, row.length * 2));
+            rows[i] = row;
+        }
+        return row;
+    }
+}
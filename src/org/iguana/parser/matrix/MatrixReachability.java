@@ -0,0 +1,150 @@
+package org.iguana.parser.matrix;
+
+import iguana.utils.input.AbstractCSRGraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ReachabilityCounts;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the reachabilities of a grammar on a graph with boolean matrices instead of a GLL
+ * parse: the relation of each nonterminal of the binary form of the grammar is a matrix over the
+ * vertices, and the rules are evaluated as unions and products of these matrices until a fixpoint.
+ * The evaluation is semi-naive: each round only multiplies with the pairs found in the previous
+ * round. The rows of the products are computed in parallel, and the matrices of the pairs of a
+ * round are reused two rounds later.
+ *
+ * All pairs of the start symbol are computed, so this pays off for queries from most vertices of
+ * graphs with many reachable pairs. The rows of the matrices are sorted arrays of columns, so a
+ * relation takes space in its number of pairs. The result contains all pairs derived from the
+ * start vertices, as a GLL parse without lookahead does; final vertices are not taken into
+ * account.
+ */
+public class MatrixReachability {
+
+    private final BinaryGrammar grammar;
+
+    /**
+     * @throws IllegalArgumentException if the grammar has symbols other than nonterminals without
+     * parameters and terminals of a single label or epsilon
+     */
+    public MatrixReachability(Grammar grammar) {
+        this.grammar = BinaryGrammar.from(grammar);
+    }
+
+    public PairSet getReachabilitySet(AbstractCSRGraphInput input, int parallelism) {
+        BooleanMatrix relation = solve(input, parallelism);
+        PairSet pairs = new PairSet();
+        input.getStartVertices().forEach(source -> relation.forEachInRow(source, target -> pairs.add(source, target)));
+        return pairs;
+    }
+
+    public ReachabilityCounts countReachabilities(AbstractCSRGraphInput input, int parallelism) {
+        BooleanMatrix relation = solve(input, parallelism);
+        ReachabilityCounts counts = new ReachabilityCounts();
+        input.getStartVertices().forEach(source -> counts.add(source, relation.countRow(source)));
+        return counts;
+    }
+
+    /**
+     * Returns the relation of the start symbol.
+     */
+    BooleanMatrix solve(AbstractCSRGraphInput input, int parallelism) {
+        int vertexCount = input.getVertexCount();
+        BooleanMatrix[] relations = new BooleanMatrix[grammar.nonterminalCount];
+        BooleanMatrix[] deltas = new BooleanMatrix[grammar.nonterminalCount];
+        // The deltas of the round before the previous one, which are cleared and reused
+        BooleanMatrix[] spare = new BooleanMatrix[grammar.nonterminalCount];
+        for (int i = 0; i < relations.length; i++) {
+            relations[i] = new BooleanMatrix(vertexCount);
+            deltas[i] = new BooleanMatrix(vertexCount);
+            spare[i] = new BooleanMatrix(vertexCount);
+        }
+
+        for (int head : grammar.epsilonRules) {
+            relations[head].setDiagonal();
+            deltas[head].setDiagonal();
+        }
+        for (int r = 0; r < grammar.terminalRuleHeads.length; r++) {
+            int labelId = input.getLabelId(grammar.terminalRuleLabels[r]);
+            if (labelId == -1) continue;
+            BooleanMatrix relation = relations[grammar.terminalRuleHeads[r]];
+            BooleanMatrix delta = deltas[grammar.terminalRuleHeads[r]];
+            for (int v = 0; v < vertexCount; v++) {
+                int source = v;
+                input.forEachDestVertex(v, labelId, target -> {
+                    relation.set(source, target);
+                    delta.set(source, target);
+                });
+            }
+        }
+
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            boolean changed = true;
+            while (changed) {
+                BooleanMatrix[] current = deltas;
+                BooleanMatrix[] next = spare;
+                for (BooleanMatrix delta : next) {
+                    delta.clear();
+                }
+
+                // The new pairs of each rule use at least one pair of the previous round
+                forEachRow(pool, vertexCount, row -> {
+                    for (int r = 0; r < grammar.unitRuleHeads.length; r++) {
+                        int head = grammar.unitRuleHeads[r];
+                        next[head].orRow(row, current[grammar.unitRuleBodies[r]], relations[head]);
+                    }
+                    for (int r = 0; r < grammar.binaryRuleHeads.length; r++) {
+                        int head = grammar.binaryRuleHeads[r];
+                        int left = grammar.binaryRuleLefts[r];
+                        int right = grammar.binaryRuleRights[r];
+                        next[head].orProductRow(row, current[left], relations[right], relations[head]);
+                        next[head].orProductRow(row, relations[left], current[right], relations[head]);
+                    }
+                });
+
+                forEachRow(pool, vertexCount, row -> {
+                    for (int i = 0; i < relations.length; i++) {
+                        relations[i].orRow(row, next[i], relations[i]);
+                    }
+                });
+
+                changed = false;
+                for (BooleanMatrix delta : next) {
+                    if (!delta.isEmpty()) {
+                        changed = true;
+                        break;
+                    }
+                }
+                spare = current;
+                deltas = next;
+            }
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+
+        return relations[grammar.start];
+    }
+
+    private static void forEachRow(ForkJoinPool pool, int rowCount, IntConsumer task) {
+        if (pool == null) {
+            for (int row = 0; row < rowCount; row++) {
+                task.accept(row);
+            }
+            return;
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, rowCount).parallel().forEach(task)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.iguana.result;
+
+/**
+ * The handle of a node of a {@link CompactResultOps} forest, which is what the runtime stores in
+ * the GSS and descriptors during a parse. The node itself is stored in the arrays of the forest.
+ * The handle also keeps the left extent, which fits in the padding of the object and which the
+ * forest does not store for intermediate nodes.
+ */
+public final class CompactResult implements Result {
+
+    private final CompactResultOps forest;
+
+    private final int handle;
+
+    private final int leftExtent;
+
+    CompactResult(CompactResultOps forest, int handle, int leftExtent) {
+        this.forest = forest;
+        this.handle = handle;
+        this.leftExtent = leftExtent;
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * @return -1 for the dummy result
+     */
+    @Override
+    public int getIndex() {
+        return isDummy() ? -1 : forest.getRightExtent(handle);
+    }
+
+    /**
+     * @return -1 for the dummy result
+     */
+    @Override
+    public int getLeftExtent() {
+        return leftExtent;
+    }
+
+    @Override
+    public boolean isDummy() {
+        return handle == CompactResultOps.NONE;
+    }
+
+    @Override
+    public Object getValue() {
+        return isDummy() ? null : forest.getValue(handle);
+    }
+
+    @Override
+    public String toString() {
+        return isDummy() ? "$" : String.format("(%s, %d, %d)", forest.getSlot(handle), getLeftExtent(), getIndex());
+    }
+}
@@ -0,0 +1,348 @@
+package org.iguana.result;
+
+import org.iguana.grammar.GrammarGraph;
+import org.iguana.grammar.slot.BodyGrammarSlot;
+import org.iguana.grammar.slot.EndGrammarSlot;
+import org.iguana.grammar.slot.GrammarSlot;
+import org.iguana.grammar.slot.TerminalGrammarSlot;
+import org.iguana.parser.Pair;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the SPPF of a parse in growable primitive arrays instead of node objects. A node is an
+ * integer handle into the arrays of its kind:
+ * <ul>
+ *     <li>a terminal node holds the id of its slot and its extents;</li>
+ *     <li>a nonterminal node holds the id of the end slot of its first derivation, its extents,
+ *     the child of its first derivation and its other derivations;</li>
+ *     <li>an intermediate node holds the id of its slot, the children of its first derivation
+ *     and its other derivations. Its extents are those of its children.</li>
+ * </ul>
+ * The other derivations of an ambiguous node are a chain of packed nodes, which hold the next
+ * packed node of the same node and the end slot and child of a derivation of a nonterminal node,
+ * or the two children of a derivation of an intermediate node. An unambiguous node thus takes a
+ * single record: 12 bytes for a terminal node, 20 for a nonterminal node and 16 for an
+ * intermediate node, and each further derivation takes 12 bytes.
+ *
+ * The runtime keeps the {@link CompactResult} of a node only while it still needs it, so after
+ * the parse the forest consists of the arrays alone, which {@link #getView(Map)} trims to their
+ * size. The forest is built by a single parse on a single thread, and is read with the SPPF
+ * traversals through a {@link CompactSPPFView}.
+ */
+public class CompactResultOps implements ResultOps<CompactResult> {
+
+    static final int NONE = -1;
+
+    static final byte TERMINAL = 0;
+    static final byte NONTERMINAL = 1;
+    static final byte INTERMEDIATE = 2;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final GrammarGraph grammarGraph;
+
+    // The terminal slots indexed by id
+    private final TerminalGrammarSlot[] terminalGrammarSlots;
+
+    private final CompactResult dummy = new CompactResult(this, NONE, -1);
+
+    private int[] terminalSlots = new int[INITIAL_CAPACITY];
+    private int[] terminalLeftExtents = new int[INITIAL_CAPACITY];
+    private int[] terminalRightExtents = new int[INITIAL_CAPACITY];
+    private int terminalNodeCount;
+
+    private int[] nonterminalSlots = new int[INITIAL_CAPACITY];
+    private int[] nonterminalLeftExtents = new int[INITIAL_CAPACITY];
+    private int[] nonterminalRightExtents = new int[INITIAL_CAPACITY];
+    private int[] nonterminalChildren = new int[INITIAL_CAPACITY];
+    // The last added packed node of the derivations after the first
+    private int[] nonterminalPackedNodes = new int[INITIAL_CAPACITY];
+    private int nonterminalNodeCount;
+
+    private int[] intermediateSlots = new int[INITIAL_CAPACITY];
+    private int[] intermediateLeftChildren = new int[INITIAL_CAPACITY];
+    private int[] intermediateRightChildren = new int[INITIAL_CAPACITY];
+    // The last added packed node of the derivations after the first
+    private int[] intermediatePackedNodes = new int[INITIAL_CAPACITY];
+    private int intermediateNodeCount;
+
+    // The end slot and child of a derivation of a nonterminal node, or the children of a
+    // derivation of an intermediate node
+    private int[] packedFirsts = new int[INITIAL_CAPACITY];
+    private int[] packedSeconds = new int[INITIAL_CAPACITY];
+    private int[] nextPackedNodes = new int[INITIAL_CAPACITY];
+    private int packedNodeCount;
+
+    // The values of the nonterminal nodes of data-dependent rules, which are rare
+    private Map<Integer, Object> values;
+
+    public CompactResultOps(GrammarGraph grammarGraph) {
+        this.grammarGraph = grammarGraph;
+        this.terminalGrammarSlots = new TerminalGrammarSlot[grammarGraph.getTerminalSlotCount()];
+        terminalGrammarSlots[GrammarGraph.epsilonSlot.getId()] = GrammarGraph.epsilonSlot;
+        for (TerminalGrammarSlot slot : grammarGraph.getTerminalGrammarSlots()) {
+            terminalGrammarSlots[slot.getId()] = slot;
+        }
+    }
+
+    @Override
+    public CompactResult dummy() {
+        return dummy;
+    }
+
+    @Override
+    public CompactResult base(TerminalGrammarSlot slot, int start, int end) {
+        return new CompactResult(this, addTerminalNode(slot.getId(), start, end), start);
+    }
+
+    @Override
+    public CompactResult merge(CompactResult current, CompactResult result1, CompactResult result2, BodyGrammarSlot slot) {
+        if (result1 == dummy)
+            return result2;
+
+        if (current == null) {
+            return new CompactResult(this, addIntermediateNode(slot.getId(), result1.getHandle(), result2.getHandle()), result1.getLeftExtent());
+        }
+        addPackedNode(intermediatePackedNodes, toIndex(current.getHandle()), result1.getHandle(), result2.getHandle());
+        return current;
+    }
+
+    @Override
+    public CompactResult convert(CompactResult current, CompactResult result, EndGrammarSlot slot, Object value) {
+        if (current == null) {
+            current = new CompactResult(this, addNonterminalNode(slot.getId(), result.getLeftExtent(), result.getIndex(), result.getHandle()), result.getLeftExtent());
+            if (value != null) {
+                if (values == null) values = new HashMap<>();
+                values.put(current.getHandle(), value);
+            }
+            return current;
+        }
+        addPackedNode(nonterminalPackedNodes, toIndex(current.getHandle()), slot.getId(), result.getHandle());
+        return current;
+    }
+
+    /**
+     * Returns a read-only view of the forest, whose roots are the given results of the parse.
+     * The forest is complete by then, so its arrays are trimmed to the nodes it holds.
+     */
+    public CompactSPPFView getView(Map<Pair, ? extends Result> roots) {
+        trim();
+        return new CompactSPPFView(this, roots);
+    }
+
+    public int getTerminalNodeCount() {
+        return terminalNodeCount;
+    }
+
+    public int getNonterminalNodeCount() {
+        return nonterminalNodeCount;
+    }
+
+    public int getIntermediateNodeCount() {
+        return intermediateNodeCount;
+    }
+
+    /**
+     * Returns the number of packed nodes of the derivations after the first of ambiguous nodes.
+     */
+    public int getPackedNodeCount() {
+        return packedNodeCount;
+    }
+
+    /**
+     * Returns the number of bytes taken by the arrays of the forest, including their unused
+     * capacity, but not the values of data-dependent nodes.
+     */
+    public long getByteCount() {
+        return (long) Integer.BYTES * (3L * terminalSlots.length
+                + 5L * nonterminalSlots.length
+                + 4L * intermediateSlots.length
+                + 3L * nextPackedNodes.length);
+    }
+
+    private void trim() {
+        terminalSlots = Arrays.copyOf(terminalSlots, terminalNodeCount);
+        terminalLeftExtents = Arrays.copyOf(terminalLeftExtents, terminalNodeCount);
+        terminalRightExtents = Arrays.copyOf(terminalRightExtents, terminalNodeCount);
+
+        nonterminalSlots = Arrays.copyOf(nonterminalSlots, nonterminalNodeCount);
+        nonterminalLeftExtents = Arrays.copyOf(nonterminalLeftExtents, nonterminalNodeCount);
+        nonterminalRightExtents = Arrays.copyOf(nonterminalRightExtents, nonterminalNodeCount);
+        nonterminalChildren = Arrays.copyOf(nonterminalChildren, nonterminalNodeCount);
+        nonterminalPackedNodes = Arrays.copyOf(nonterminalPackedNodes, nonterminalNodeCount);
+
+        intermediateSlots = Arrays.copyOf(intermediateSlots, intermediateNodeCount);
+        intermediateLeftChildren = Arrays.copyOf(intermediateLeftChildren, intermediateNodeCount);
+        intermediateRightChildren = Arrays.copyOf(intermediateRightChildren, intermediateNodeCount);
+        intermediatePackedNodes = Arrays.copyOf(intermediatePackedNodes, intermediateNodeCount);
+
+        packedFirsts = Arrays.copyOf(packedFirsts, packedNodeCount);
+        packedSeconds = Arrays.copyOf(packedSeconds, packedNodeCount);
+        nextPackedNodes = Arrays.copyOf(nextPackedNodes, packedNodeCount);
+    }
+
+    private int addTerminalNode(int slot, int leftExtent, int rightExtent) {
+        if (terminalNodeCount == terminalSlots.length) {
+            int capacity = Math.max(terminalNodeCount * 2, INITIAL_CAPACITY);
+            terminalSlots = Arrays.copyOf(terminalSlots, capacity);
+            terminalLeftExtents = Arrays.copyOf(terminalLeftExtents, capacity);
+            terminalRightExtents = Arrays.copyOf(terminalRightExtents, capacity);
+        }
+        int node = terminalNodeCount++;
+        terminalSlots[node] = slot;
+        terminalLeftExtents[node] = leftExtent;
+        terminalRightExtents[node] = rightExtent;
+        return -2 - node;
+    }
+
+    private int addNonterminalNode(int slot, int leftExtent, int rightExtent, int child) {
+        if (nonterminalNodeCount == nonterminalSlots.length) {
+            int capacity = Math.max(nonterminalNodeCount * 2, INITIAL_CAPACITY);
+            nonterminalSlots = Arrays.copyOf(nonterminalSlots, capacity);
+            nonterminalLeftExtents = Arrays.copyOf(nonterminalLeftExtents, capacity);
+            nonterminalRightExtents = Arrays.copyOf(nonterminalRightExtents, capacity);
+            nonterminalChildren = Arrays.copyOf(nonterminalChildren, capacity);
+            nonterminalPackedNodes = Arrays.copyOf(nonterminalPackedNodes, capacity);
+        }
+        int node = nonterminalNodeCount++;
+        nonterminalSlots[node] = slot;
+        nonterminalLeftExtents[node] = leftExtent;
+        nonterminalRightExtents[node] = rightExtent;
+        nonterminalChildren[node] = child;
+        nonterminalPackedNodes[node] = NONE;
+        return node << 1;
+    }
+
+    private int addIntermediateNode(int slot, int leftChild, int rightChild) {
+        if (intermediateNodeCount == intermediateSlots.length) {
+            int capacity = Math.max(intermediateNodeCount * 2, INITIAL_CAPACITY);
+            intermediateSlots = Arrays.copyOf(intermediateSlots, capacity);
+            intermediateLeftChildren = Arrays.copyOf(intermediateLeftChildren, capacity);
+            intermediateRightChildren = Arrays.copyOf(intermediateRightChildren, capacity);
+            intermediatePackedNodes = Arrays.copyOf(intermediatePackedNodes, capacity);
+        }
+        int node = intermediateNodeCount++;
+        intermediateSlots[node] = slot;
+        intermediateLeftChildren[node] = leftChild;
+        intermediateRightChildren[node] = rightChild;
+        intermediatePackedNodes[node] = NONE;
+        return node << 1 | 1;
+    }
+
+    // Prepends the packed node to the chain of the node, as the order of the derivations is
+    // restored when they are read
+    private void addPackedNode(int[] packedNodes, int node, int first, int second) {
+        if (packedNodeCount == nextPackedNodes.length) {
+            int capacity = Math.max(packedNodeCount * 2, INITIAL_CAPACITY);
+            packedFirsts = Arrays.copyOf(packedFirsts, capacity);
+            packedSeconds = Arrays.copyOf(packedSeconds, capacity);
+            nextPackedNodes = Arrays.copyOf(nextPackedNodes, capacity);
+        }
+        int packedNode = packedNodeCount++;
+        packedFirsts[packedNode] = first;
+        packedSeconds[packedNode] = second;
+        nextPackedNodes[packedNode] = packedNodes[node];
+        packedNodes[node] = packedNode;
+    }
+
+    // The handles of terminal nodes are -2, -3, ..., as -1 is NONE, those of nonterminal nodes
+    // are even and those of intermediate nodes are odd
+    static byte getKind(int node) {
+        if (node < NONE) return TERMINAL;
+        return (node & 1) == 0 ? NONTERMINAL : INTERMEDIATE;
+    }
+
+    /**
+     * Returns the index of the node among the nodes of its kind.
+     */
+    static int toIndex(int node) {
+        return node < NONE ? -2 - node : node >> 1;
+    }
+
+    GrammarSlot getSlot(int node) {
+        switch (getKind(node)) {
+            case TERMINAL: return terminalGrammarSlots[terminalSlots[toIndex(node)]];
+            case NONTERMINAL: return grammarGraph.getBodySlot(nonterminalSlots[toIndex(node)]);
+            default: return grammarGraph.getBodySlot(intermediateSlots[toIndex(node)]);
+        }
+    }
+
+    /**
+     * Takes the steps along the left children of intermediate nodes, of which there are at most
+     * as many as symbols in a rule.
+     */
+    int getLeftExtent(int node) {
+        while (getKind(node) == INTERMEDIATE) {
+            node = intermediateLeftChildren[toIndex(node)];
+        }
+        return getKind(node) == TERMINAL ? terminalLeftExtents[toIndex(node)] : nonterminalLeftExtents[toIndex(node)];
+    }
+
+    int getRightExtent(int node) {
+        // The right child of an intermediate node is a terminal or nonterminal node
+        while (getKind(node) == INTERMEDIATE) {
+            node = intermediateRightChildren[toIndex(node)];
+        }
+        return getKind(node) == TERMINAL ? terminalRightExtents[toIndex(node)] : nonterminalRightExtents[toIndex(node)];
+    }
+
+    Object getValue(int node) {
+        return values == null ? null : values.get(node);
+    }
+
+    /**
+     * Returns the left child of the first derivation of a nonterminal or intermediate node,
+     * which is the only child of a nonterminal node.
+     */
+    int getLeftChild(int node) {
+        return getKind(node) == NONTERMINAL ? nonterminalChildren[toIndex(node)] : intermediateLeftChildren[toIndex(node)];
+    }
+
+    /**
+     * Returns the right child of the first derivation of an intermediate node.
+     */
+    int getRightChild(int node) {
+        return intermediateRightChildren[toIndex(node)];
+    }
+
+    boolean isAmbiguous(int node) {
+        return getPackedNode(node) != NONE;
+    }
+
+    /**
+     * Returns the last added packed node of the derivations after the first of the node, or
+     * NONE if the node is not ambiguous.
+     */
+    int getPackedNode(int node) {
+        switch (getKind(node)) {
+            case TERMINAL: return NONE;
+            case NONTERMINAL: return nonterminalPackedNodes[toIndex(node)];
+            default: return intermediatePackedNodes[toIndex(node)];
+        }
+    }
+
+    int getNextPackedNode(int packedNode) {
+        return nextPackedNodes[packedNode];
+    }
+
+    /**
+     * Returns the slot of a packed node of the given node.
+     */
+    BodyGrammarSlot getPackedSlot(int node, int packedNode) {
+        return grammarGraph.getBodySlot(getKind(node) == NONTERMINAL ? packedFirsts[packedNode] : intermediateSlots[toIndex(node)]);
+    }
+
+    int getPackedLeftChild(int node, int packedNode) {
+        return getKind(node) == NONTERMINAL ? packedSeconds[packedNode] : packedFirsts[packedNode];
+    }
+
+    /**
+     * Returns NONE for a packed node of a nonterminal node.
+     */
+    int getPackedRightChild(int node, int packedNode) {
+        return getKind(node) == NONTERMINAL ? NONE : packedSeconds[packedNode];
+    }
+}
@@ -0,0 +1,239 @@
+package org.iguana.result;
+
+import org.iguana.grammar.slot.BodyGrammarSlot;
+import org.iguana.grammar.slot.EndGrammarSlot;
+import org.iguana.grammar.slot.TerminalGrammarSlot;
+import org.iguana.parser.Pair;
+import org.iguana.sppf.IntermediateNode;
+import org.iguana.sppf.NonPackedNode;
+import org.iguana.sppf.NonterminalNode;
+import org.iguana.sppf.PackedNode;
+import org.iguana.sppf.SPPFNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only view of a {@link CompactResultOps} forest as SPPF nodes, so that the SPPF visitors
+ * and traversals can walk it. The nodes are created when they are first reached and are then
+ * reused, so a node or packed node of the forest is always the same object. The packed nodes of
+ * an ambiguous node are its first derivation followed by its packed-node chain, in the order in
+ * which they were added, and are read once.
+ */
+public class CompactSPPFView {
+
+    private final CompactResultOps forest;
+
+    private final Map<Pair, NonterminalNode> roots;
+
+    // The nodes of each kind, indexed as in the forest
+    private final NonPackedNode[][] nodes = new NonPackedNode[3][];
+
+    private PackedNode[] packedNodes;
+
+    CompactSPPFView(CompactResultOps forest, Map<Pair, ? extends Result> roots) {
+        this.forest = forest;
+        this.nodes[CompactResultOps.TERMINAL] = new NonPackedNode[Math.min(forest.getTerminalNodeCount(), 1024)];
+        this.nodes[CompactResultOps.NONTERMINAL] = new NonPackedNode[Math.min(forest.getNonterminalNodeCount(), 1024)];
+        this.nodes[CompactResultOps.INTERMEDIATE] = new NonPackedNode[Math.min(forest.getIntermediateNodeCount(), 1024)];
+        this.packedNodes = new PackedNode[Math.min(forest.getPackedNodeCount(), 1024)];
+        Map<Pair, NonterminalNode> views = new HashMap<>();
+        roots.forEach((pair, root) -> views.put(pair, (NonterminalNode) getNode(((CompactResult) root).getHandle())));
+        this.roots = Collections.unmodifiableMap(views);
+    }
+
+    /**
+     * Returns the nonterminal nodes of the start symbol by their pair of vertices.
+     */
+    public Map<Pair, NonterminalNode> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Returns the forest of which this is the view.
+     */
+    public CompactResultOps getForest() {
+        return forest;
+    }
+
+    public NonPackedNode getNode(int handle) {
+        byte kind = CompactResultOps.getKind(handle);
+        int index = CompactResultOps.toIndex(handle);
+        NonPackedNode[] nodes = this.nodes[kind];
+        if (index >= nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(index + 1, Math.min(nodes.length * 2, getNodeCount(kind))));
+            this.nodes[kind] = nodes;
+        }
+        NonPackedNode node = nodes[index];
+        if (node == null) {
+            switch (kind) {
+                case CompactResultOps.TERMINAL:
+                    node = ParserResultOps.createTerminalNode((TerminalGrammarSlot) forest.getSlot(handle), forest.getLeftExtent(handle), forest.getRightExtent(handle));
+                    break;
+                case CompactResultOps.NONTERMINAL:
+                    node = new NonterminalView(handle);
+                    break;
+                default:
+                    node = new IntermediateView(handle);
+            }
+            nodes[index] = node;
+        }
+        return node;
+    }
+
+    private int getNodeCount(byte kind) {
+        switch (kind) {
+            case CompactResultOps.TERMINAL: return forest.getTerminalNodeCount();
+            case CompactResultOps.NONTERMINAL: return forest.getNonterminalNodeCount();
+            default: return forest.getIntermediateNodeCount();
+        }
+    }
+
+    // The first derivation followed by the other ones, which are chained from the last added
+    private List<PackedNode> getPackedNodes(int node, PackedNode firstPackedNode) {
+        if (!forest.isAmbiguous(node)) {
+            return null;
+        }
+        List<PackedNode> packedNodes = new ArrayList<>();
+        for (int p = forest.getPackedNode(node); p != CompactResultOps.NONE; p = forest.getNextPackedNode(p)) {
+            packedNodes.add(getPackedNode(node, p));
+        }
+        packedNodes.add(firstPackedNode);
+        Collections.reverse(packedNodes);
+        return Collections.unmodifiableList(packedNodes);
+    }
+
+    private PackedNode getPackedNode(int node, int handle) {
+        if (handle >= packedNodes.length) {
+            packedNodes = Arrays.copyOf(packedNodes, Math.max(handle + 1, Math.min(packedNodes.length * 2, forest.getPackedNodeCount())));
+        }
+        PackedNode packedNode = packedNodes[handle];
+        if (packedNode == null) {
+            packedNode = createPackedNode(forest.getPackedSlot(node, handle), forest.getPackedLeftChild(node, handle), forest.getPackedRightChild(node, handle));
+            packedNodes[handle] = packedNode;
+        }
+        return packedNode;
+    }
+
+    private PackedNode createPackedNode(BodyGrammarSlot slot, int leftChild, int rightChild) {
+        return new PackedNode(slot, getNode(leftChild), rightChild == CompactResultOps.NONE ? null : getNode(rightChild));
+    }
+
+    private class NonterminalView extends NonterminalNode {
+
+        private final int handle;
+
+        private PackedNode firstPackedNode;
+
+        private List<PackedNode> packedNodes;
+
+        NonterminalView(int handle) {
+            super((EndGrammarSlot) forest.getSlot(handle), null, forest.getLeftExtent(handle), forest.getRightExtent(handle));
+            this.handle = handle;
+        }
+
+        @Override
+        public SPPFNode getChildAt(int index) {
+            if (index == 0) {
+                return getNode(forest.getLeftChild(handle));
+            }
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public PackedNode getFirstPackedNode() {
+            if (firstPackedNode == null) {
+                firstPackedNode = createPackedNode(getEndGrammarSlot(), forest.getLeftChild(handle), CompactResultOps.NONE);
+            }
+            return firstPackedNode;
+        }
+
+        @Override
+        public boolean isAmbiguous() {
+            return forest.isAmbiguous(handle);
+        }
+
+        @Override
+        public void addPackedNode(PackedNode packedNode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<PackedNode> getPackedNodes() {
+            if (packedNodes == null) {
+                packedNodes = CompactSPPFView.this.getPackedNodes(handle, getFirstPackedNode());
+            }
+            return packedNodes;
+        }
+
+        @Override
+        public Object getValue() {
+            return forest.getValue(handle);
+        }
+    }
+
+    private class IntermediateView extends IntermediateNode {
+
+        private final int handle;
+
+        private PackedNode firstPackedNode;
+
+        private List<PackedNode> packedNodes;
+
+        IntermediateView(int handle) {
+            super((BodyGrammarSlot) forest.getSlot(handle), null, null);
+            this.handle = handle;
+        }
+
+        @Override
+        public SPPFNode getChildAt(int index) {
+            if (index == 0) {
+                return getNode(forest.getLeftChild(handle));
+            }
+            if (index == 1) {
+                return getNode(forest.getRightChild(handle));
+            }
+            throw new ArrayIndexOutOfBoundsException();
+        }
+
+        @Override
+        public int getLeftExtent() {
+            return forest.getLeftExtent(handle);
+        }
+
+        @Override
+        public int getIndex() {
+            return forest.getRightExtent(handle);
+        }
+
+        @Override
+        public PackedNode getFirstPackedNode() {
+            if (firstPackedNode == null) {
+                firstPackedNode = createPackedNode(getGrammarSlot(), forest.getLeftChild(handle), forest.getRightChild(handle));
+            }
+            return firstPackedNode;
+        }
+
+        @Override
+        public boolean isAmbiguous() {
+            return forest.isAmbiguous(handle);
+        }
+
+        @Override
+        public void addPackedNode(PackedNode packedNode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<PackedNode> getPackedNodes() {
+            if (packedNodes == null) {
+                packedNodes = CompactSPPFView.this.getPackedNodes(handle, getFirstPackedNode());
+            }
+            return packedNodes;
+        }
+    }
+}
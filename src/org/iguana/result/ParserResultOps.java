@@ -6,10 +6,7 @@ import org.iguana.sppf.*;
 import org.iguana.traversal.SPPFVisitor;
 import org.iguana.util.ParserLogger;
 
-import java.util.ArrayList;
-import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Stream;
 
 public class ParserResultOps implements ResultOps<NonPackedNode> {
@@ -40,10 +37,6 @@ public class ParserResultOps implements ResultOps<NonPackedNode> {
         @Override
         public <R> R accept(SPPFVisitor<R> visitAction) { throw new UnsupportedOperationException(); }
 
-        @Override
-        public void setAmbiguous(boolean ambiguous) {
-        }
-
         @Override
         public boolean isAmbiguous() {
             return false;
@@ -54,6 +47,16 @@ public class ParserResultOps implements ResultOps<NonPackedNode> {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public void addPackedNode(PackedNode packedNode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<PackedNode> getPackedNodes() {
+            return null;
+        }
+
         @Override
         public String toString() {
             return "$";
@@ -62,7 +65,13 @@ public class ParserResultOps implements ResultOps<NonPackedNode> {
 
     private final ParserLogger logger = ParserLogger.getInstance();
 
-    private final Map<NonPackedNode, List<PackedNode>> packedNodesMap = new IdentityHashMap<>();
+    /**
+     * The packed nodes of ambiguous nodes are kept in the nodes themselves, so the forest of a
+     * parse is released with its roots and an instance can be shared by the worker threads of a
+     * concurrent parse. Packed nodes are added to a node while holding its lock.
+     */
+    public ParserResultOps() {
+    }
 
     @Override
     public NonPackedNode dummy() {
@@ -71,18 +80,22 @@ public class ParserResultOps implements ResultOps<NonPackedNode> {
 
     @Override
     public TerminalNode base(TerminalGrammarSlot slot, int start, int end) {
-        TerminalNode node;
+        TerminalNode node = createTerminalNode(slot, start, end);
+        if (!(node instanceof EpsilonTerminalNode))
+            logger.terminalNodeAdded(node);
+        return node;
+    }
+
+    static TerminalNode createTerminalNode(TerminalGrammarSlot slot, int start, int end) {
         if (start == end) {
-            node = new EmptyTerminalNode(slot, start);
+            return new EmptyTerminalNode(slot, start);
         } else if (slot.getTerminal().getNodeType() == TerminalNodeType.Keyword) {
-            node = new KeywordTerminalNode(slot, start);
+            return new KeywordTerminalNode(slot, start);
         } else if (slot.getTerminal() == Terminal.epsilon())
             return new EpsilonTerminalNode(start);
         else {
-            node = new DefaultTerminalNode(slot, start, end);
+            return new DefaultTerminalNode(slot, start, end);
         }
-        logger.terminalNodeAdded(node);
-        return node;
     }
 
     @Override
@@ -94,21 +107,8 @@ public class ParserResultOps implements ResultOps<NonPackedNode> {
             current = new IntermediateNode(slot, result1, result2);
             //logger.intermediateNodeAdded((IntermediateNode) current);
         } else {
-            //Stream.Builder<PackedNode> packedNodes = Stream.builder();
-            List<PackedNode> packedNodes = packedNodesMap.computeIfAbsent(current, key -> new ArrayList<>());
-
-            if (!current.isAmbiguous()) {
-                PackedNode firstPackedNode = current.getFirstPackedNode();
-               // logger.packedNodeAdded(firstPackedNode);
-                packedNodes.add(firstPackedNode);
-
-                current.setAmbiguous(true);
-            //    logger.ambiguousNodeAdded(current);
-            }
-
             PackedNode packedNode = new PackedNode(slot, result1, result2);
-            packedNodes.add(packedNode);
-           // logger.packedNodeAdded(packedNode);
+            current.addPackedNode(packedNode);
         }
 
         return current;
@@ -124,19 +124,13 @@ public class ParserResultOps implements ResultOps<NonPackedNode> {
 
             logger.nonterminalNodeAdded((NonterminalNode) current);
         } else {
-            List<PackedNode> packedNodes = packedNodesMap.computeIfAbsent(current, key -> new ArrayList<>());
-
             if (!current.isAmbiguous()) {
-                PackedNode firstPackedNode = current.getFirstPackedNode();
-                logger.packedNodeAdded(firstPackedNode);
-                packedNodes.add(firstPackedNode);
-
-                current.setAmbiguous(true);
+                logger.packedNodeAdded(current.getFirstPackedNode());
                 logger.ambiguousNodeAdded(current);
             }
 
             PackedNode packedNode = new PackedNode(slot, result);
-            packedNodes.add(packedNode);
+            current.addPackedNode(packedNode);
             logger.packedNodeAdded(packedNode);
         }
 
@@ -144,7 +138,7 @@ public class ParserResultOps implements ResultOps<NonPackedNode> {
     }
 
     public List<PackedNode> getPackedNodes(NonPackedNode node) {
-        return packedNodesMap.get(node);
+        return node.getPackedNodes();
     }
 
 }
@@ -4,6 +4,8 @@ import org.iguana.grammar.slot.BodyGrammarSlot;
 import org.iguana.grammar.slot.EndGrammarSlot;
 import org.iguana.grammar.slot.TerminalGrammarSlot;
 
+import java.util.Arrays;
+
 public class RecognizerResultOps implements ResultOps<RecognizerResult> {
 
     private static final RecognizerResult dummy = new RecognizerResult() {
@@ -28,6 +30,13 @@ public class RecognizerResultOps implements ResultOps<RecognizerResult> {
         }
     };
 
+    private static final int INITIAL_CACHE_SIZE = 1024;
+
+    // The results are immutable and only carry their index, so one instance per index is shared
+    // by all the terminals that end there. The cache is not thread-safe and only lives for one
+    // parse: endParse shrinks it back, and every worker of a concurrent parse has its own.
+    private RecognizerResult[] results = new RecognizerResult[INITIAL_CACHE_SIZE];
+
     @Override
     public RecognizerResult dummy() {
         return dummy;
@@ -35,7 +44,20 @@ public class RecognizerResultOps implements ResultOps<RecognizerResult> {
 
     @Override
     public RecognizerResult base(TerminalGrammarSlot slot, int start, int end) {
-        return RecognizerResult.of(end);
+        if (end < 0) {
+            return RecognizerResult.of(end);
+        }
+        RecognizerResult[] results = this.results;
+        if (end >= results.length) {
+            results = Arrays.copyOf(results, Math.max(end + 1, results.length * 2));
+            this.results = results;
+        }
+        RecognizerResult result = results[end];
+        if (result == null) {
+            result = RecognizerResult.of(end);
+            results[end] = result;
+        }
+        return result;
     }
 
     @Override
@@ -53,5 +75,12 @@ public class RecognizerResultOps implements ResultOps<RecognizerResult> {
         }
         return result;
     }
+
+    @Override
+    public void endParse() {
+        if (results.length > INITIAL_CACHE_SIZE) {
+            results = new RecognizerResult[INITIAL_CACHE_SIZE];
+        }
+    }
 }
 
@@ -9,4 +9,10 @@ public interface ResultOps<T extends Result> {
     T base(TerminalGrammarSlot slot, int start, int end);
     T merge(T current, T result1, T result2, BodyGrammarSlot slot);
     T convert(T current, T result, EndGrammarSlot slot, Object value);
+
+    /**
+     * Called by the runtime at the end of every parse, to release what is only needed during
+     * the parse. The results of the parse stay valid.
+     */
+    default void endParse() { }
 }
@@ -30,6 +30,9 @@ package org.iguana.sppf;
 import org.iguana.grammar.slot.BodyGrammarSlot;
 import org.iguana.traversal.SPPFVisitor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class IntermediateNode extends NonPackedNode {
 
     private final NonPackedNode leftChild;
@@ -38,7 +41,11 @@ public class IntermediateNode extends NonPackedNode {
 
     private final BodyGrammarSlot slot;
 
-    private boolean ambiguous;
+    // Null until the first packed node is asked for, as most nodes are never traversed, then the
+    // first packed node, and the list of all packed nodes once the node becomes ambiguous. It is
+    // only written while holding the lock of this node, on which the concurrent runtime also
+    // synchronizes when it adds packed nodes.
+    private volatile Object packedNodes;
 
     public IntermediateNode(BodyGrammarSlot slot, NonPackedNode leftChild, NonPackedNode rightChild) {
         this.slot = slot;
@@ -83,17 +90,43 @@ public class IntermediateNode extends NonPackedNode {
     }
 
     @Override
-    public void setAmbiguous(boolean ambiguous) {
-        this.ambiguous = ambiguous;
+    public boolean isAmbiguous() {
+        return packedNodes instanceof List;
     }
 
     @Override
-    public boolean isAmbiguous() {
-        return ambiguous;
+    @SuppressWarnings("unchecked")
+    public PackedNode getFirstPackedNode() {
+        Object packedNodes = this.packedNodes;
+        if (packedNodes == null) {
+            synchronized (this) {
+                packedNodes = this.packedNodes;
+                if (packedNodes == null) {
+                    packedNodes = new PackedNode(slot, leftChild, rightChild);
+                    this.packedNodes = packedNodes;
+                }
+            }
+        }
+        return packedNodes instanceof PackedNode ? (PackedNode) packedNodes : ((List<PackedNode>) packedNodes).get(0);
     }
 
     @Override
-    public PackedNode getFirstPackedNode() {
-        return new PackedNode(slot, leftChild, rightChild);
+    @SuppressWarnings("unchecked")
+    public synchronized void addPackedNode(PackedNode packedNode) {
+        if (packedNodes instanceof List) {
+            ((List<PackedNode>) packedNodes).add(packedNode);
+        } else {
+            List<PackedNode> list = new ArrayList<>(2);
+            list.add(getFirstPackedNode());
+            list.add(packedNode);
+            packedNodes = list;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PackedNode> getPackedNodes() {
+        Object packedNodes = this.packedNodes;
+        return packedNodes instanceof List ? (List<PackedNode>) packedNodes : null;
     }
 }
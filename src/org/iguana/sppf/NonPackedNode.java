@@ -27,14 +27,33 @@
 
 package org.iguana.sppf;
 
-public abstract class NonPackedNode implements SPPFNode {
+import java.util.Collections;
+import java.util.List;
 
-    public abstract void setAmbiguous(boolean ambiguous);
+public abstract class NonPackedNode implements SPPFNode {
 
     public abstract boolean isAmbiguous();
 
     public abstract PackedNode getFirstPackedNode();
 
+    /**
+     * Adds a packed node other than the first one, which makes the node ambiguous.
+     */
+    public abstract void addPackedNode(PackedNode packedNode);
+
+    /**
+     * Returns all packed nodes from the first one if the node is ambiguous, and null otherwise.
+     */
+    public abstract List<PackedNode> getPackedNodes();
+
+    /**
+     * Returns all packed nodes, which is the first packed node alone if the node is not ambiguous.
+     */
+    public List<PackedNode> getAlternatives() {
+        List<PackedNode> packedNodes = getPackedNodes();
+        return packedNodes != null ? packedNodes : Collections.singletonList(getFirstPackedNode());
+    }
+
     @Override
     public String toString() {
         return String.format("(%s, %d, %d)", getGrammarSlot(), getLeftExtent(), getIndex());
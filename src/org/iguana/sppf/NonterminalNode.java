@@ -32,6 +32,9 @@ import org.iguana.grammar.slot.NonterminalGrammarSlot;
 import org.iguana.grammar.symbol.Rule;
 import org.iguana.traversal.SPPFVisitor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class NonterminalNode extends NonPackedNode {
 
 	private final EndGrammarSlot slot;
@@ -42,7 +45,11 @@ public class NonterminalNode extends NonPackedNode {
 
 	private final int rightExtent;
 
-    private boolean ambiguous;
+    // Null until the first packed node is asked for, as most nodes are never traversed, then the
+    // first packed node, and the list of all packed nodes once the node becomes ambiguous. It is
+    // only written while holding the lock of this node, on which the concurrent runtime also
+    // synchronizes when it adds packed nodes.
+    private volatile Object packedNodes;
 
 	public NonterminalNode(EndGrammarSlot slot, NonPackedNode child, int leftExtent, int rightExtent) {
 		this.slot = slot;
@@ -88,13 +95,28 @@ public class NonterminalNode extends NonPackedNode {
     }
 
     @Override
-    public void setAmbiguous(boolean ambiguous) {
-        this.ambiguous = ambiguous;
+    public boolean isAmbiguous() {
+        return packedNodes instanceof List;
     }
 
     @Override
-    public boolean isAmbiguous() {
-        return ambiguous;
+    @SuppressWarnings("unchecked")
+    public synchronized void addPackedNode(PackedNode packedNode) {
+        if (packedNodes instanceof List) {
+            ((List<PackedNode>) packedNodes).add(packedNode);
+        } else {
+            List<PackedNode> list = new ArrayList<>(2);
+            list.add(getFirstPackedNode());
+            list.add(packedNode);
+            packedNodes = list;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PackedNode> getPackedNodes() {
+        Object packedNodes = this.packedNodes;
+        return packedNodes instanceof List ? (List<PackedNode>) packedNodes : null;
     }
 
     @Override
@@ -108,7 +130,18 @@ public class NonterminalNode extends NonPackedNode {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public PackedNode getFirstPackedNode() {
-        return new PackedNode(slot, child);
+        Object packedNodes = this.packedNodes;
+        if (packedNodes == null) {
+            synchronized (this) {
+                packedNodes = this.packedNodes;
+                if (packedNodes == null) {
+                    packedNodes = new PackedNode(slot, child);
+                    this.packedNodes = packedNodes;
+                }
+            }
+        }
+        return packedNodes instanceof PackedNode ? (PackedNode) packedNodes : ((List<PackedNode>) packedNodes).get(0);
     }
 }
@@ -30,6 +30,8 @@ package org.iguana.sppf;
 import org.iguana.grammar.slot.TerminalGrammarSlot;
 import org.iguana.traversal.SPPFVisitor;
 
+import java.util.List;
+
 public abstract class TerminalNode extends NonPackedNode {
 
 	private final int leftExtent;
@@ -61,11 +63,6 @@ public abstract class TerminalNode extends NonPackedNode {
         return leftExtent;
     }
 
-    @Override
-    public void setAmbiguous(boolean ambiguous) {
-		throw new UnsupportedOperationException();
-    }
-
     @Override
     public boolean isAmbiguous() {
         return false;
@@ -75,4 +72,14 @@ public abstract class TerminalNode extends NonPackedNode {
     public PackedNode getFirstPackedNode() {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public void addPackedNode(PackedNode packedNode) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<PackedNode> getPackedNodes() {
+        return null;
+    }
 }
@@ -7,7 +7,6 @@ import org.iguana.grammar.symbol.Symbol;
 import org.iguana.parsetree.MetaSymbolNode;
 import org.iguana.parsetree.ParseTreeBuilder;
 import org.iguana.parsetree.VisitResult;
-import org.iguana.result.ParserResultOps;
 import org.iguana.sppf.*;
 
 import java.util.List;
@@ -24,14 +23,12 @@ public class AmbiguousSPPFToParseTreeVisitor<T> implements SPPFVisitor<VisitResu
     private final Map<NonPackedNode, VisitResult> convertedNodes;
 
     private final boolean ignoreLayout;
-    private final ParserResultOps resultOps;
 
     private final VisitResult.CreateParseTreeVisitor<T> createNodeVisitor;
 
-    public AmbiguousSPPFToParseTreeVisitor(ParseTreeBuilder<T> parseTreeBuilder, boolean ignoreLayout, ParserResultOps resultOps) {
+    public AmbiguousSPPFToParseTreeVisitor(ParseTreeBuilder<T> parseTreeBuilder, boolean ignoreLayout) {
         this.parseTreeBuilder = parseTreeBuilder;
         this.ignoreLayout = ignoreLayout;
-        this.resultOps = resultOps;
         this.convertedNodes = new HashMap<>();
         this.visitedNodes = new LinkedHashSet<>();
         this.createNodeVisitor = new VisitResult.CreateParseTreeVisitor<>(parseTreeBuilder);
@@ -90,7 +87,7 @@ public class AmbiguousSPPFToParseTreeVisitor<T> implements SPPFVisitor<VisitResu
 
         if (node.isAmbiguous()) {
             Set<T> children = new HashSet<>();
-            for (PackedNode packedNode : resultOps.getPackedNodes(node)) {
+            for (PackedNode packedNode : node.getPackedNodes()) {
                 VisitResult visitResult = packedNode.accept(this);
                 children.addAll(visitResult.accept(createNodeVisitor, packedNode));
             }
@@ -183,7 +180,7 @@ public class AmbiguousSPPFToParseTreeVisitor<T> implements SPPFVisitor<VisitResu
 
         if (node.isAmbiguous()) {
             result = empty();
-            for (PackedNode packedNode : resultOps.getPackedNodes(node)) {
+            for (PackedNode packedNode : node.getPackedNodes()) {
                 result = result.merge(packedNode.accept(this));
             }
         } else {
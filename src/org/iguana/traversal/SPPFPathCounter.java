@@ -0,0 +1,213 @@
+package org.iguana.traversal;
+
+import org.iguana.sppf.NonPackedNode;
+import org.iguana.sppf.PackedNode;
+import org.iguana.sppf.TerminalNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts the derivations of the nodes of an SPPF of a graph parse by the length of their paths,
+ * up to a maximum length, without enumerating them. For an unambiguous grammar this is the number
+ * of distinct paths; otherwise a path is counted once for each of its derivations.
+ *
+ * The counts of a node are computed from the counts of its children for each length. In the SPPF
+ * of a graph with cycles, a node may derive itself through children that derive empty paths, and
+ * then it has infinitely many derivations of the same length. The counts of the strongly connected
+ * components of the SPPF are therefore computed as a fixpoint, and a count that still grows after
+ * every node of the component could have been nested in it is infinite. The counts saturate at
+ * maxCount, which is also the count of an infinite number of derivations.
+ */
+public class SPPFPathCounter {
+
+    private final int maxLength;
+
+    private final long maxCount;
+
+    private final Map<NonPackedNode, long[]> counts = new IdentityHashMap<>();
+
+    /**
+     * @param maxLength the maximum number of edges of a counted path
+     * @param maxCount  the count at which counting stops
+     */
+    public SPPFPathCounter(int maxLength, long maxCount) {
+        if (maxLength < 0 || maxCount < 1) {
+            throw new IllegalArgumentException("The maximum length should be nonnegative and the maximum count positive");
+        }
+        this.maxLength = maxLength;
+        this.maxCount = maxCount;
+    }
+
+    public SPPFPathCounter(int maxLength) {
+        this(maxLength, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of derivations of the node whose path has at most maxLength edges, or
+     * maxCount if there are at least as many.
+     */
+    public long count(NonPackedNode node) {
+        long count = 0;
+        for (long c : counts(node)) {
+            count = add(count, c);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of derivations of the node whose path has exactly length edges.
+     */
+    public long count(NonPackedNode node, int length) {
+        return length > maxLength ? 0 : counts(node)[length];
+    }
+
+    private long[] counts(NonPackedNode node) {
+        long[] c = counts.get(node);
+        if (c == null) {
+            solve(node);
+            c = counts.get(node);
+        }
+        return c;
+    }
+
+    /**
+     * Counts the nodes reachable from the root that have not been counted yet, one strongly
+     * connected component at a time, after the components that it depends on (Tarjan).
+     */
+    private void solve(NonPackedNode root) {
+        Map<NonPackedNode, Integer> indices = new IdentityHashMap<>();
+        Set<NonPackedNode> onStack = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<NonPackedNode> stack = new ArrayDeque<>();
+        Deque<Frame> frames = new ArrayDeque<>();
+
+        frames.push(visit(root, indices, onStack, stack));
+        while (!frames.isEmpty()) {
+            Frame frame = frames.peek();
+            if (frame.children.hasNext()) {
+                NonPackedNode child = frame.children.next();
+                if (counts.containsKey(child)) continue;
+                Integer index = indices.get(child);
+                if (index == null) {
+                    frames.push(visit(child, indices, onStack, stack));
+                } else if (onStack.contains(child)) {
+                    frame.lowlink = Math.min(frame.lowlink, index);
+                }
+                continue;
+            }
+
+            frames.pop();
+            if (!frames.isEmpty()) {
+                frames.peek().lowlink = Math.min(frames.peek().lowlink, frame.lowlink);
+            }
+            if (frame.lowlink == frame.index) {
+                List<NonPackedNode> component = new ArrayList<>();
+                NonPackedNode node;
+                do {
+                    node = stack.pop();
+                    onStack.remove(node);
+                    component.add(node);
+                } while (node != frame.node);
+                solveComponent(component);
+            }
+        }
+    }
+
+    private Frame visit(NonPackedNode node, Map<NonPackedNode, Integer> indices, Set<NonPackedNode> onStack, Deque<NonPackedNode> stack) {
+        int index = indices.size();
+        indices.put(node, index);
+        onStack.add(node);
+        stack.push(node);
+
+        List<NonPackedNode> children = new ArrayList<>();
+        if (!(node instanceof TerminalNode)) {
+            for (PackedNode packedNode : node.getAlternatives()) {
+                children.add(packedNode.getLeftChild());
+                if (packedNode.getRightChild() != null) {
+                    children.add(packedNode.getRightChild());
+                }
+            }
+        }
+        return new Frame(node, index, children.iterator());
+    }
+
+    /**
+     * Counts the nodes of a component, whose children in other components have been counted.
+     * Within a length, the nodes of the component depend on each other only through children
+     * that derive empty paths, so a node whose count changes in a round after every node of the
+     * component could have been nested has infinitely many derivations of that length.
+     */
+    private void solveComponent(List<NonPackedNode> component) {
+        for (NonPackedNode node : component) {
+            long[] c = new long[maxLength + 1];
+            if (node instanceof TerminalNode) {
+                int length = SPPFPathEnumerator.toPath((TerminalNode) node).length();
+                if (length <= maxLength) c[length] = 1;
+            }
+            counts.put(node, c);
+        }
+
+        for (int length = 0; length <= maxLength; length++) {
+            boolean changed = true;
+            for (int round = 1; changed; round++) {
+                changed = false;
+                for (NonPackedNode node : component) {
+                    if (node instanceof TerminalNode) continue;
+                    long[] c = counts.get(node);
+                    long count = 0;
+                    for (PackedNode packedNode : node.getAlternatives()) {
+                        count = add(count, count(packedNode, length));
+                    }
+                    if (count > c[length]) {
+                        c[length] = round > component.size() ? maxCount : count;
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private long count(PackedNode packedNode, int length) {
+        long[] left = counts.get(packedNode.getLeftChild());
+        if (packedNode.getRightChild() == null) {
+            return left[length];
+        }
+        long[] right = counts.get(packedNode.getRightChild());
+        long count = 0;
+        for (int i = 0; i <= length; i++) {
+            count = add(count, multiply(left[i], right[length - i]));
+        }
+        return count;
+    }
+
+    private long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 || sum > maxCount ? maxCount : sum;
+    }
+
+    private long multiply(long a, long b) {
+        if (a == 0 || b == 0) return 0;
+        return a > maxCount / b ? maxCount : a * b;
+    }
+
+    private static class Frame {
+        final NonPackedNode node;
+        final int index;
+        final Iterator<NonPackedNode> children;
+        int lowlink;
+
+        Frame(NonPackedNode node, int index, Iterator<NonPackedNode> children) {
+            this.node = node;
+            this.index = index;
+            this.children = children;
+            this.lowlink = index;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.iguana.traversal;
+
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.parser.GraphPath;
+import org.iguana.sppf.EpsilonTerminalNode;
+import org.iguana.sppf.NonPackedNode;
+import org.iguana.sppf.PackedNode;
+import org.iguana.sppf.TerminalNode;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Enumerates the graph paths of the derivations in the SPPF of a graph parse one at a time,
+ * without converting the SPPF to parse trees. The derivations are walked depth-first and lazily:
+ * the next path is only computed when it is requested, so the first paths of a node with
+ * exponentially many derivations are found quickly.
+ *
+ * The SPPF of a graph with cycles has cycles too, and then a node has infinitely many
+ * derivations. A derivation may therefore pass through a node that it is already deriving at
+ * most cycleBound times, and paths longer than maxLength are not enumerated. Derivations that
+ * yield the same path are reported once.
+ */
+public class SPPFPathEnumerator {
+
+    public static final int DEFAULT_CYCLE_BOUND = 1;
+
+    private final int maxLength;
+
+    private final int cycleBound;
+
+    public SPPFPathEnumerator(int maxLength, int cycleBound) {
+        this.maxLength = maxLength;
+        this.cycleBound = cycleBound;
+    }
+
+    public SPPFPathEnumerator(int maxLength) {
+        this(maxLength, DEFAULT_CYCLE_BOUND);
+    }
+
+    /**
+     * Returns the distinct paths derived by the node.
+     */
+    public Iterator<GraphPath> iterator(NonPackedNode node) {
+        Set<GraphPath> reported = new HashSet<>();
+        return filter(paths(node, null, maxLength), reported::add);
+    }
+
+    public Stream<GraphPath> stream(NonPackedNode node) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(node),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    private Iterator<GraphPath> paths(NonPackedNode node, Ancestors ancestors, int budget) {
+        // At least one edge is needed to get from the left to the right extent
+        if (budget < 0 || (budget == 0 && node.getLeftExtent() != node.getIndex())) {
+            return Collections.emptyIterator();
+        }
+
+        if (node instanceof TerminalNode) {
+            GraphPath path = toPath((TerminalNode) node);
+            return path.length() <= budget ? Collections.singletonList(path).iterator() : Collections.emptyIterator();
+        }
+
+        if (Ancestors.count(ancestors, node) > cycleBound) {
+            return Collections.emptyIterator();
+        }
+        Ancestors path = new Ancestors(node, ancestors);
+
+        return flatMap(node.getAlternatives().iterator(), (PackedNode packedNode) -> {
+            NonPackedNode left = packedNode.getLeftChild();
+            NonPackedNode right = packedNode.getRightChild();
+            if (right == null) {
+                return paths(left, path, budget);
+            }
+            return flatMap(paths(left, path, budget),
+                    leftPath -> map(paths(right, path, budget - leftPath.length()), leftPath::concat));
+        });
+    }
+
+    static GraphPath toPath(TerminalNode node) {
+        Terminal terminal = node.getGrammarSlot().getTerminal();
+        if (node instanceof EpsilonTerminalNode || terminal == Terminal.epsilon()) {
+            return GraphPath.empty(node.getLeftExtent());
+        }
+        // A terminal node of a graph is an edge, and a self-loop if its extents are equal
+        return GraphPath.edge(node.getLeftExtent(), terminal.getRegularExpression().toString(), node.getIndex());
+    }
+
+    private static <T, R> Iterator<R> flatMap(Iterator<T> source, Function<T, Iterator<R>> function) {
+        return new Iterator<R>() {
+            private Iterator<R> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (!source.hasNext()) return false;
+                    current = function.apply(source.next());
+                }
+                return true;
+            }
+
+            @Override
+            public R next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    private static <T, R> Iterator<R> map(Iterator<T> source, Function<T, R> function) {
+        return new Iterator<R>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public R next() {
+                return function.apply(source.next());
+            }
+        };
+    }
+
+    private static <T> Iterator<T> filter(Iterator<T> source, Predicate<T> predicate) {
+        return new Iterator<T>() {
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && source.hasNext()) {
+                    T candidate = source.next();
+                    if (predicate.test(candidate)) next = candidate;
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                T result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * The nodes that a derivation is deriving, from the innermost one.
+     */
+    static class Ancestors {
+        final NonPackedNode node;
+        final Ancestors parent;
+
+        Ancestors(NonPackedNode node, Ancestors parent) {
+            this.node = node;
+            this.parent = parent;
+        }
+
+        static int count(Ancestors ancestors, NonPackedNode node) {
+            int count = 0;
+            for (Ancestors a = ancestors; a != null; a = a.parent) {
+                if (a.node == node) count++;
+            }
+            return count;
+        }
+    }
+}
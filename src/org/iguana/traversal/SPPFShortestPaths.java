@@ -0,0 +1,283 @@
+package org.iguana.traversal;
+
+import org.iguana.parser.GraphPath;
+import org.iguana.sppf.NonPackedNode;
+import org.iguana.sppf.PackedNode;
+import org.iguana.sppf.TerminalNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Computes the shortest graph paths derived by the nodes of an SPPF of a graph parse.
+ *
+ * The minimum number of edges derived by each nonterminal and intermediate node is computed
+ * bottom-up over the shared forest as a fixpoint: the SPPF of a graph with cycles has cycles
+ * too, so the lengths are relaxed until they no longer decrease. One shortest path then follows
+ * the best packed node of each node. The k shortest paths are found by a best-first search over
+ * partial derivations, in which the minimum lengths of the nodes that are left to derive are an
+ * exact estimate of the remaining length, so that only derivations that are at most as long as
+ * the k-th path are expanded.
+ *
+ * The lengths are computed once per node and shared by all nodes queried on the same SPPF.
+ */
+public class SPPFShortestPaths {
+
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final int cycleBound;
+
+    private final Map<NonPackedNode, Entry> entries = new IdentityHashMap<>();
+
+    /**
+     * @param cycleBound the number of times a derivation of the k shortest paths may pass through a
+     *                   node that it is already deriving
+     */
+    public SPPFShortestPaths(int cycleBound) {
+        this.cycleBound = cycleBound;
+    }
+
+    public SPPFShortestPaths() {
+        this(SPPFPathEnumerator.DEFAULT_CYCLE_BOUND);
+    }
+
+    /**
+     * Returns the minimum number of edges of a path derived by the node, or {@link #INFINITY} if
+     * the node has no finite derivation.
+     */
+    public int getShortestLength(NonPackedNode node) {
+        return entry(node).length;
+    }
+
+    /**
+     * Returns a shortest path derived by the node, or null if the node has no finite derivation.
+     */
+    public GraphPath getShortestPath(NonPackedNode node) {
+        if (getShortestLength(node) == INFINITY) {
+            return null;
+        }
+
+        GraphPath path = null;
+        Deque<NonPackedNode> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            NonPackedNode current = stack.pop();
+            if (current instanceof TerminalNode) {
+                GraphPath edge = SPPFPathEnumerator.toPath((TerminalNode) current);
+                path = path == null ? edge : path.concat(edge);
+                continue;
+            }
+            PackedNode best = entries.get(current).best;
+            if (best.getRightChild() != null) {
+                stack.push(best.getRightChild());
+            }
+            stack.push(best.getLeftChild());
+        }
+        return path;
+    }
+
+    /**
+     * Returns at most k distinct paths derived by the node, from the shortest one. No path that is
+     * shorter than the last returned one is left out.
+     */
+    public List<GraphPath> getShortestPaths(NonPackedNode node, int k) {
+        List<GraphPath> paths = new ArrayList<>();
+        if (k <= 0 || getShortestLength(node) == INFINITY) {
+            return paths;
+        }
+
+        Set<GraphPath> reported = new HashSet<>();
+        PriorityQueue<Derivation> queue = new PriorityQueue<>();
+        queue.add(new Derivation(null, node.getLeftExtent(), 0, new Pending(node, null, null), getShortestLength(node)));
+
+        while (!queue.isEmpty() && paths.size() < k) {
+            Derivation derivation = queue.poll();
+            Pending pending = derivation.pending;
+
+            if (pending == null) {
+                GraphPath path = derivation.toPath();
+                if (reported.add(path)) paths.add(path);
+                continue;
+            }
+
+            if (pending.node instanceof TerminalNode) {
+                TerminalNode terminal = (TerminalNode) pending.node;
+                Edges edges = SPPFPathEnumerator.toPath(terminal).length() == 0 ? derivation.edges : new Edges(terminal, derivation.edges);
+                queue.add(new Derivation(edges, terminal.getIndex(), derivation.length + entry(terminal).length,
+                        pending.next, derivation.estimate));
+                continue;
+            }
+
+            if (SPPFPathEnumerator.Ancestors.count(pending.ancestors, pending.node) > cycleBound) {
+                continue;
+            }
+            SPPFPathEnumerator.Ancestors ancestors = new SPPFPathEnumerator.Ancestors(pending.node, pending.ancestors);
+            int remaining = derivation.estimate - derivation.length - entry(pending.node).length;
+
+            for (PackedNode packedNode : pending.node.getAlternatives()) {
+                NonPackedNode left = packedNode.getLeftChild();
+                NonPackedNode right = packedNode.getRightChild();
+                Pending next = right == null ? pending.next : new Pending(right, ancestors, pending.next);
+                next = new Pending(left, ancestors, next);
+                int length = length(packedNode);
+                if (length == INFINITY) continue;
+                queue.add(new Derivation(derivation.edges, derivation.vertex, derivation.length, next,
+                        derivation.length + length + remaining));
+            }
+        }
+        return paths;
+    }
+
+    private Entry entry(NonPackedNode node) {
+        Entry entry = entries.get(node);
+        if (entry == null) {
+            solve(node);
+            entry = entries.get(node);
+        }
+        return entry;
+    }
+
+    private int length(PackedNode packedNode) {
+        int left = entries.get(packedNode.getLeftChild()).length;
+        if (packedNode.getRightChild() == null || left == INFINITY) {
+            return left;
+        }
+        int right = entries.get(packedNode.getRightChild()).length;
+        return right == INFINITY ? INFINITY : left + right;
+    }
+
+    /**
+     * Computes the lengths of the nodes reachable from the root that have not been computed yet.
+     * The nodes are relaxed in postorder, so that the lengths of a forest without cycles are
+     * final after the first round.
+     */
+    private void solve(NonPackedNode root) {
+        List<NonPackedNode> postorder = new ArrayList<>();
+        Deque<Iterator<NonPackedNode>> stack = new ArrayDeque<>();
+        Deque<NonPackedNode> parents = new ArrayDeque<>();
+
+        visit(root, stack, parents);
+        while (!stack.isEmpty()) {
+            Iterator<NonPackedNode> children = stack.peek();
+            if (children.hasNext()) {
+                visit(children.next(), stack, parents);
+            } else {
+                stack.pop();
+                postorder.add(parents.pop());
+            }
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (NonPackedNode node : postorder) {
+                Entry entry = entries.get(node);
+                for (PackedNode packedNode : node.getAlternatives()) {
+                    int length = length(packedNode);
+                    if (length < entry.length) {
+                        entry.length = length;
+                        entry.best = packedNode;
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private void visit(NonPackedNode node, Deque<Iterator<NonPackedNode>> stack, Deque<NonPackedNode> parents) {
+        if (entries.containsKey(node)) {
+            return;
+        }
+        Entry entry = new Entry();
+        entries.put(node, entry);
+        if (node instanceof TerminalNode) {
+            entry.length = SPPFPathEnumerator.toPath((TerminalNode) node).length();
+            return;
+        }
+
+        List<NonPackedNode> children = new ArrayList<>();
+        for (PackedNode packedNode : node.getAlternatives()) {
+            children.add(packedNode.getLeftChild());
+            if (packedNode.getRightChild() != null) {
+                children.add(packedNode.getRightChild());
+            }
+        }
+        stack.push(children.iterator());
+        parents.push(node);
+    }
+
+    private static class Entry {
+        int length = INFINITY;
+        PackedNode best;
+    }
+
+    /**
+     * The nodes that are left to derive, from left to right, each with the nodes that its
+     * derivation is nested in.
+     */
+    private static class Pending {
+        final NonPackedNode node;
+        final SPPFPathEnumerator.Ancestors ancestors;
+        final Pending next;
+
+        Pending(NonPackedNode node, SPPFPathEnumerator.Ancestors ancestors, Pending next) {
+            this.node = node;
+            this.ancestors = ancestors;
+            this.next = next;
+        }
+    }
+
+    /**
+     * The edges derived so far, from the last one.
+     */
+    private static class Edges {
+        final TerminalNode edge;
+        final Edges previous;
+
+        Edges(TerminalNode edge, Edges previous) {
+            this.edge = edge;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * A partial derivation: the edges derived so far, which end at the vertex, and the nodes
+     * that are left to derive. The estimate is a lower bound of the length of its paths.
+     */
+    private static class Derivation implements Comparable<Derivation> {
+        final Edges edges;
+        final int vertex;
+        final int length;
+        final Pending pending;
+        final int estimate;
+
+        Derivation(Edges edges, int vertex, int length, Pending pending, int estimate) {
+            this.edges = edges;
+            this.vertex = vertex;
+            this.length = length;
+            this.pending = pending;
+            this.estimate = estimate;
+        }
+
+        GraphPath toPath() {
+            GraphPath path = GraphPath.empty(vertex);
+            for (Edges e = edges; e != null; e = e.previous) {
+                path = SPPFPathEnumerator.toPath(e.edge).concat(path);
+            }
+            return path;
+        }
+
+        @Override
+        public int compareTo(Derivation other) {
+            return Integer.compare(estimate, other.estimate);
+        }
+    }
+}
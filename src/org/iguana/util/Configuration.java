@@ -44,6 +44,10 @@ public class Configuration {
 	
 	private final EnvironmentImpl envImpl;
 
+	private final DescriptorSchedulerType descriptorSchedulerType;
+
+	private final ReachabilityBackend reachabilityBackend;
+
     private final LogLevel logLevel;
 
     public static Configuration load() {
@@ -63,6 +67,8 @@ public class Configuration {
 		this.matcherType = builder.matcherType;
 		this.hashmapImpl = builder.hashmapImpl;
 		this.envImpl = builder.envImpl;
+		this.descriptorSchedulerType = builder.descriptorSchedulerType;
+		this.reachabilityBackend = builder.reachabilityBackend;
         this.logLevel = builder.logLevel;
 	}
 		
@@ -86,6 +92,14 @@ public class Configuration {
 		return envImpl;
 	}
 
+	public DescriptorSchedulerType getDescriptorSchedulerType() {
+		return descriptorSchedulerType;
+	}
+
+	public ReachabilityBackend getReachabilityBackend() {
+		return reachabilityBackend;
+	}
+
     public LogLevel getLogLevel() {
         return logLevel;
     }
@@ -93,6 +107,21 @@ public class Configuration {
     public static Builder builder() {
 		return new Builder();
 	}
+
+	/**
+	 * Returns a builder that starts from the options of the given configuration.
+	 */
+	public static Builder builder(Configuration configuration) {
+		return new Builder()
+			.setGSSLookupImpl(configuration.gssLookupImpl)
+			.setMatcherType(configuration.matcherType)
+			.setHashmapImpl(configuration.hashmapImpl)
+			.setLookaheadCount(configuration.lookAheadCount)
+			.setEnvironmentImpl(configuration.envImpl)
+			.setDescriptorSchedulerType(configuration.descriptorSchedulerType)
+			.setReachabilityBackend(configuration.reachabilityBackend)
+			.setLogLevel(configuration.logLevel);
+	}
 	
 	public enum MatcherType {
     	GRAPH,
@@ -116,6 +145,26 @@ public class Configuration {
 		HASH_MAP,
 		TRIE
 	}
+
+	/**
+	 * The order in which descriptors are processed: last-in first-out, first-in first-out, or in
+	 * batches of the descriptors at the same input index or grammar slot.
+	 */
+	public enum DescriptorSchedulerType {
+		LIFO,
+		FIFO,
+		VERTEX_BUCKETED,
+		SLOT_BATCHED
+	}
+
+	/**
+	 * How the reachabilities of graph queries are computed: by a GLL parse, or by a fixpoint of
+	 * boolean matrix products over all pairs of vertices.
+	 */
+	public enum ReachabilityBackend {
+		GLL,
+		MATRIX
+	}
 		
 	@Override
 	public String toString() {
@@ -124,6 +173,8 @@ public class Configuration {
 		sb.append(MatcherType.class.getName()).append(": ").append(matcherType)
 		  .append(LookupImpl.class.getName()).append(": ").append(gssLookupImpl)
 		  .append(HashMapImpl.class.getName()).append(": ").append(hashmapImpl)
+		  .append(DescriptorSchedulerType.class.getName()).append(": ").append(descriptorSchedulerType)
+		  .append(ReachabilityBackend.class.getName()).append(": ").append(reachabilityBackend)
 		  .append("LookaheadCount").append(": ").append(lookAheadCount);
 		
 		return sb.toString();
@@ -133,11 +184,15 @@ public class Configuration {
 		
 		private LookupImpl gssLookupImpl = LookupImpl.HASH_MAP;
 		private MatcherType matcherType = MatcherType.JAVA_REGEX;
-		private HashMapImpl hashmapImpl = HashMapImpl.JAVA; // HashMapImpl.INT_OPEN_ADDRESSING;
+		private HashMapImpl hashmapImpl = HashMapImpl.INT_OPEN_ADDRESSING;
 		private int lookaheadCount = DEFAULT_LOOKAHEAD;
         private LogLevel logLevel = LogLevel.NONE;
 		
 		private EnvironmentImpl envImpl = EnvironmentImpl.TRIE;
+
+		private DescriptorSchedulerType descriptorSchedulerType = DescriptorSchedulerType.LIFO;
+
+		private ReachabilityBackend reachabilityBackend = ReachabilityBackend.GLL;
 				
 		public Configuration build() {
 			return new Configuration(this);
@@ -168,6 +223,16 @@ public class Configuration {
 			return this;
 		}
 
+		public Builder setDescriptorSchedulerType(DescriptorSchedulerType type) {
+			this.descriptorSchedulerType = type;
+			return this;
+		}
+
+		public Builder setReachabilityBackend(ReachabilityBackend backend) {
+			this.reachabilityBackend = backend;
+			return this;
+		}
+
         public Builder setLogLevel(LogLevel logLevel) {
             this.logLevel = logLevel;
             return this;
@@ -59,6 +59,14 @@ public class XMLConfigFileParser implements ConfigFileParser {
                 case "EnvironmentImpl":
                     builder.setEnvironmentImpl(Configuration.EnvironmentImpl.valueOf(node.getTextContent().toUpperCase()));
                     break;
+
+                case "DescriptorScheduler":
+                    builder.setDescriptorSchedulerType(Configuration.DescriptorSchedulerType.valueOf(node.getTextContent().toUpperCase()));
+                    break;
+
+                case "ReachabilityBackend":
+                    builder.setReachabilityBackend(Configuration.ReachabilityBackend.valueOf(node.getTextContent().toUpperCase()));
+                    break;
             }
         }
     }
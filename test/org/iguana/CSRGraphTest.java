@@ -0,0 +1,282 @@
+package org.iguana;
+
+import iguana.utils.collections.primitive.IntList;
+import iguana.utils.input.CSRGraphInput;
+import iguana.utils.input.Edge;
+import iguana.utils.input.GraphImporter;
+import iguana.utils.input.GraphInput;
+import iguana.utils.input.InMemGraphInput;
+import iguana.utils.input.MappedGraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.ParseOptions;
+import org.iguana.parsetree.ParseTreeNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.iguana.GraphTests.loadGrammar;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CSRGraphTest {
+
+    private static final List<List<Edge>> edges = Arrays.asList(
+            List.of(
+                    new Edge("a", 1)
+            ),
+            List.of(
+                    new Edge("a", 2),
+                    new Edge("a", 5),
+                    new Edge("b", 8)
+            ),
+            List.of(
+                    new Edge("b", 3)
+            ),
+            List.of(
+                    new Edge("b", 4)
+            ),
+            List.of(),
+            List.of(
+                    new Edge("b", 6)
+            ),
+            List.of(
+                    new Edge("a", 7)
+            ),
+            List.of(
+                    new Edge("b", 3)
+            ),
+            List.of(
+                    new Edge("a", 9)
+            ),
+            List.of(
+                    new Edge("b", 10)
+            ),
+            List.of(
+                    new Edge("a", 3)
+            )
+    );
+
+    private static List<Integer> allVertices() {
+        return Stream.iterate(0, i -> i + 1).limit(edges.size()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testAdjacency() {
+        CSRGraphInput input = CSRGraphInput.from(edges, allVertices().stream(), allVertices());
+
+        assertEquals(11, input.getVertexCount());
+        assertEquals(2, input.getLabelCount());
+        assertEquals(-1, input.getLabelId("c"));
+        assertEquals(Arrays.asList(2, 5), input.getDestVertex(1, "a"));
+        assertEquals(List.of(8), input.getDestVertex(1, "b"));
+        assertEquals(List.of(), input.getDestVertex(4, "a"));
+        assertEquals(List.of(), input.getDestVertex(1, "c"));
+        assertTrue(input.hasEdge(1, input.getLabelId("a"), 5));
+        assertFalse(input.hasEdge(1, input.getLabelId("a"), 8));
+        assertEquals(new HashSet<>(Arrays.asList((int) 'a', (int) 'b', GraphInput.EOF)),
+                input.nextSymbols(1).collect(Collectors.toSet()));
+
+        CSRGraphInput view = input.withStartVertices(Stream.of(1, 2));
+        assertEquals(Arrays.asList(1, 2), view.getStartVertices().collect(Collectors.toList()));
+        assertEquals(Arrays.asList(2, 5), view.getDestVertex(1, "a"));
+    }
+
+    @Test
+    public void testInterleavedLabels() {
+        CSRGraphInput input = CSRGraphInput.builder()
+                .addEdge(2, "c", 0).addEdge(0, "b", 1).addEdge(2, "a", 1)
+                .addEdge(0, "a", 2).addEdge(2, "c", 1).addEdge(0, "b", 0)
+                .setVertexCount(4)
+                .build();
+
+        assertEquals(4, input.getVertexCount());
+        assertEquals(Arrays.asList(1, 0), input.getDestVertex(0, "b"));
+        assertEquals(List.of(2), input.getDestVertex(0, "a"));
+        assertEquals(List.of(), input.getDestVertex(0, "c"));
+        assertEquals(List.of(1), input.getDestVertex(2, "a"));
+        assertEquals(Arrays.asList(0, 1), input.getDestVertex(2, "c"));
+        assertEquals(List.of(), input.getDestVertex(1, "a"));
+        assertEquals(List.of(), input.getDestVertex(3, "c"));
+        assertEquals(2, input.getOutDegree(2, input.getLabelId("c")));
+        assertEquals(0, input.getOutDegree(3, input.getLabelId("a")));
+    }
+
+    @Test
+    public void testFinalVertexOutOfRange() {
+        try {
+            CSRGraphInput.builder().addEdge(0, "a", 1).setFinalVertices(List.of(1, 2)).build();
+            fail("A final vertex that is not a vertex of the graph should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPrimitiveIteration() {
+        GraphInput csrInput = CSRGraphInput.from(edges, allVertices().stream(), allVertices());
+        GraphInput inMemInput = new InMemGraphInput(edges, allVertices().stream(), allVertices());
+
+        for (GraphInput input : Arrays.asList(csrInput, inMemInput)) {
+            IntList targets = new IntList();
+            input.forEachDestVertex(1, "a", targets::add);
+            assertEquals(IntList.of(2, 5), targets);
+
+            IntList symbols = new IntList();
+            input.forEachNextSymbol(4, symbols::add);
+            assertEquals(IntList.of(GraphInput.EOF), symbols);
+
+            assertTrue(input.hasDestVertex(1, "b", 8));
+            assertFalse(input.hasDestVertex(1, "b", 2));
+            assertTrue(input.anyNextSymbol(1, c -> c == 'b'));
+            assertFalse(input.anyNextSymbol(0, c -> c == 'b'));
+        }
+    }
+
+    @Test
+    public void testSameReachabilitiesAsInMemGraph() {
+        Grammar grammar = loadGrammar("Test5");
+
+        GraphInput inMemInput = new InMemGraphInput(edges, allVertices().stream(), allVertices());
+        Set<Pair> expected = new IguanaParser(grammar).getReachabilities(inMemInput,
+                new ParseOptions.Builder().setAmbiguous(false).build()).collect(Collectors.toSet());
+
+        GraphInput csrInput = CSRGraphInput.from(edges, allVertices().stream(), allVertices());
+        Set<Pair> actual = new IguanaParser(grammar).getReachabilities(csrInput,
+                new ParseOptions.Builder().setAmbiguous(false).build()).collect(Collectors.toSet());
+
+        assertEquals(expected, actual);
+        assertEquals(List.of("a", "b"), new IguanaParser(grammar).getGrammarGraph().getTerminalLabels());
+    }
+
+    @Test
+    public void testSameParseTreesAsInMemGraph() {
+        Grammar grammar = loadGrammar("g1");
+
+        GraphInput inMemInput = new InMemGraphInput(edges, allVertices().stream(), allVertices());
+        Map<Pair, ParseTreeNode> expected = new IguanaParser(grammar).getParserTree(inMemInput,
+                new ParseOptions.Builder().setAmbiguous(true).build());
+
+        GraphInput csrInput = CSRGraphInput.builder()
+                .addEdge(0, "a", 1)
+                .addEdge(1, "a", 2).addEdge(1, "a", 5).addEdge(1, "b", 8)
+                .addEdge(2, "b", 3)
+                .addEdge(3, "b", 4)
+                .addEdge(5, "b", 6)
+                .addEdge(6, "a", 7)
+                .addEdge(7, "b", 3)
+                .addEdge(8, "a", 9)
+                .addEdge(9, "b", 10)
+                .addEdge(10, "a", 3)
+                .build();
+        Map<Pair, ParseTreeNode> actual = new IguanaParser(grammar).getParserTree(csrInput,
+                new ParseOptions.Builder().setAmbiguous(true).build());
+
+        assertEquals(expected.keySet(), actual.keySet());
+    }
+
+    @Test
+    public void testMappedGraph() throws IOException {
+        CSRGraphInput csrInput = CSRGraphInput.from(edges, allVertices().stream(), allVertices());
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            MappedGraphInput.write(csrInput, file);
+            MappedGraphInput mappedInput = MappedGraphInput.open(file, allVertices().stream(), allVertices());
+
+            assertEquals(csrInput.getVertexCount(), mappedInput.getVertexCount());
+            assertEquals(csrInput.getLabelCount(), mappedInput.getLabelCount());
+            for (int v = 0; v < csrInput.getVertexCount(); v++) {
+                for (String label : Arrays.asList("a", "b", "c")) {
+                    assertEquals(csrInput.getDestVertex(v, label), mappedInput.getDestVertex(v, label));
+                }
+            }
+
+            Grammar grammar = loadGrammar("Test5");
+            Set<Pair> expected = new IguanaParser(grammar).getReachabilities(csrInput,
+                    new ParseOptions.Builder().setAmbiguous(false).build()).collect(Collectors.toSet());
+            Set<Pair> actual = new IguanaParser(grammar).getReachabilities(mappedInput,
+                    new ParseOptions.Builder().setAmbiguous(false).build()).collect(Collectors.toSet());
+            assertEquals(expected, actual);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testImporter() throws IOException {
+        Path aFile = Files.createTempFile("graph_a", ".csv");
+        Path bFile = Files.createTempFile("graph_b", ".csv");
+        Path triplesFile = Files.createTempFile("graph", ".txt");
+        try {
+            StringBuilder a = new StringBuilder("from,to\n");
+            StringBuilder b = new StringBuilder("from,to\r\n");
+            StringBuilder triples = new StringBuilder();
+            for (int v = 0; v < edges.size(); v++) {
+                for (Edge edge : edges.get(v)) {
+                    StringBuilder csv = edge.getTag().equals("a") ? a : b;
+                    csv.append(v).append(',').append(edge.getDestVertex()).append(edge.getTag().equals("a") ? "\n" : "\r\n");
+                    triples.append(v).append(' ').append(edge.getDestVertex()).append('\t').append(edge.getTag()).append('\n');
+                }
+            }
+            Files.writeString(aFile, a);
+            Files.writeString(bFile, b);
+            Files.writeString(triplesFile, triples);
+
+            CSRGraphInput expected = CSRGraphInput.from(edges, allVertices().stream(), allVertices());
+            CSRGraphInput fromCSV = new GraphImporter().addCSV(aFile, "a").addCSV(bFile, "b").load().build();
+            CSRGraphInput fromTriples = new GraphImporter().addTriples(triplesFile).setInverseLabels(true).load().build();
+
+            assertEquals(2, fromCSV.getLabelCount());
+            assertEquals(4, fromTriples.getLabelCount());
+            for (int v = 0; v < expected.getVertexCount(); v++) {
+                for (String label : Arrays.asList("a", "b")) {
+                    assertEquals(expected.getDestVertex(v, label), fromCSV.getDestVertex(v, label));
+                    assertEquals(expected.getDestVertex(v, label), fromTriples.getDestVertex(v, label));
+                    for (int u : expected.getDestVertex(v, label)) {
+                        assertTrue(fromTriples.hasDestVertex(u, label + GraphImporter.INVERSE_SUFFIX, v));
+                    }
+                }
+            }
+        } finally {
+            Files.delete(aFile);
+            Files.delete(bFile);
+            Files.delete(triplesFile);
+        }
+    }
+
+    @Test
+    public void testImporterVertexOverflow() throws IOException {
+        Path file = Files.createTempFile("graph_a", ".csv");
+        try {
+            Files.writeString(file, "from,to\n0,1\n1,2147483647\n2,3\n");
+            try {
+                new GraphImporter().addCSV(file).load();
+                fail("A vertex id that does not fit in an int should be rejected");
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(":3: "));
+            }
+
+            Files.writeString(file, "from,to\n0,1\n99999999999,2\n");
+            try {
+                new GraphImporter().addCSV(file).load();
+                fail("A vertex id that does not fit in an int should be rejected");
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(":3: "));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
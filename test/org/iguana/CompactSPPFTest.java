@@ -0,0 +1,174 @@
+package org.iguana;
+
+import iguana.utils.input.CSRGraphInput;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.ParseOptions;
+import org.iguana.parsetree.DefaultParseTreeBuilder;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.result.CompactResult;
+import org.iguana.result.CompactResultOps;
+import org.iguana.result.CompactSPPFView;
+import org.iguana.sppf.NonPackedNode;
+import org.iguana.sppf.NonterminalNode;
+import org.iguana.sppf.PackedNode;
+import org.iguana.sppf.TerminalNode;
+import org.iguana.traversal.AmbiguousSPPFToParseTreeVisitor;
+import org.iguana.traversal.SPPFPathCounter;
+import org.iguana.traversal.SPPFShortestPaths;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.iguana.GraphTests.parser;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompactSPPFTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(true).build();
+
+    @Test
+    public void testSameForestAsObjectSPPF() {
+        for (String name : new String[]{"Test5", "g1", "g2"}) {
+            IguanaParser parser = parser(name);
+            Random random = new Random(name.length());
+            CSRGraphInput.Builder builder = CSRGraphInput.builder().setVertexCount(30);
+            for (int i = 0; i < 75; i++) {
+                builder.addEdge(random.nextInt(30), random.nextBoolean() ? "a" : "b", random.nextInt(30));
+            }
+            CSRGraphInput input = builder.build();
+
+            Map<Pair, Long> counts = parser.countPaths(input, options, 6);
+            Map<Pair, NonterminalNode> sppf = parser.getSPPF(input, options);
+            CompactSPPFView view = parser.getCompactSPPF(input, options);
+            assertFalse(view.getRoots().isEmpty());
+            assertEquals(sppf.keySet(), view.getRoots().keySet());
+
+            SPPFPathCounter counter = new SPPFPathCounter(6);
+            SPPFShortestPaths compactShortestPaths = new SPPFShortestPaths();
+            Map<Pair, Integer> lengths = new HashMap<>();
+            parser.getShortestPaths(input, options).forEach((pair, path) -> lengths.put(pair, path.length()));
+            view.getRoots().forEach((pair, root) -> {
+                assertEquals(counts.get(pair), (Long) counter.count(root));
+                assertEquals(lengths.get(pair), (Integer) compactShortestPaths.getShortestLength(root));
+            });
+        }
+    }
+
+    @Test
+    public void testAmbiguousParseTrees() {
+        IguanaParser parser = parser("Test5");
+        // a b a b a b, where S ::= S S is ambiguous
+        CSRGraphInput input = CSRGraphInput.builder()
+                .addEdge(0, "a", 1).addEdge(1, "b", 2)
+                .addEdge(2, "a", 3).addEdge(3, "b", 4)
+                .addEdge(4, "a", 5).addEdge(5, "b", 6)
+                .build();
+
+        Map<Pair, ParseTreeNode> expected = parser.getParserTree(input, options);
+        CompactSPPFView view = parser.getCompactSPPF(input, options);
+        AmbiguousSPPFToParseTreeVisitor<ParseTreeNode> visitor = new AmbiguousSPPFToParseTreeVisitor<>(
+                new DefaultParseTreeBuilder(input), options.ignoreLayout());
+
+        assertEquals(expected.keySet(), view.getRoots().keySet());
+        view.getRoots().forEach((pair, root) ->
+                assertEquals(expected.get(pair), root.accept(visitor).getValues().get(0)));
+    }
+
+    @Test
+    public void testSamePackedNodes() {
+        IguanaParser parser = parser("Test5");
+        CSRGraphInput input = CSRGraphInput.builder()
+                .addEdge(0, "a", 1).addEdge(1, "b", 2)
+                .addEdge(2, "a", 3).addEdge(3, "b", 4)
+                .addEdge(4, "a", 5).addEdge(5, "b", 6)
+                .build();
+        CompactSPPFView view = parser.getCompactSPPF(input, options);
+        NonPackedNode node = findAmbiguous(view.getRoots().get(new Pair(0, 6)));
+
+        List<PackedNode> packedNodes = node.getPackedNodes();
+        assertTrue(packedNodes.size() > 1);
+        assertSame(packedNodes, node.getPackedNodes());
+        assertSame(packedNodes.get(0), node.getFirstPackedNode());
+        for (PackedNode packedNode : packedNodes) {
+            NonPackedNode child = packedNode.getLeftChild();
+            assertSame(child.getFirstPackedNode(), child.getFirstPackedNode());
+        }
+    }
+
+    // The first ambiguous node below the given node, following the first packed nodes
+    private static NonPackedNode findAmbiguous(NonPackedNode node) {
+        if (node == null || node.isAmbiguous()) return node;
+        PackedNode packedNode = node.getFirstPackedNode();
+        if (packedNode == null) return null;
+        NonPackedNode ambiguous = findAmbiguous(packedNode.getLeftChild());
+        return ambiguous != null ? ambiguous : findAmbiguous(packedNode.getRightChild());
+    }
+
+    @Test
+    public void testDummy() {
+        CompactResult dummy = new CompactResultOps(parser("g2").getGrammarGraph()).dummy();
+        assertTrue(dummy.isDummy());
+        assertEquals(-1, dummy.getIndex());
+        assertEquals(-1, dummy.getLeftExtent());
+        assertNull(dummy.getValue());
+        assertEquals("$", dummy.toString());
+    }
+
+    @Test
+    public void testFewerBytesThanObjectSPPF() {
+        for (String name : new String[]{"Test5", "g1", "g2"}) {
+            IguanaParser parser = parser(name);
+            CSRGraphInput input = randomGraph(name.length(), 30, 75);
+            Map<Pair, NonterminalNode> sppf = parser.getSPPF(input, options);
+            CompactSPPFView view = parser.getCompactSPPF(input, options);
+
+            long objectBytes = countBytes(sppf.values());
+            long compactBytes = view.getForest().getByteCount();
+            assertTrue(name + ": " + compactBytes + " bytes, " + objectBytes + " bytes as objects", 2 * compactBytes < objectBytes);
+        }
+    }
+
+    // The shallow sizes of the nodes reachable from the roots with compressed references, where
+    // unambiguous nodes have not created their packed node yet
+    private static long countBytes(Collection<? extends NonPackedNode> roots) {
+        Set<NonPackedNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<NonPackedNode> stack = new ArrayDeque<>(roots);
+        long bytes = 0;
+        while (!stack.isEmpty()) {
+            NonPackedNode node = stack.pop();
+            if (!visited.add(node)) continue;
+            if (node instanceof TerminalNode) {
+                bytes += 24;
+            } else if (node.isAmbiguous()) {
+                List<PackedNode> packedNodes = node.getPackedNodes();
+                // The node, its packed nodes and their list
+                bytes += 32 + 24L * packedNodes.size() + 24 + 16 + 4L * packedNodes.size();
+                for (PackedNode packedNode : packedNodes) {
+                    stack.push(packedNode.getLeftChild());
+                    if (packedNode.getRightChild() != null) stack.push(packedNode.getRightChild());
+                }
+            } else {
+                bytes += 32;
+                for (int i = 0; i < node.childrenCount(); i++) {
+                    stack.push((NonPackedNode) node.getChildAt(i));
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,57 @@
+package org.iguana;
+
+import iguana.utils.input.GraphInput;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ParseOptions;
+import org.iguana.parser.descriptor.DescriptorSchedulerStatistics;
+import org.iguana.util.Configuration.DescriptorSchedulerType;
+import org.junit.Test;
+
+
+import static org.iguana.GraphTests.configBuilder;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DescriptorSchedulerTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+    private static IguanaParser parser(String name, DescriptorSchedulerType type) {
+        return GraphTests.parser(name, configBuilder().setDescriptorSchedulerType(type).build());
+    }
+
+    @Test
+    public void testSameReachabilitiesForAllSchedulers() {
+        for (String grammar : new String[]{"Test5", "g1", "g2"}) {
+            for (int seed = 0; seed < 3; seed++) {
+                GraphInput input = randomGraph(seed, 100, 250);
+                PairSet expected = parser(grammar, DescriptorSchedulerType.LIFO).getReachabilitySet(input, options);
+                for (DescriptorSchedulerType type : DescriptorSchedulerType.values()) {
+                    IguanaParser parser = parser(grammar, type);
+                    assertEquals(grammar + " " + type, expected, parser.getReachabilitySet(input, options));
+
+                    DescriptorSchedulerStatistics statistics = parser.getSchedulerStatistics();
+                    assertTrue(statistics.getScheduledCount() > 0);
+                    assertTrue(statistics.getVertexSwitches() <= statistics.getScheduledCount());
+                    assertTrue(statistics.getMaxPendingCount() <= statistics.getScheduledCount());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBatchingReducesSwitches() {
+        GraphInput input = randomGraph(1, 100, 250);
+        IguanaParser fifo = parser("Test5", DescriptorSchedulerType.FIFO);
+        IguanaParser byVertex = parser("Test5", DescriptorSchedulerType.VERTEX_BUCKETED);
+        IguanaParser bySlot = parser("Test5", DescriptorSchedulerType.SLOT_BATCHED);
+        fifo.getReachabilitySet(input, options);
+        byVertex.getReachabilitySet(input, options);
+        bySlot.getReachabilitySet(input, options);
+
+        assertTrue(byVertex.getSchedulerStatistics().getVertexSwitches() < fifo.getSchedulerStatistics().getVertexSwitches());
+        assertTrue(bySlot.getSchedulerStatistics().getSlotSwitches() < fifo.getSchedulerStatistics().getSlotSwitches());
+    }
+}
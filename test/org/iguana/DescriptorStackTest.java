@@ -0,0 +1,101 @@
+package org.iguana;
+
+import org.iguana.grammar.slot.NonterminalGrammarSlot;
+import org.iguana.gss.DefaultGSSNode;
+import org.iguana.gss.GSSNode;
+import org.iguana.parser.descriptor.DescriptorStack;
+import org.iguana.result.RecognizerResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DescriptorStackTest {
+
+    private final GSSNode<RecognizerResult> gssNode = new DefaultGSSNode<>((NonterminalGrammarSlot) null, 0);
+
+    // Schedules the descriptors with slot ids from to to - 1, whose results end at their slot id
+    private static void push(DescriptorStack<RecognizerResult> stack, GSSNode<RecognizerResult> gssNode, int from, int to) {
+        for (int i = from; i < to; i++) {
+            stack.schedule(i, gssNode, RecognizerResult.of(i), null);
+        }
+    }
+
+    // Takes the descriptors and checks that they come in the reverse order of push
+    private static void pop(DescriptorStack<RecognizerResult> stack, GSSNode<RecognizerResult> gssNode, int from, int to) {
+        int size = stack.size();
+        for (int i = to - 1; i >= from; i--) {
+            assertTrue(stack.hasNext());
+            stack.next();
+            assertEquals(i, stack.getGrammarSlotId());
+            assertSame(gssNode, stack.getGSSNode());
+            assertEquals(i, stack.getResult().getIndex());
+            assertNull(stack.getEnv());
+            assertEquals(size - (to - i), stack.size());
+        }
+    }
+
+    @Test
+    public void testLastInFirstOut() {
+        DescriptorStack<RecognizerResult> stack = new DescriptorStack<>();
+        assertFalse(stack.hasNext());
+
+        push(stack, gssNode, 0, 3);
+        assertEquals(3, stack.size());
+        pop(stack, gssNode, 0, 3);
+        assertFalse(stack.hasNext());
+    }
+
+    @Test
+    public void testInterleavedPushAndPop() {
+        DescriptorStack<RecognizerResult> stack = new DescriptorStack<>();
+        push(stack, gssNode, 0, 4);
+        pop(stack, gssNode, 2, 4);
+        push(stack, gssNode, 10, 13);
+        pop(stack, gssNode, 10, 13);
+        pop(stack, gssNode, 0, 2);
+        assertFalse(stack.hasNext());
+    }
+
+    @Test
+    public void testGrowPastInitialCapacity() {
+        DescriptorStack<RecognizerResult> stack = new DescriptorStack<>();
+        push(stack, gssNode, 0, 5000);
+        assertEquals(5000, stack.size());
+        assertEquals(5000, stack.getStatistics().getMaxPendingCount());
+        pop(stack, gssNode, 0, 5000);
+        assertFalse(stack.hasNext());
+    }
+
+    @Test
+    public void testReuseAfterEmptying() {
+        DescriptorStack<RecognizerResult> stack = new DescriptorStack<>();
+        push(stack, gssNode, 0, 100);
+        pop(stack, gssNode, 0, 100);
+
+        GSSNode<RecognizerResult> other = new DefaultGSSNode<>((NonterminalGrammarSlot) null, 1);
+        push(stack, other, 0, 50);
+        pop(stack, other, 0, 50);
+        assertFalse(stack.hasNext());
+        assertEquals(150, stack.getStatistics().getScheduledCount());
+    }
+
+    @Test
+    public void testReuseAfterClear() {
+        DescriptorStack<RecognizerResult> stack = new DescriptorStack<>();
+        push(stack, gssNode, 0, 5000);
+        stack.next();
+        stack.clear();
+        assertFalse(stack.hasNext());
+        assertEquals(0, stack.size());
+        assertNull(stack.getGSSNode());
+        assertEquals(0, stack.getStatistics().getScheduledCount());
+
+        push(stack, gssNode, 0, 600);
+        pop(stack, gssNode, 0, 600);
+        assertFalse(stack.hasNext());
+    }
+}
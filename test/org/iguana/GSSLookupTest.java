@@ -0,0 +1,99 @@
+package org.iguana;
+
+import iguana.utils.collections.ConcurrentIntHashMap;
+import iguana.utils.collections.IntHashMap;
+import iguana.utils.collections.OpenAddressingIntHashMap;
+import iguana.utils.collections.PagedArrayIntHashMap;
+import iguana.utils.input.GraphInput;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ParseOptions;
+import org.iguana.util.Configuration.HashMapImpl;
+import org.iguana.util.Configuration.LookupImpl;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.iguana.GraphTests.configBuilder;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GSSLookupTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+    private static IguanaParser parser(String name, LookupImpl lookupImpl, HashMapImpl hashMapImpl) {
+        return GraphTests.parser(name, configBuilder().setGSSLookupImpl(lookupImpl).setHashmapImpl(hashMapImpl).build());
+    }
+
+    @Test
+    public void testSameReachabilitiesForAllLookups() {
+        for (String grammar : new String[]{"Test5", "g1", "g2"}) {
+            GraphInput input = randomGraph(grammar.length(), 3000, 3000);
+            PairSet expected = parser(grammar, LookupImpl.HASH_MAP, HashMapImpl.INT_OPEN_ADDRESSING).getReachabilitySet(input, options);
+            assertEquals(expected, parser(grammar, LookupImpl.HASH_MAP, HashMapImpl.JAVA).getReachabilitySet(input, options));
+            assertEquals(expected, parser(grammar, LookupImpl.ARRAY, HashMapImpl.INT_OPEN_ADDRESSING).getReachabilitySet(input, options));
+            assertEquals(expected, parser(grammar, LookupImpl.ARRAY, HashMapImpl.JAVA).getReachabilitySet(input, options));
+        }
+    }
+
+    @Test
+    public void testSameSharedReachabilitiesForAllLookups() {
+        for (String grammar : new String[]{"Test5", "g1", "g2"}) {
+            GraphInput input = randomGraph(grammar.length(), 200, 300);
+            PairSet expected = parser(grammar, LookupImpl.HASH_MAP, HashMapImpl.INT_OPEN_ADDRESSING).getReachabilitySet(input, options);
+            assertEquals(expected, parser(grammar, LookupImpl.HASH_MAP, HashMapImpl.INT_OPEN_ADDRESSING).getSharedReachabilitySet(input, options, 4));
+            assertEquals(expected, parser(grammar, LookupImpl.HASH_MAP, HashMapImpl.JAVA).getSharedReachabilitySet(input, options, 4));
+            assertEquals(expected, parser(grammar, LookupImpl.ARRAY, HashMapImpl.INT_OPEN_ADDRESSING).getSharedReachabilitySet(input, options, 4));
+        }
+    }
+
+    @Test
+    public void testConcurrentIntHashMap() {
+        for (IntHashMap<String> map : Arrays.<IntHashMap<String>>asList(
+                new ConcurrentIntHashMap<>(100000, PagedArrayIntHashMap::new),
+                new ConcurrentIntHashMap<>(100000, OpenAddressingIntHashMap::new))) {
+            Random random = new Random(0);
+            Set<Integer> keys = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                int key = random.nextInt(100000);
+                assertEquals(keys.add(key) ? null : String.valueOf(key), map.putIfAbsent(key, String.valueOf(key)));
+            }
+            assertEquals(keys.size(), map.size());
+            for (int key : keys) {
+                assertEquals(String.valueOf(key), map.get(key));
+            }
+
+            Set<Integer> iterated = new HashSet<>();
+            map.values().forEach(value -> iterated.add(Integer.parseInt(value)));
+            assertEquals(keys, iterated);
+        }
+    }
+
+    @Test
+    public void testPagedArrayIntHashMap() {
+        IntHashMap<String> map = new PagedArrayIntHashMap<>(10);
+        Random random = new Random(0);
+        Set<Integer> keys = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            int key = random.nextInt(100000);
+            assertEquals(keys.add(key) ? null : String.valueOf(key), map.putIfAbsent(key, String.valueOf(key)));
+        }
+        assertEquals(keys.size(), map.size());
+        assertNull(map.get(-1));
+        assertNull(map.get(Integer.MAX_VALUE));
+
+        Set<Integer> iterated = new HashSet<>();
+        map.values().forEach(value -> iterated.add(Integer.parseInt(value)));
+        assertEquals(keys, iterated);
+
+        for (int key : keys) {
+            assertEquals(String.valueOf(key), map.remove(key));
+        }
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,92 @@
+package org.iguana;
+
+import iguana.utils.input.CSRGraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.parser.IguanaParser;
+import org.iguana.util.Configuration;
+
+import java.io.FileNotFoundException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The grammars, configurations and random graphs shared by the graph parsing tests.
+ */
+public class GraphTests {
+
+    private static final String[] LABELS = {"a", "b"};
+
+    private GraphTests() {}
+
+    /**
+     * Loads one of the grammars in test/resources/grammars/graph, e.g., "Test5", "g1" or "g2".
+     */
+    public static Grammar loadGrammar(String name) {
+        try {
+            return Grammar.load("test/resources/grammars/graph/" + name + "/grammar.json", "json");
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("No grammar.json file is present");
+        }
+    }
+
+    /**
+     * A configuration for parsing graphs, to which the tests add the options they compare.
+     */
+    public static Configuration.Builder configBuilder() {
+        return Configuration.builder()
+                .setMatcherType(Configuration.MatcherType.GRAPH)
+                .setEnvironmentImpl(Configuration.EnvironmentImpl.INT_ARRAY);
+    }
+
+    public static Configuration config() {
+        return configBuilder().build();
+    }
+
+    public static IguanaParser parser(String name) {
+        return new IguanaParser(loadGrammar(name), config());
+    }
+
+    public static IguanaParser parser(String name, Configuration config) {
+        return new IguanaParser(loadGrammar(name), config);
+    }
+
+    /**
+     * Returns a graph with the given number of random edges labelled a or b.
+     */
+    public static CSRGraphInput randomGraph(long seed, int vertexCount, int edgeCount) {
+        return randomGraph(seed, vertexCount, edgeCount, LABELS);
+    }
+
+    /**
+     * Returns a graph with the given number of random edges, whose labels are drawn from the
+     * given labels.
+     */
+    public static CSRGraphInput randomGraph(long seed, int vertexCount, int edgeCount, String... labels) {
+        Random random = new Random(seed);
+        CSRGraphInput.Builder builder = CSRGraphInput.builder().setVertexCount(vertexCount);
+        for (int i = 0; i < edgeCount; i++) {
+            builder.addEdge(random.nextInt(vertexCount), labels[random.nextInt(labels.length)], random.nextInt(vertexCount));
+        }
+        return builder.build();
+    }
+
+    /**
+     * As {@link #randomGraph(long, int, int, String...)}, but an edge that is drawn again with
+     * the same label is not added, so that there are at most edgeCount edges and no parallel ones.
+     */
+    public static CSRGraphInput randomGraphWithoutParallelEdges(long seed, int vertexCount, int edgeCount, String... labels) {
+        Random random = new Random(seed);
+        CSRGraphInput.Builder builder = CSRGraphInput.builder().setVertexCount(vertexCount);
+        Set<String> edges = new HashSet<>();
+        for (int i = 0; i < edgeCount; i++) {
+            int source = random.nextInt(vertexCount);
+            String label = labels[random.nextInt(labels.length)];
+            int target = random.nextInt(vertexCount);
+            if (edges.add(source + label + target)) {
+                builder.addEdge(source, label, target);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,76 @@
+package org.iguana;
+
+import iguana.regex.Char;
+import iguana.utils.input.CSRGraphInput;
+import iguana.utils.input.GraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ParseOptions;
+import org.iguana.util.Configuration;
+import org.junit.Test;
+
+
+import static org.iguana.GraphTests.configBuilder;
+import static org.iguana.GraphTests.loadGrammar;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LabelLookAheadTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+    private static Configuration config(int lookaheadCount) {
+        return configBuilder().setLookaheadCount(lookaheadCount).build();
+    }
+
+    @Test
+    public void testSameReachabilitiesWithoutLookahead() {
+        for (String name : new String[]{"Test5", "g1", "g2"}) {
+            Grammar grammar = loadGrammar(name);
+            GraphInput input = randomGraph(name.length(), 100, 250, "a", "b", "c", "d", "ab");
+            PairSet expected = new IguanaParser(grammar, config(0)).getReachabilitySet(input, options);
+            assertEquals(expected, new IguanaParser(grammar, config(1)).getReachabilitySet(input, options));
+        }
+    }
+
+    @Test
+    public void testLabelsNotNamedByTheirFirstChar() {
+        // S ::= α S β | α β, where the graph names the labels by their escaped code points
+        Nonterminal s = Nonterminal.withName("S");
+        Terminal alpha = Terminal.from(Char.from(0x3B1));
+        Terminal beta = Terminal.from(Char.from(0x3B2));
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(s).addSymbol(alpha).addSymbol(s).addSymbol(beta).build())
+                .addRule(Rule.withHead(s).addSymbol(alpha).addSymbol(beta).build())
+                .setStartSymbol(Start.builder(s).setName("S").build())
+                .build();
+
+        GraphInput input = randomGraph(7, 100, 250, alpha.getRegularExpression().toString(), beta.getRegularExpression().toString(), "\\");
+        PairSet expected = new IguanaParser(grammar, config(0)).getReachabilitySet(input, options);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, new IguanaParser(grammar, config(1)).getReachabilitySet(input, options));
+    }
+
+    @Test
+    public void testOutgoingLabels() {
+        CSRGraphInput input = CSRGraphInput.builder().setVertexCount(3)
+                .addEdge(0, "a", 1)
+                .addEdge(1, "b", 2)
+                .build();
+        long[] a = new long[input.getLabelSetLength()];
+        a[0] |= 1L << input.getLabelId("a");
+        long[] eof = new long[input.getLabelSetLength()];
+        eof[0] |= 1L << input.getLabelCount();
+
+        assertTrue(input.hasOutgoingLabel(0, a));
+        assertFalse(input.hasOutgoingLabel(1, a));
+        assertTrue(input.hasOutgoingLabel(2, eof));
+    }
+}
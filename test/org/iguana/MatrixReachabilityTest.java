@@ -0,0 +1,104 @@
+package org.iguana;
+
+import iguana.regex.Char;
+import iguana.regex.Seq;
+import iguana.utils.input.CSRGraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ParseOptions;
+import org.iguana.parser.ReachabilityCounts;
+import org.iguana.parser.matrix.MatrixReachability;
+import org.iguana.util.Configuration;
+import org.iguana.util.Configuration.ReachabilityBackend;
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.iguana.GraphTests.configBuilder;
+import static org.iguana.GraphTests.loadGrammar;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class MatrixReachabilityTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+    private static Configuration config(ReachabilityBackend backend) {
+        return configBuilder().setReachabilityBackend(backend).build();
+    }
+
+    @Test
+    public void testSameReachabilitiesAsGLL() {
+        for (String name : new String[]{"Test5", "g1", "g2"}) {
+            Grammar grammar = loadGrammar(name);
+            IguanaParser gll = new IguanaParser(grammar, config(ReachabilityBackend.GLL));
+            IguanaParser matrix = new IguanaParser(grammar, config(ReachabilityBackend.MATRIX));
+            // More than 64 vertices, so that rows span several words
+            CSRGraphInput input = randomGraph(name.length(), 150, 375);
+
+            PairSet expected = gll.getReachabilitySet(input, options);
+            assertEquals(expected, matrix.getReachabilitySet(input, options));
+            assertEquals(expected, matrix.getReachabilitySet(input, options, 3));
+            assertEquals(expected, matrix.getSharedReachabilitySet(input, options, 2));
+
+            ReachabilityCounts expectedCounts = gll.countReachabilities(input, options);
+            ReachabilityCounts counts = matrix.countReachabilities(input, options, 2);
+            assertEquals(expectedCounts.getTotal(), counts.getTotal());
+            assertEquals(expectedCounts.getSourceCount(), counts.getSourceCount());
+            assertArrayEquals(expectedCounts.getOutDegreeHistogram(), counts.getOutDegreeHistogram());
+        }
+    }
+
+    @Test
+    public void testStartVerticesAndPruning() {
+        Grammar grammar = loadGrammar("g1");
+        CSRGraphInput input = randomGraph(5, 100, 250).withStartVertices(IntStream.range(0, 100).filter(v -> v % 3 == 0).boxed());
+        ParseOptions pruneOptions = new ParseOptions.Builder().setPruneGraph(true).build();
+
+        PairSet expected = new IguanaParser(grammar, config(ReachabilityBackend.GLL)).getReachabilitySet(input, options);
+        IguanaParser matrix = new IguanaParser(grammar, config(ReachabilityBackend.MATRIX));
+        assertEquals(expected, matrix.getReachabilitySet(input, options));
+        assertEquals(expected, matrix.getReachabilitySet(input, pruneOptions));
+    }
+
+    @Test
+    public void testEpsilonAndLongRules() {
+        // S ::= a S b S | epsilon
+        Nonterminal s = Nonterminal.withName("S");
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(s).addSymbol(Terminal.from(Char.from('a'))).addSymbol(s)
+                        .addSymbol(Terminal.from(Char.from('b'))).addSymbol(s).build())
+                .addRule(Rule.withHead(s).build())
+                .setStartSymbol(Start.builder(s).setName("S").build())
+                .build();
+        CSRGraphInput input = randomGraph(11, 80, 200);
+
+        PairSet expected = new IguanaParser(grammar, config(ReachabilityBackend.GLL)).getReachabilitySet(input, options);
+        PairSet actual = new MatrixReachability(grammar).getReachabilitySet(input, 1);
+        assertFalse(actual.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testUnsupportedTerminal() {
+        Nonterminal s = Nonterminal.withName("S");
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(s).addSymbol(Terminal.from(Seq.from("ab"))).build())
+                .setStartSymbol(Start.builder(s).setName("S").build())
+                .build();
+        try {
+            new MatrixReachability(grammar);
+            fail("Expected the terminal to be rejected");
+        } catch (IllegalArgumentException e) {
+            // A terminal that matches a sequence of labels
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.iguana;
+
+import iguana.utils.input.CSRGraphInput;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.ParseOptions;
+import org.iguana.sppf.NonPackedNode;
+import org.iguana.sppf.NonterminalNode;
+import org.iguana.sppf.PackedNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.iguana.GraphTests.parser;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PackedNodesTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(true).build();
+
+    // a b a b a b, where S ::= S S is ambiguous
+    private static CSRGraphInput chain() {
+        return CSRGraphInput.builder()
+                .addEdge(0, "a", 1).addEdge(1, "b", 2)
+                .addEdge(2, "a", 3).addEdge(3, "b", 4)
+                .addEdge(4, "a", 5).addEdge(5, "b", 6)
+                .build();
+    }
+
+    @Test
+    public void testPackedNodesAreStoredInTheNodes() {
+        Map<Pair, NonterminalNode> roots = parser("Test5").getSPPF(chain(), options);
+
+        // S ::= S S derives S(0, 6) with the pivots 2 and 4, which are the packed nodes of its child
+        NonPackedNode ambiguous = roots.get(new Pair(0, 6)).getFirstPackedNode().getLeftChild();
+        assertTrue(ambiguous.isAmbiguous());
+        List<PackedNode> packedNodes = ambiguous.getPackedNodes();
+        assertEquals(2, packedNodes.size());
+        assertSame(ambiguous.getFirstPackedNode(), packedNodes.get(0));
+
+        NonterminalNode unambiguous = roots.get(new Pair(0, 2));
+        assertFalse(unambiguous.isAmbiguous());
+        assertNull(unambiguous.getPackedNodes());
+        assertSame(unambiguous.getFirstPackedNode(), unambiguous.getFirstPackedNode());
+    }
+
+    @Test
+    public void testForestsOfRunsAreIndependent() {
+        IguanaParser parser = parser("Test5");
+        NonPackedNode first = parser.getSPPF(chain(), options).get(new Pair(0, 6)).getFirstPackedNode().getLeftChild();
+        int packedNodeCount = first.getPackedNodes().size();
+
+        NonPackedNode second = parser.getSPPF(chain(), options).get(new Pair(0, 6)).getFirstPackedNode().getLeftChild();
+        assertTrue(first != second);
+        assertEquals(packedNodeCount, first.getPackedNodes().size());
+        assertEquals(packedNodeCount, second.getPackedNodes().size());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        int threads = 8;
+        int packedNodesPerThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            NonterminalNode node = parser("Test5").getSPPF(chain(), options).get(new Pair(0, 2));
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<PackedNode>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    PackedNode first = node.getFirstPackedNode();
+                    for (int j = 0; j < packedNodesPerThread; j++) {
+                        node.addPackedNode(new PackedNode(first.getGrammarSlot(), first.getLeftChild()));
+                    }
+                    return first;
+                }));
+            }
+            start.countDown();
+
+            PackedNode first = node.getFirstPackedNode();
+            for (Future<PackedNode> future : futures) {
+                assertSame(first, future.get());
+            }
+            assertTrue(node.isAmbiguous());
+            assertEquals(1 + threads * packedNodesPerThread, node.getPackedNodes().size());
+            assertSame(first, node.getPackedNodes().get(0));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
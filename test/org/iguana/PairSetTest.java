@@ -0,0 +1,107 @@
+package org.iguana;
+
+import iguana.utils.collections.primitive.LongHashSet;
+import org.iguana.parser.Pair;
+import org.iguana.parser.PairSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PairSetTest {
+
+    private static PairSet of(int... pairs) {
+        PairSet set = new PairSet();
+        for (int i = 0; i < pairs.length; i += 2) {
+            set.add(pairs[i], pairs[i + 1]);
+        }
+        return set;
+    }
+
+    @Test
+    public void testLongHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            long key = random.nextInt(5000) - 2500L;
+            if (i % 1000 == 0) key = Long.MIN_VALUE;
+            assertEquals(expected.add(key), set.add(key));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long key = -3000; key < 3000; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+        assertTrue(set.contains(Long.MIN_VALUE));
+
+        Set<Long> iterated = new HashSet<>();
+        set.iterator().forEachRemaining((long key) -> iterated.add(key));
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void testAddAndContains() {
+        PairSet set = of(1, 2, 1, 3, 0, 5);
+        assertFalse(set.add(1, 2));
+        assertTrue(set.add(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertEquals(4, set.size());
+        assertTrue(set.contains(0, 5));
+        assertTrue(set.contains(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertFalse(set.contains(5, 0));
+    }
+
+    @Test
+    public void testSortedAndGrouped() {
+        PairSet set = of(3, 1, 1, 7, 1, 2, 3, 0, 2, 2);
+
+        List<Pair> sorted = new ArrayList<>();
+        set.forEachSorted((source, target) -> sorted.add(new Pair(source, target)));
+        assertEquals(List.of(new Pair(1, 2), new Pair(1, 7), new Pair(2, 2), new Pair(3, 0), new Pair(3, 1)), sorted);
+
+        assertArrayEquals(new int[]{1, 2, 3}, set.getSources());
+        assertArrayEquals(new int[]{0, 1}, set.getTargets(3));
+        assertArrayEquals(new int[0], set.getTargets(4));
+        assertEquals(2, set.countTargets(1));
+
+        List<String> groups = new ArrayList<>();
+        set.forEachSource((source, targets) -> groups.add(source + ":" + targets.length));
+        assertEquals(List.of("1:2", "2:1", "3:2"), groups);
+
+        // Adding a pair invalidates the sorted view
+        set.add(1, 0);
+        assertArrayEquals(new int[]{0, 2, 7}, set.getTargets(1));
+    }
+
+    @Test
+    public void testSetOperations() {
+        PairSet a = of(1, 1, 1, 2, 2, 1);
+        PairSet b = of(1, 2, 2, 1, 3, 3);
+
+        assertEquals(of(1, 1, 1, 2, 2, 1, 3, 3), a.union(b));
+        assertEquals(of(1, 2, 2, 1), a.intersection(b));
+        assertEquals(of(1, 1), a.difference(b));
+        assertEquals(Set.of(new Pair(1, 1), new Pair(1, 2), new Pair(2, 1)), a.stream().collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testAddAll() {
+        PairSet a = of(1, 1, 1, 2);
+        assertArrayEquals(new int[]{1}, a.getSources());
+
+        assertSame(a, a.addAll(of(1, 2, 3, 3, 0, 4)));
+        assertEquals(of(0, 4, 1, 1, 1, 2, 3, 3), a);
+        // The sorted pairs are recomputed after adding
+        assertArrayEquals(new int[]{0, 1, 3}, a.getSources());
+        assertArrayEquals(new int[]{4}, a.getTargets(0));
+    }
+}
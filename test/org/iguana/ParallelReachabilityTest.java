@@ -0,0 +1,124 @@
+package org.iguana;
+
+import iguana.utils.input.GraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.GrammarGraph;
+import org.iguana.grammar.GrammarGraphBuilder;
+import org.iguana.grammar.slot.NonterminalGrammarSlot;
+import org.iguana.gss.GSSNode;
+import org.iguana.parser.ConcurrentIguanaRuntime;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.ParseOptions;
+import org.iguana.parser.ParseState;
+import org.iguana.result.RecognizerResultOps;
+import org.iguana.util.Configuration;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.iguana.GraphTests.config;
+import static org.iguana.GraphTests.loadGrammar;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+
+public class ParallelReachabilityTest {
+
+    @Test
+    public void testSameReachabilitiesAsSequential() {
+        Grammar grammar = loadGrammar("Test5");
+        GraphInput input = randomGraph(42, 200, 400);
+        ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+        IguanaParser parser = new IguanaParser(grammar);
+        Set<Pair> expected = parser.getReachabilities(input, options).collect(Collectors.toSet());
+        Set<Pair> actual = parser.getReachabilities(input, options, 4).collect(Collectors.toSet());
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testConcurrentParsersShareGrammarGraph() {
+        Grammar grammar = loadGrammar("Test5");
+        GraphInput input = randomGraph(7, 200, 400);
+        ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+        IguanaParser parser = new IguanaParser(grammar);
+        Set<Pair> expected = parser.getReachabilities(input, options).collect(Collectors.toSet());
+
+        List<Set<Pair>> results = IntStream.range(0, 8).parallel()
+                .mapToObj(i -> parser.getReachabilities(input, options).collect(Collectors.toSet()))
+                .collect(Collectors.toList());
+
+        results.forEach(result -> assertEquals(expected, result));
+    }
+
+    @Test
+    public void testSharedGSSSameReachabilitiesAsSequential() {
+        for (String name : new String[]{"Test5", "g1", "g2"}) {
+            Grammar grammar = loadGrammar(name);
+            ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+            IguanaParser parser = new IguanaParser(grammar);
+
+            for (long seed = 0; seed < 5; seed++) {
+                GraphInput input = randomGraph(seed, 100, 250);
+                Stream<Pair> expected = parser.getReachabilities(input, options);
+                Stream<Pair> actual = parser.getSharedReachabilities(input, options, 4);
+
+                assertEquals(expected == null ? null : expected.collect(Collectors.toSet()),
+                             actual == null ? null : actual.collect(Collectors.toSet()));
+            }
+        }
+    }
+
+    @Test
+    public void testReachabilitiesWithoutSPPFSameAsSPPFRoots() {
+        Grammar grammar = loadGrammar("g2");
+        GraphInput input = randomGraph(11, 100, 250);
+        ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+        IguanaParser parser = new IguanaParser(grammar);
+        Set<Pair> expected = parser.getSPPF(input, options).keySet();
+        Set<Pair> actual = parser.getReachabilities(input, options).collect(Collectors.toSet());
+
+        assertEquals(expected, actual);
+    }
+
+    // On a small dense graph many workers create and pop the same GSS nodes at the same time, which
+    // must give the same GSS as a single worker
+    @Test
+    public void testSharedGSSHasNoDuplicatePopsOrEdges() {
+        Configuration config = config();
+        for (String name : new String[]{"Test5", "g1", "g2"}) {
+            GrammarGraph grammarGraph = GrammarGraphBuilder.from(loadGrammar(name), config);
+            for (long seed = 0; seed < 10; seed++) {
+                GraphInput input = randomGraph(seed, 20, 200);
+
+                ConcurrentIguanaRuntime<?> runtime = new ConcurrentIguanaRuntime<>(config, RecognizerResultOps::new, 1);
+                runtime.no_sppf_run(input, grammarGraph, new HashMap<>(), true);
+                Map<String, String> expected = gssCounts(grammarGraph, runtime.getParseState());
+
+                runtime = new ConcurrentIguanaRuntime<>(config, RecognizerResultOps::new, 8);
+                runtime.no_sppf_run(input, grammarGraph, new HashMap<>(), true);
+                assertEquals(expected, gssCounts(grammarGraph, runtime.getParseState()));
+            }
+        }
+    }
+
+    // The numbers of popped elements and GSS edges of each GSS node
+    private static Map<String, String> gssCounts(GrammarGraph grammarGraph, ParseState parseState) {
+        Map<String, String> counts = new HashMap<>();
+        for (NonterminalGrammarSlot slot : grammarGraph.getNonterminalGrammarSlots()) {
+            for (GSSNode<?> gssNode : parseState.getAllGSSNodes(slot)) {
+                counts.put(slot + "@" + gssNode.getInputIndex(), gssNode.countPoppedElements() + " pops, " + gssNode.countGSSEdges() + " edges");
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,111 @@
+package org.iguana;
+
+import iguana.regex.Char;
+import iguana.utils.input.CSRGraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.ParseOptions;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.iguana.GraphTests.config;
+import static org.iguana.GraphTests.parser;
+import static org.iguana.GraphTests.randomGraphWithoutParallelEdges;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class PathCountingTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(true).build();
+
+    // 0 -a-> 1 -a-> 0
+    private static CSRGraphInput cycle() {
+        return CSRGraphInput.builder().addEdge(0, "a", 1).addEdge(1, "a", 0).build();
+    }
+
+    @Test
+    public void testCycle() {
+        // S ::= a S | a
+        Nonterminal s = Nonterminal.withName("S");
+        Terminal a = Terminal.from(Char.from('a'));
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(s).addSymbol(a).addSymbol(s).build())
+                .addRule(Rule.withHead(s).addSymbol(a).build())
+                .setStartSymbol(Start.builder(s).setName("S").build())
+                .build();
+        IguanaParser parser = new IguanaParser(grammar, config());
+
+        Map<Pair, Long> counts = parser.countPaths(cycle(), options, 6);
+        assertEquals(4, counts.size());
+        assertEquals(3L, (long) counts.get(new Pair(0, 0)));
+        assertEquals(3L, (long) counts.get(new Pair(0, 1)));
+        assertEquals(0L, (long) parser.countPaths(cycle(), options, 0).get(new Pair(0, 1)));
+    }
+
+    @Test
+    public void testInfinitelyManyDerivations() {
+        // S ::= S | a, where S derives itself
+        Nonterminal s = Nonterminal.withName("S");
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(s).addSymbol(s).build())
+                .addRule(Rule.withHead(s).addSymbol(Terminal.from(Char.from('a'))).build())
+                .setStartSymbol(Start.builder(s).setName("S").build())
+                .build();
+        IguanaParser parser = new IguanaParser(grammar, config());
+
+        assertEquals(Long.MAX_VALUE, (long) parser.countPaths(cycle(), options, 3).get(new Pair(0, 1)));
+        assertEquals(1000L, (long) parser.countPaths(cycle(), options, 3, 1000).get(new Pair(0, 1)));
+    }
+
+    @Test
+    public void testCountsOfRandomGraph() {
+        IguanaParser parser = parser("g1");
+        // Parallel edges with the same label are a single edge in the SPPF
+        CSRGraphInput input = randomGraphWithoutParallelEdges(3, 20, 70, "a", "b", "c", "d");
+
+        int maxLength = 6;
+        Map<Pair, Long> expected = new HashMap<>();
+        for (int v = 0; v < 20; v++) {
+            countWords(input, v, v, new StringBuilder(), maxLength, expected);
+        }
+
+        Map<Pair, Long> counts = parser.countPaths(input, options, maxLength);
+        assertFalse(counts.isEmpty());
+        expected.forEach((pair, count) -> assertEquals(count, counts.get(pair)));
+        counts.forEach((pair, count) -> assertEquals((long) expected.getOrDefault(pair, 0L), (long) count));
+    }
+
+    // Counts the paths from the source whose labels g1 derives, by brute force
+    private static void countWords(CSRGraphInput input, int source, int vertex, StringBuilder word, int maxLength, Map<Pair, Long> counts) {
+        if (derives(word)) {
+            counts.merge(new Pair(source, vertex), 1L, Long::sum);
+        }
+        if (word.length() == maxLength) return;
+        for (String label : new String[]{"a", "b", "c", "d"}) {
+            int labelId = input.getLabelId(label);
+            if (labelId == -1) continue;
+            input.forEachDestVertex(vertex, labelId, target -> {
+                word.append(label);
+                countWords(input, source, target, word, maxLength, counts);
+                word.setLength(word.length() - 1);
+            });
+        }
+    }
+
+    // S ::= b S a | b a | d S c | d c
+    private static boolean derives(CharSequence word) {
+        int n = word.length();
+        if (n < 2) return false;
+        char first = word.charAt(0);
+        char last = word.charAt(n - 1);
+        if (!(first == 'b' && last == 'a' || first == 'd' && last == 'c')) return false;
+        return n == 2 || derives(word.subSequence(1, n - 1));
+    }
+}
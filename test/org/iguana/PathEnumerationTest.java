@@ -0,0 +1,96 @@
+package org.iguana;
+
+import iguana.regex.Char;
+import iguana.utils.input.CSRGraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.parser.GraphPath;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ParseOptions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.iguana.GraphTests.config;
+import static org.iguana.GraphTests.parser;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PathEnumerationTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(true).build();
+
+    // S ::= a S | a
+    private static IguanaParser aPlusParser() {
+        Nonterminal s = Nonterminal.withName("S");
+        Terminal a = Terminal.from(Char.from('a'));
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(s).addSymbol(a).addSymbol(s).build())
+                .addRule(Rule.withHead(s).addSymbol(a).build())
+                .setStartSymbol(Start.builder(s).setName("S").build())
+                .build();
+        return new IguanaParser(grammar, config());
+    }
+
+    // 0 -a-> 1 -a-> 0
+    private static CSRGraphInput cycle() {
+        return CSRGraphInput.builder().addEdge(0, "a", 1).addEdge(1, "a", 0).build();
+    }
+
+    @Test
+    public void testCycleBound() {
+        IguanaParser parser = aPlusParser();
+
+        List<GraphPath> paths = parser.getPaths(cycle(), options, 0, 0, 100, 100).collect(Collectors.toList());
+        assertEquals("[0 -a-> 1 -a-> 0, 0 -a-> 1 -a-> 0 -a-> 1 -a-> 0]", paths.toString());
+
+        paths = parser.getPaths(cycle(), options, 0, 0, 6, 100, 10).collect(Collectors.toList());
+        assertEquals(3, paths.size());
+        assertEquals(new HashSet<>(Arrays.asList(2, 4, 6)), paths.stream().map(GraphPath::length).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testLimit() {
+        IguanaParser parser = aPlusParser();
+        // Without a length bound and with a large cycle bound, the limit stops the enumeration
+        List<GraphPath> paths = parser.getPaths(cycle(), options, 0, 1, Integer.MAX_VALUE, 3, 1000).collect(Collectors.toList());
+        assertEquals(3, paths.size());
+        assertTrue(paths.stream().allMatch(path -> path.getSource() == 0 && path.getTarget() == 1));
+    }
+
+    @Test
+    public void testPathsOfRandomGraph() {
+        IguanaParser parser = parser("g1");
+        CSRGraphInput input = randomGraph(4, 40, 120, "a", "b", "c", "d");
+
+        PairSet pairs = parser.getReachabilitySet(input, options);
+        assertFalse(pairs.isEmpty());
+        pairs.forEach((source, target) -> {
+            List<GraphPath> paths = parser.getPaths(input, options, source, target, 12, 5).collect(Collectors.toList());
+            Set<GraphPath> distinct = new HashSet<>(paths);
+            assertEquals(paths.size(), distinct.size());
+            for (GraphPath path : paths) {
+                assertEquals(source, path.getSource());
+                assertEquals(target, path.getTarget());
+                assertTrue(path.length() <= 12);
+                for (int i = 0; i < path.length(); i++) {
+                    assertTrue(input.hasDestVertex(path.getVertex(i), path.getLabel(i), path.getVertex(i + 1)));
+                }
+            }
+        });
+
+        // The shortest derivation of a pair never passes through a node twice
+        pairs.forEach((source, target) ->
+                assertTrue(parser.getPaths(input, options, source, target, Integer.MAX_VALUE, 1).findFirst().isPresent()));
+    }
+}
@@ -0,0 +1,185 @@
+package org.iguana;
+
+import iguana.regex.Char;
+import iguana.utils.input.CSRGraphInput;
+import iguana.utils.input.PrunedGraph;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ParseOptions;
+import org.iguana.parser.ReachabilityCounts;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.iguana.GraphTests.parser;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrunedGraphTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+    private final ParseOptions pruneOptions = new ParseOptions.Builder().setAmbiguous(false).setPruneGraph(true).build();
+
+    // Most edges have a label that the grammars do not mention, and a quarter of the vertices only have such edges
+    private static CSRGraphInput randomGraph(int seed) {
+        Random random = new Random(seed);
+        CSRGraphInput.Builder builder = CSRGraphInput.builder().setVertexCount(200);
+        for (int i = 0; i < 300; i++) {
+            builder.addEdge(random.nextInt(150), random.nextBoolean() ? "a" : "b", random.nextInt(150));
+        }
+        for (int i = 0; i < 1000; i++) {
+            builder.addEdge(random.nextInt(200), "other", random.nextInt(200));
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testSameReachabilities() {
+        for (String name : new String[]{"Test5", "g1", "g2"}) {
+            IguanaParser parser = parser(name);
+            CSRGraphInput input = randomGraph(name.length());
+            PairSet expected = parser.getReachabilitySet(input, options);
+            assertEquals(expected, parser.getReachabilitySet(input, pruneOptions));
+            assertEquals(expected, parser.getReachabilitySet(input, pruneOptions, 2));
+            assertEquals(expected, parser.getSharedReachabilitySet(input, pruneOptions, 2));
+
+            ReachabilityCounts counts = parser.countReachabilities(input, options);
+            ReachabilityCounts prunedCounts = parser.countReachabilities(input, pruneOptions);
+            assertEquals(counts.getTotal(), prunedCounts.getTotal());
+            assertEquals(counts.getSourceCount(), prunedCounts.getSourceCount());
+            assertArrayEquals(counts.getOutDegreeHistogram(), prunedCounts.getOutDegreeHistogram());
+            for (int v = 0; v < input.getVertexCount(); v++) {
+                assertEquals(counts.getCount(v), prunedCounts.getCount(v));
+            }
+        }
+    }
+
+    @Test
+    public void testSameReachabilitiesWithListenerAndQueries() {
+        for (String name : new String[]{"Test5", "g1", "g2"}) {
+            IguanaParser parser = parser(name);
+            CSRGraphInput input = randomGraph(name.length());
+            Set<Pair> expected = parser.getReachabilitySet(input, options).stream().collect(Collectors.toSet());
+
+            List<Pair> reported = new ArrayList<>();
+            parser.getReachabilities(input, pruneOptions, (source, target) -> reported.add(new Pair(source, target)));
+            assertEquals(expected.size(), reported.size());
+            assertEquals(expected, new HashSet<>(reported));
+
+            // Pairs of original vertices, some of which are removed by pruning
+            List<Pair> pairs = new ArrayList<>(expected);
+            pairs.add(new Pair(170, 180));
+            pairs.add(new Pair(0, 190));
+            assertEquals(expected, parser.getReachablePairs(input, pruneOptions, pairs));
+
+            for (int source : new int[]{0, 1, 2, 175}) {
+                Set<Integer> targets = expected.stream().filter(pair -> pair.startVertex == source)
+                        .map(pair -> pair.endVertex).collect(Collectors.toSet());
+                assertEquals(targets, parser.getReachableTargets(input, pruneOptions, source, IntStream.range(0, 200).boxed().collect(Collectors.toList())));
+            }
+            for (Pair pair : expected.stream().limit(20).collect(Collectors.toList())) {
+                assertTrue(parser.isReachable(input, pruneOptions, pair.startVertex, pair.endVertex));
+            }
+            assertFalse(parser.isReachable(input, pruneOptions, 170, 180));
+
+            Set<Pair> published = new HashSet<>();
+            parser.publishReachabilities(input, pruneOptions, Runnable::run).subscribe(new Flow.Subscriber<Pair>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Pair pair) {
+                    published.add(pair);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    throw new AssertionError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            assertEquals(expected, published);
+        }
+    }
+
+    @Test
+    public void testPrunedGraph() {
+        CSRGraphInput input = randomGraph(1);
+        PrunedGraph pruned = PrunedGraph.prune(input, Arrays.asList("a", "b"), false);
+        CSRGraphInput graph = pruned.getGraph();
+
+        assertEquals(-1, graph.getLabelId("other"));
+        assertTrue(graph.getVertexCount() <= 150);
+        assertEquals(input.getVertexCount(), graph.getVertexCount() + pruned.getRemovedVertexCount());
+
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            int original = pruned.getOriginalVertex(v);
+            assertEquals(v, pruned.getPrunedVertex(original));
+            for (String label : new String[]{"a", "b"}) {
+                int labelId = graph.getLabelId(label);
+                assertEquals(input.getDestVertex(original, label),
+                        graph.getDestVertex(v, label).stream().map(pruned::getOriginalVertex).collect(Collectors.toList()));
+                assertEquals(input.getOutDegree(original, input.getLabelId(label)), labelId == -1 ? 0 : graph.getOutDegree(v, labelId));
+            }
+        }
+        for (int v = 150; v < 200; v++) {
+            assertEquals(-1, pruned.getPrunedVertex(v));
+        }
+    }
+
+    @Test
+    public void testStartAndFinalVertices() {
+        CSRGraphInput input = CSRGraphInput.builder().setVertexCount(4)
+                .addEdge(1, "a", 3)
+                .addEdge(0, "other", 2)
+                .setStartVertices(IntStream.range(0, 3).boxed())
+                .setFinalVertices(Arrays.asList(2, 3))
+                .build();
+        PrunedGraph pruned = PrunedGraph.prune(input, Arrays.asList("a", "b"), false);
+
+        assertEquals(2, pruned.getGraph().getVertexCount());
+        assertEquals(Arrays.asList(0), pruned.getGraph().getStartVertices().collect(Collectors.toList()));
+        assertEquals(Arrays.asList(1), pruned.getGraph().getFinalVertices());
+        assertEquals(Arrays.asList(0, 2), pruned.getRemovedStartVertices());
+    }
+
+    @Test
+    public void testNullableStartKeepsVertices() {
+        // S ::= a S b | epsilon
+        Nonterminal s = Nonterminal.withName("S");
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(s).addSymbol(Terminal.from(Char.from('a'))).addSymbol(s).addSymbol(Terminal.from(Char.from('b'))).build())
+                .addRule(Rule.withHead(s).build())
+                .setStartSymbol(Start.builder(s).setName("S").build())
+                .build();
+        IguanaParser parser = new IguanaParser(grammar);
+        CSRGraphInput input = randomGraph(2);
+
+        assertEquals(input.getVertexCount(), parser.prune(input).getGraph().getVertexCount());
+        PairSet expected = parser.getReachabilitySet(input, options);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, parser.getReachabilitySet(input, pruneOptions));
+    }
+}
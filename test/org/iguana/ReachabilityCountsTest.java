@@ -0,0 +1,54 @@
+package org.iguana;
+
+import iguana.utils.input.GraphInput;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ParseOptions;
+import org.iguana.parser.ReachabilityCounts;
+import org.junit.Test;
+
+
+import static org.iguana.GraphTests.parser;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ReachabilityCountsTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+    private static void assertCounts(PairSet pairs, ReachabilityCounts counts) {
+        assertEquals(pairs.size(), counts.getTotal());
+        for (int source = 0; source < 100; source++) {
+            assertEquals(pairs.countTargets(source), counts.getCount(source));
+        }
+
+        long[] histogram = new long[counts.getMaxOutDegree() + 1];
+        for (int source = 0; source < 100; source++) {
+            histogram[pairs.countTargets(source)]++;
+        }
+        assertArrayEquals(histogram, counts.getOutDegreeHistogram());
+    }
+
+    @Test
+    public void testCountsSameAsPairs() {
+        for (String grammar : new String[]{"Test5", "g1", "g2"}) {
+            IguanaParser parser = parser(grammar);
+            for (int seed = 0; seed < 3; seed++) {
+                GraphInput input = randomGraph(seed, 100, 250);
+                ReachabilityCounts counts = parser.countReachabilities(input, options);
+                assertEquals(100, counts.getSourceCount());
+                assertCounts(parser.getReachabilitySet(input, options), counts);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelCounts() {
+        IguanaParser parser = parser("Test5");
+        GraphInput input = randomGraph(7, 100, 250);
+        ReachabilityCounts counts = parser.countReachabilities(input, options, 4);
+        assertEquals(100, counts.getSourceCount());
+        assertCounts(parser.getReachabilitySet(input, options), counts);
+    }
+}
@@ -0,0 +1,72 @@
+package org.iguana;
+
+import iguana.utils.input.CSRGraphInput;
+import iguana.utils.input.GraphInput;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.ParseOptions;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.iguana.GraphTests.parser;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReachabilityQueryTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+    @Test
+    public void testPairs() {
+        IguanaParser parser = parser("Test5");
+        GraphInput input = randomGraph(5, 100, 250);
+        Set<Pair> all = parser.getReachabilities(input, options).collect(Collectors.toSet());
+
+        Random random = new Random(1);
+        List<Pair> pairs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pairs.add(new Pair(random.nextInt(100), random.nextInt(100)));
+        }
+        Set<Pair> expected = new HashSet<>(pairs);
+        expected.retainAll(all);
+
+        assertEquals(expected, parser.getReachablePairs(input, options, pairs));
+    }
+
+    @Test
+    public void testSinglePair() {
+        IguanaParser parser = parser("Test5");
+        GraphInput input = randomGraph(5, 100, 250);
+        Set<Pair> all = parser.getReachabilities(input, options).collect(Collectors.toSet());
+
+        for (int source = 0; source < 100; source += 7) {
+            for (int target = 0; target < 100; target += 3) {
+                assertEquals(all.contains(new Pair(source, target)), parser.isReachable(input, options, source, target));
+            }
+        }
+    }
+
+    @Test
+    public void testTargets() {
+        CSRGraphInput input = CSRGraphInput.builder()
+                .addEdge(0, "a", 1)
+                .addEdge(1, "a", 2)
+                .addEdge(2, "b", 3)
+                .addEdge(3, "b", 4)
+                .build();
+        IguanaParser parser = parser("Test5");
+
+        assertEquals(Set.of(4), parser.getReachableTargets(input, options, 0, List.of(3, 4)));
+        assertEquals(Set.of(3), parser.getReachableTargets(input, options, 1, List.of(3, 4)));
+        assertTrue(parser.isReachable(input, options, 0, 4));
+        assertFalse(parser.isReachable(input, options, 0, 3));
+    }
+}
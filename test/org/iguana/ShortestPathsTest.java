@@ -0,0 +1,98 @@
+package org.iguana;
+
+import iguana.regex.Char;
+import iguana.utils.input.CSRGraphInput;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.parser.GraphPath;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.PairSet;
+import org.iguana.parser.ParseOptions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.iguana.GraphTests.config;
+import static org.iguana.GraphTests.parser;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShortestPathsTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(true).build();
+
+    @Test
+    public void testCycle() {
+        // S ::= a S | a
+        Nonterminal s = Nonterminal.withName("S");
+        Terminal a = Terminal.from(Char.from('a'));
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(s).addSymbol(a).addSymbol(s).build())
+                .addRule(Rule.withHead(s).addSymbol(a).build())
+                .setStartSymbol(Start.builder(s).setName("S").build())
+                .build();
+        IguanaParser parser = new IguanaParser(grammar, config());
+        // 0 -a-> 1 -a-> 0
+        CSRGraphInput input = CSRGraphInput.builder().addEdge(0, "a", 1).addEdge(1, "a", 0).build();
+
+        Map<Pair, GraphPath> paths = parser.getShortestPaths(input, options);
+        assertEquals(4, paths.size());
+        assertEquals("0 -a-> 1 -a-> 0", paths.get(new Pair(0, 0)).toString());
+        assertEquals("1 -a-> 0", paths.get(new Pair(1, 0)).toString());
+
+        assertEquals("[0 -a-> 1, 0 -a-> 1 -a-> 0 -a-> 1]", parser.getShortestPaths(input, options, 0, 1, 5).toString());
+        List<Integer> lengths = parser.getShortestPaths(input, options, 0, 1, 3, 10).stream()
+                .map(GraphPath::length).collect(Collectors.toList());
+        assertEquals(Arrays.asList(1, 3, 5), lengths);
+    }
+
+    @Test
+    public void testShortestPathsOfRandomGraph() {
+        IguanaParser parser = parser("g1");
+        CSRGraphInput input = randomGraph(7, 40, 120, "a", "b", "c", "d");
+
+        PairSet pairs = parser.getReachabilitySet(input, options);
+        assertFalse(pairs.isEmpty());
+        Map<Pair, GraphPath> shortest = parser.getShortestPaths(input, options);
+        assertEquals(pairs.size(), shortest.size());
+
+        pairs.forEach((source, target) -> {
+            GraphPath path = shortest.get(new Pair(source, target));
+            assertValid(input, source, target, path);
+            // No shorter path is derived
+            assertFalse(parser.getPaths(input, options, source, target, path.length() - 1, 1).findFirst().isPresent());
+
+            List<GraphPath> paths = parser.getShortestPaths(input, options, source, target, 4);
+            assertFalse(paths.isEmpty());
+            assertEquals(path.length(), paths.get(0).length());
+            assertEquals(paths.size(), new HashSet<>(paths).size());
+            for (int i = 0; i < paths.size(); i++) {
+                assertValid(input, source, target, paths.get(i));
+                if (i > 0) assertTrue(paths.get(i - 1).length() <= paths.get(i).length());
+            }
+            // Every path that is shorter than the last one is among the k shortest ones
+            int last = paths.get(paths.size() - 1).length();
+            Set<GraphPath> shorter = parser.getPaths(input, options, source, target, last - 1, 100).collect(Collectors.toSet());
+            assertTrue(paths.containsAll(shorter));
+        });
+    }
+
+    private static void assertValid(CSRGraphInput input, int source, int target, GraphPath path) {
+        assertEquals(source, path.getSource());
+        assertEquals(target, path.getTarget());
+        for (int i = 0; i < path.length(); i++) {
+            assertTrue(input.hasDestVertex(path.getVertex(i), path.getLabel(i), path.getVertex(i + 1)));
+        }
+    }
+}
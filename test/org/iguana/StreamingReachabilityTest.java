@@ -0,0 +1,121 @@
+package org.iguana;
+
+import iguana.utils.input.GraphInput;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.Pair;
+import org.iguana.parser.ParseOptions;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.iguana.GraphTests.parser;
+import static org.iguana.GraphTests.randomGraph;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingReachabilityTest {
+
+    private final ParseOptions options = new ParseOptions.Builder().setAmbiguous(false).build();
+
+    @Test
+    public void testListener() {
+        IguanaParser parser = parser("Test5");
+        GraphInput input = randomGraph(3, 100, 250);
+        Set<Pair> expected = parser.getReachabilities(input, options).collect(Collectors.toSet());
+
+        List<Pair> actual = new ArrayList<>();
+        parser.getReachabilities(input, options, (source, target) -> actual.add(new Pair(source, target)));
+
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, new HashSet<>(actual));
+    }
+
+    @Test
+    public void testPublisherWithBackPressure() throws InterruptedException {
+        IguanaParser parser = parser("Test5");
+        GraphInput input = randomGraph(3, 100, 250);
+        Set<Pair> expected = parser.getReachabilities(input, options).collect(Collectors.toSet());
+
+        Set<Pair> actual = new HashSet<>();
+        CountDownLatch done = new CountDownLatch(1);
+        parser.publishReachabilities(input, options).subscribe(new Flow.Subscriber<Pair>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Pair item) {
+                actual.add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testPublisherCancel() throws InterruptedException {
+        IguanaParser parser = parser("Test5");
+        GraphInput input = randomGraph(3, 100, 250);
+
+        List<Pair> received = new ArrayList<>();
+        boolean[] completed = {false};
+        CountDownLatch received5 = new CountDownLatch(1);
+        parser.publishReachabilities(input, options).subscribe(new Flow.Subscriber<Pair>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(10);
+            }
+
+            @Override
+            public void onNext(Pair item) {
+                received.add(item);
+                if (received.size() == 5) {
+                    subscription.cancel();
+                    received5.countDown();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed[0] = true;
+            }
+        });
+
+        assertTrue(received5.await(60, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(5, received.size());
+        assertFalse(completed[0]);
+    }
+}
@@ -0,0 +1,108 @@
+package org.iguana.gss;
+
+import org.iguana.grammar.slot.NonterminalGrammarSlot;
+import org.iguana.parser.IguanaRuntime;
+import org.iguana.result.RecognizerResult;
+import org.iguana.result.RecognizerResultOps;
+import org.iguana.util.Configuration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pops results into a GSS node without edges, below, at and above the number of popped elements
+ * from which the node indexes them.
+ */
+public class DefaultGSSNodeTest {
+
+    private static final int[] SIZES = {1, 7, 8, 9, 17, 1000};
+
+    private final IguanaRuntime<RecognizerResult> runtime = new IguanaRuntime<>(Configuration.load(), new RecognizerResultOps());
+
+    private static DefaultGSSNode<RecognizerResult> gssNode() {
+        return new DefaultGSSNode<>((NonterminalGrammarSlot) null, 0);
+    }
+
+    // The right extents 0, 3, 6, ... in a random order
+    private static List<Integer> indices(int size, long seed) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            indices.add(i * 3);
+        }
+        Collections.shuffle(indices, new Random(seed));
+        return indices;
+    }
+
+    private static List<Integer> poppedIndices(DefaultGSSNode<RecognizerResult> gssNode) {
+        List<Integer> indices = new ArrayList<>();
+        gssNode.getPoppedElements().forEach(result -> indices.add(result.getIndex()));
+        return indices;
+    }
+
+    @Test
+    public void testDistinctPops() {
+        for (int size : SIZES) {
+            DefaultGSSNode<RecognizerResult> gssNode = gssNode();
+            List<Integer> indices = indices(size, size);
+            for (int i = 0; i < size; i++) {
+                assertTrue(gssNode.pop(null, null, RecognizerResult.of(indices.get(i)), runtime));
+                assertEquals(i + 1, gssNode.countPoppedElements());
+            }
+
+            assertEquals(indices, poppedIndices(gssNode));
+            for (int index : indices) {
+                assertEquals(index, gssNode.getResult(index).getIndex());
+                assertNull(gssNode.getResult(index + 1));
+            }
+            assertEquals(size, gssNode.countResults());
+        }
+    }
+
+    @Test
+    public void testDuplicatePops() {
+        for (int size : SIZES) {
+            DefaultGSSNode<RecognizerResult> gssNode = gssNode();
+            List<Integer> indices = indices(size, size);
+            for (int index : indices) {
+                assertTrue(gssNode.pop(null, null, RecognizerResult.of(index), runtime));
+                // Popping the same right extent again, before and after other pops, adds nothing
+                assertFalse(gssNode.pop(null, null, RecognizerResult.of(index), runtime));
+                assertFalse(gssNode.pop(null, null, RecognizerResult.of(indices.get(0)), runtime));
+            }
+            for (int index : indices(size, size + 1)) {
+                assertFalse(gssNode.pop(null, null, RecognizerResult.of(index), runtime));
+            }
+
+            assertEquals(size, gssNode.countPoppedElements());
+            assertEquals(indices, poppedIndices(gssNode));
+        }
+    }
+
+    @Test
+    public void testPopsWithValues() {
+        for (int size : SIZES) {
+            DefaultGSSNode<RecognizerResult> gssNode = gssNode();
+            List<Integer> indices = indices(size, size);
+            for (int index : indices) {
+                assertTrue(gssNode.pop(null, null, RecognizerResult.of(index), "x", runtime));
+                assertTrue(gssNode.pop(null, null, RecognizerResult.of(index), "y", runtime));
+                assertFalse(gssNode.pop(null, null, RecognizerResult.of(index), "x", runtime));
+            }
+
+            assertEquals(2 * size, gssNode.countPoppedElements());
+            assertEquals(size, gssNode.countResults());
+            // The result of a right extent is the last popped element added for it
+            for (int index : indices) {
+                assertEquals("y", gssNode.getResult(index).getValue());
+            }
+        }
+    }
+}